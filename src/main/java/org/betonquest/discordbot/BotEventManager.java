@@ -0,0 +1,181 @@
+package org.betonquest.discordbot;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
+import net.dv8tion.jda.api.events.session.ShutdownEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.hooks.InterfacedEventManager;
+import org.betonquest.discordbot.profiling.ListenerEvent;
+import org.betonquest.discordbot.tracing.Trace;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The event manager of the bot, that delivers events to the registered {@link EventListener}s.
+ * Duplicate events, like the events Discord sends again after a resume, are dropped by the
+ * {@link EventDeduplicator} before they reach the listeners.
+ * Listeners that block the event thread are detected by the {@link HandlerWatchdog}.
+ * The handling of selected events by selected listeners is traced with the {@link Tracer}.
+ * The handling of every event by every listener is recorded as {@link ListenerEvent} for the Java Flight Recorder.
+ * The handling time of the first command is logged, to compare the warm-up with and without the class data sharing
+ * archive.
+ */
+public class BotEventManager extends InterfacedEventManager {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(BotEventManager.class);
+
+    /**
+     * The {@link Tracer} instance, or null if tracing is disabled.
+     */
+    @Nullable
+    private final Tracer tracer;
+
+    /**
+     * The {@link EventDeduplicator} instance, or null if de-duplication is disabled.
+     */
+    @Nullable
+    private final EventDeduplicator deduplicator;
+
+    /**
+     * The {@link HandlerWatchdog} instance, or null if the watchdog is disabled.
+     */
+    @Nullable
+    private final HandlerWatchdog watchdog;
+
+    /**
+     * The event types traced for each listener type.
+     */
+    private final Map<Class<?>, Set<Class<? extends GenericEvent>>> tracedEvents;
+
+    /**
+     * If the first command was handled.
+     */
+    private final AtomicBoolean firstCommandHandled;
+
+    /**
+     * The number of events that are currently delivered.
+     */
+    private final AtomicInteger delivering;
+
+    /**
+     * The number of delivered events.
+     */
+    private final LongAdder delivered;
+
+    /**
+     * Creates a new {@link BotEventManager}.
+     *
+     * @param tracer       the {@link Tracer} instance, or null if tracing is disabled
+     * @param deduplicator the {@link EventDeduplicator} instance, or null if de-duplication is disabled
+     * @param watchdog     the {@link HandlerWatchdog} instance, or null if the watchdog is disabled
+     * @param tracedEvents the event types traced for each listener type
+     */
+    public BotEventManager(@Nullable final Tracer tracer, @Nullable final EventDeduplicator deduplicator,
+                           @Nullable final HandlerWatchdog watchdog,
+                           final Map<Class<?>, Set<Class<? extends GenericEvent>>> tracedEvents) {
+        super();
+        this.tracer = tracer;
+        this.deduplicator = deduplicator;
+        this.watchdog = watchdog;
+        this.tracedEvents = Map.copyOf(tracedEvents);
+        this.firstCommandHandled = new AtomicBoolean();
+        this.delivering = new AtomicInteger();
+        this.delivered = new LongAdder();
+    }
+
+    @Override
+    public void handle(@NotNull final GenericEvent event) {
+        if (deduplicator != null && deduplicator.isDuplicate(event)) {
+            LOGGER.debug("Dropped the duplicate event {}, {} duplicates were dropped in total.",
+                    event.getClass().getSimpleName(), deduplicator.getDuplicates());
+            return;
+        }
+        if (deduplicator != null && event instanceof ShutdownEvent) {
+            LOGGER.info("Dropped {} duplicate events.", deduplicator.getDuplicates());
+        }
+        if (watchdog != null && event instanceof ShutdownEvent) {
+            watchdog.logSummary();
+        }
+        final long start = System.nanoTime();
+        delivering.incrementAndGet();
+        try {
+            for (final Object listener : getRegisteredListeners()) {
+                if (tracer != null && isTraced(listener, event)) {
+                    final Trace trace = tracer.start(listener, event);
+                    Tracer.within(trace, () -> deliver(listener, event));
+                    trace.endListener();
+                } else {
+                    deliver(listener, event);
+                }
+            }
+        } finally {
+            delivered.increment();
+            delivering.decrementAndGet();
+        }
+        if (event instanceof final GenericCommandInteractionEvent command && !firstCommandHandled.get()
+                && firstCommandHandled.compareAndSet(false, true)) {
+            LOGGER.info("Handled the first command '{}' in {} ms, {} ms after the start.",
+                    command.getFullCommandName(), (System.nanoTime() - start) / 1_000_000,
+                    ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+    }
+
+    /**
+     * Checks if no event is currently delivered to the listeners.
+     *
+     * @return true if no event is delivered
+     */
+    public boolean isIdle() {
+        return delivering.get() == 0;
+    }
+
+    /**
+     * Gets the number of events delivered to the listeners, without the dropped duplicates.
+     *
+     * @return the number of delivered events
+     */
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    private boolean isTraced(final Object listener, final GenericEvent event) {
+        final Set<Class<? extends GenericEvent>> events = tracedEvents.get(listener.getClass());
+        return events != null && events.contains(event.getClass());
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private void deliver(final Object listener, final GenericEvent event) {
+        final ListenerEvent recorded = new ListenerEvent();
+        recorded.begin();
+        final HandlerWatchdog.Delivery delivery = watchdog == null ? null : watchdog.begin(listener, event);
+        try {
+            ((EventListener) listener).onEvent(event);
+        } catch (final Throwable throwable) {
+            LOGGER.error("The listener {} had an uncaught exception", listener.getClass().getSimpleName(), throwable);
+            if (throwable instanceof final Error error) {
+                throw error;
+            }
+        } finally {
+            if (delivery != null) {
+                watchdog.end(delivery);
+            }
+            recorded.end();
+            if (recorded.shouldCommit()) {
+                recorded.describe(listener, event);
+                recorded.commit();
+            }
+        }
+    }
+}
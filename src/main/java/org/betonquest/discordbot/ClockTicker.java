@@ -0,0 +1,32 @@
+package org.betonquest.discordbot;
+
+import com.google.common.base.Ticker;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Ticker} that reads the time from a {@link Clock}, so expiring caches follow the clock of the bot.
+ * In a replay, entries then expire with the time of the replayed events instead of the wall clock.
+ */
+public class ClockTicker extends Ticker {
+    /**
+     * The clock to read the time from.
+     */
+    private final Clock clock;
+
+    /**
+     * Creates a new {@link ClockTicker}.
+     *
+     * @param clock the clock to read the time from
+     */
+    public ClockTicker(final Clock clock) {
+        super();
+        this.clock = clock;
+    }
+
+    @Override
+    public long read() {
+        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+    }
+}
@@ -3,21 +3,34 @@ package org.betonquest.discordbot;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
 import net.dv8tion.jda.api.requests.GatewayIntent;
 import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
 import org.betonquest.discordbot.config.BetonBotConfig;
-import org.betonquest.discordbot.modules.promotion.PromoteCommand;
-import org.betonquest.discordbot.modules.promotion.PromotionCache;
-import org.betonquest.discordbot.modules.support.NewThreadListener;
-import org.betonquest.discordbot.modules.support.SolveCommand;
-import org.betonquest.discordbot.modules.support.ThreadAutoCloseScheduler;
-import org.betonquest.discordbot.modules.support.ThreadUpdateListener;
-import org.betonquest.discordbot.modules.welcome.WelcomeMessageListener;
+import org.betonquest.discordbot.modules.BotModule;
+import org.betonquest.discordbot.modules.ModuleContext;
+import org.betonquest.discordbot.replay.GatewayCapture;
+import org.betonquest.discordbot.threading.BotThreads;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
 import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 /**
  * This is the main class of the Discord Bot.
@@ -42,67 +55,98 @@ public final class DiscordBot {
     public static void main(final String[] args) {
         LOGGER.info("Starting Discord Bot ...");
         final BetonBotConfig config;
-        final JDA api;
         try {
             config = new BetonBotConfig(Paths.get("config.yml"));
-            if (config.token == null) {
-                LOGGER.error("You need to set the token in the 'config.yml'");
-                return;
-            }
-            api = JDABuilder.createDefault(config.token)
-                    .enableIntents(GatewayIntent.GUILD_MEMBERS, GatewayIntent.MESSAGE_CONTENT)
-                    .setMemberCachePolicy(MemberCachePolicy.ALL)
-                    .build();
         } catch (final IOException e) {
             LOGGER.error("Could not read the config file 'config.yml'! Reason: ", e);
             return;
         }
+        if (start(config, Clock.systemUTC(), UnaryOperator.identity(), config.captureEnabled) != null) {
+            final RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+            final boolean sharedArchive = runtime.getInputArguments().stream()
+                    .anyMatch(argument -> argument.startsWith("-XX:SharedArchiveFile="));
+            LOGGER.info("DiscordBot is ready after {} ms {} the class data sharing archive!", runtime.getUptime(),
+                    sharedArchive ? "with" : "without");
+        }
+    }
+
+    /**
+     * Connects to Discord and starts all enabled {@link BotModule}s.
+     * The bot only subscribes to the gateway intents, cache flags and members the enabled modules need.
+     *
+     * @param config     the {@link BetonBotConfig} instance
+     * @param clock      the clock the modules read the current time from
+     * @param customizer a customizer of the {@link JDABuilder}, applied before it is built
+     * @param capture    if the gateway events should be captured with the {@link GatewayCapture}
+     * @return the {@link JDA} instance, or null if the bot could not be started
+     */
+    @Nullable
+    public static JDA start(final BetonBotConfig config, final Clock clock, final UnaryOperator<JDABuilder> customizer,
+                            final boolean capture) {
+        if (config.token == null) {
+            LOGGER.error("You need to set the token in the 'config.yml'");
+            return null;
+        }
+        final List<BotModule> modules = ServiceLoader.load(BotModule.class).stream()
+                .map(ServiceLoader.Provider::get)
+                .filter(module -> module.isEnabled(config))
+                .toList();
+        final Set<GatewayIntent> intents = EnumSet.of(GatewayIntent.GUILDS);
+        final Set<CacheFlag> cacheFlags = EnumSet.noneOf(CacheFlag.class);
+        MemberCachePolicy memberCachePolicy = MemberCachePolicy.NONE;
+        final Map<Class<?>, Set<Class<? extends GenericEvent>>> tracedEvents = new HashMap<>();
+        for (final BotModule module : modules) {
+            intents.addAll(module.getIntents());
+            cacheFlags.addAll(module.getCacheFlags());
+            memberCachePolicy = memberCachePolicy.or(module.getMemberCachePolicy());
+            tracedEvents.putAll(module.getTracedEvents());
+        }
+        LOGGER.info("Starting modules {} with intents {}.", modules.stream()
+                .map(module -> module.getClass().getSimpleName()).toList(), intents);
+
+        final BotThreads threads = new BotThreads(config);
+        final JDABuilder builder = threads.configure(JDABuilder.createLight(config.token, intents))
+                .enableCache(cacheFlags)
+                .setMemberCachePolicy(memberCachePolicy)
+                .setEventManager(new BotEventManager(config.tracingEnabled ? new Tracer(config) : null,
+                        config.deduplicationEnabled ? new EventDeduplicator(config, clock) : null,
+                        config.watchdogEnabled ? new HandlerWatchdog(config, threads.newScheduler("Watchdog")) : null,
+                        tracedEvents));
+        if (capture) {
+            builder.setRawEventsEnabled(true)
+                    .addEventListeners(new GatewayCapture(config, Paths.get("capture"),
+                            threads.newSingleThreadExecutor("Capture")));
+        }
+        final JDA api = customizer.apply(builder).build();
 
         try {
             api.awaitReady();
         } catch (final InterruptedException e) {
             LOGGER.error("Waited for state Ready, but there was an exception! Exception: ", e);
-            return;
+            return null;
         }
         final Guild guild = api.getGuildById(config.guildID);
         if (guild == null) {
             LOGGER.error("No guild with the id '{}' was found!", config.guildID);
-            return;
-        }
-        guild.loadMembers().get();
-
-        try {
-            new WelcomeMessageListener(api, config.welcomeEmoji);
-        } catch (final IllegalArgumentException e) {
-            LOGGER.info(e.getMessage(), e);
-        } catch (final IllegalStateException e) {
-            LOGGER.error(e.getMessage(), e);
+            return null;
         }
-        final SolveCommand solveCommand = new SolveCommand(api, config, "solve", "Mark a support thread as solved.",
-                () -> config.supportSolvedEmbed);
-        final SolveCommand closeCommand = new SolveCommand(api, config, "close", "Mark a support thread as closed.",
-                () -> config.supportClosedEmbed);
-        new NewThreadListener(api, config);
-        new ThreadUpdateListener(api, config);
 
-        new ThreadAutoCloseScheduler(api, config, guild);
-
-        final PromoteCommand promoteCommand;
-        try {
-            final PromotionCache promotionCache = new PromotionCache(Paths.get("promotionCache.yml"), config);
-            promoteCommand = new PromoteCommand(api, config, promotionCache);
-        } catch (final IOException e) {
-            LOGGER.error("Could not read the promotion cache file 'promotionCache.yml'! Reason: ", e);
-            return;
+        final ModuleContext context = new ModuleContext(api, config, guild, clock, threads);
+        final List<SlashCommandData> commands = new ArrayList<>();
+        for (final BotModule module : modules) {
+            try {
+                commands.addAll(module.start(context));
+            } catch (final IOException e) {
+                LOGGER.error("Could not read the files of the module {}! Reason: ", module.getClass().getSimpleName(),
+                        e);
+                return null;
+            }
         }
 
         if (config.updateCommands) {
-            api.updateCommands().addCommands(
-                    solveCommand.getSlashCommandData(),
-                    closeCommand.getSlashCommandData(),
-                    promoteCommand.getSlashCommandData()
-            ).queue(commands -> LOGGER.info("Updated commands!"));
+            api.updateCommands().addCommands(commands).queue(updated -> LOGGER.info("Updated commands!"));
         }
-        LOGGER.info("DiscordBot is ready!");
+        threads.register(api);
+        return api;
     }
 }
@@ -0,0 +1,182 @@
+package org.betonquest.discordbot;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.channel.GenericChannelEvent;
+import net.dv8tion.jda.api.events.channel.update.GenericChannelUpdateEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects gateway events that were already delivered, like the events Discord sends again after a resume.
+ * <p>
+ * An event is identified by its type, the ID of its entity and a hash of its content. Channel events use the channel
+ * and the changed values, received messages the message and its content. Other events are never duplicates.
+ * A value that changes back and forth, like the archived state of a Post, produces the same update twice. So an
+ * update is only a duplicate if the last seen value of its channel property already is its new value.
+ * The seen events are stored in two time buckets of fixed size bloom filters, so an event is remembered for at least
+ * one window and at most two. A bucket is also rotated early when it is full, to keep the false positive rate low.
+ * <p>
+ * This class is thread safe.
+ */
+public class EventDeduplicator {
+    /**
+     * The false positive rate of a bucket, that is a unique event that is dropped.
+     */
+    private static final double FALSE_POSITIVE_RATE = 0.000_01;
+
+    /**
+     * The window in nanoseconds after which the buckets are rotated.
+     */
+    private final long window;
+
+    /**
+     * The number of events a bucket is sized for.
+     */
+    private final int expectedEvents;
+
+    /**
+     * The number of dropped duplicates.
+     */
+    private final LongAdder duplicates;
+
+    /**
+     * The last seen new value of each channel property, by the channel ID and the property identifier.
+     */
+    private final Cache<String, String> lastValues;
+
+    /**
+     * The events seen in the current window.
+     */
+    private BloomFilter<Long> current;
+
+    /**
+     * The events seen in the previous window.
+     */
+    private BloomFilter<Long> previous;
+
+    /**
+     * The ticker the windows are measured with.
+     */
+    private final Ticker ticker;
+
+    /**
+     * The start of the current window in nanoseconds.
+     */
+    private long currentStart;
+
+    /**
+     * Creates a new {@link EventDeduplicator}.
+     *
+     * @param config the {@link BetonBotConfig} instance
+     * @param clock  the clock to read the current time from
+     */
+    public EventDeduplicator(final BetonBotConfig config, final Clock clock) {
+        this.window = TimeUnit.SECONDS.toNanos(Math.max(1, config.deduplicationWindow));
+        this.expectedEvents = Math.max(1, config.deduplicationExpectedEvents);
+        this.duplicates = new LongAdder();
+        this.ticker = new ClockTicker(clock);
+        this.lastValues = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .maximumSize(expectedEvents)
+                .expireAfterWrite(2 * window, TimeUnit.NANOSECONDS)
+                .build();
+        this.current = newBucket();
+        this.previous = newBucket();
+        this.currentStart = ticker.read();
+    }
+
+    /**
+     * Checks if an event was already seen and remembers it otherwise.
+     *
+     * @param event the event
+     * @return true if the event is a duplicate and should be dropped
+     */
+    public boolean isDuplicate(final GenericEvent event) {
+        final Long key = getKey(event);
+        if (key == null) {
+            return false;
+        }
+        final boolean duplicate;
+        synchronized (this) {
+            final long now = ticker.read();
+            if (now - currentStart >= window || current.approximateElementCount() >= expectedEvents) {
+                previous = now - currentStart >= 2 * window ? newBucket() : current;
+                current = newBucket();
+                currentStart = now;
+            }
+            duplicate = (current.mightContain(key) || previous.mightContain(key)) && isLastValue(event);
+            if (!duplicate) {
+                current.put(key);
+                rememberValue(event);
+            }
+        }
+        if (duplicate) {
+            duplicates.increment();
+        }
+        return duplicate;
+    }
+
+    /**
+     * Gets the number of dropped duplicates.
+     *
+     * @return the number of duplicates
+     */
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    private BloomFilter<Long> newBucket() {
+        return BloomFilter.create(Funnels.longFunnel(), expectedEvents, FALSE_POSITIVE_RATE);
+    }
+
+    private boolean isLastValue(final GenericEvent event) {
+        if (event instanceof final GenericChannelUpdateEvent<?> update) {
+            return Objects.equals(lastValues.getIfPresent(getProperty(update)), String.valueOf(update.getNewValue()));
+        }
+        return true;
+    }
+
+    private void rememberValue(final GenericEvent event) {
+        if (event instanceof final GenericChannelUpdateEvent<?> update) {
+            lastValues.put(getProperty(update), String.valueOf(update.getNewValue()));
+        }
+    }
+
+    private String getProperty(final GenericChannelUpdateEvent<?> update) {
+        return update.getChannel().getId() + ":" + update.getPropertyIdentifier();
+    }
+
+    @Nullable
+    private Long getKey(final GenericEvent event) {
+        final Hasher hasher = Hashing.murmur3_128().newHasher()
+                .putString(event.getClass().getName(), StandardCharsets.UTF_8);
+        if (event instanceof final GenericChannelUpdateEvent<?> update) {
+            hasher.putLong(update.getChannel().getIdLong())
+                    .putString(update.getPropertyIdentifier(), StandardCharsets.UTF_8)
+                    .putString(String.valueOf(update.getOldValue()), StandardCharsets.UTF_8)
+                    .putString(String.valueOf(update.getNewValue()), StandardCharsets.UTF_8);
+        } else if (event instanceof final GenericChannelEvent channelEvent) {
+            hasher.putLong(channelEvent.getChannel().getIdLong());
+        } else if (event instanceof final MessageReceivedEvent received) {
+            hasher.putLong(received.getMessageIdLong())
+                    .putString(received.getMessage().getContentRaw(), StandardCharsets.UTF_8);
+        } else {
+            return null;
+        }
+        return hasher.hash().asLong();
+    }
+}
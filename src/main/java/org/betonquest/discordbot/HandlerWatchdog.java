@@ -0,0 +1,227 @@
+package org.betonquest.discordbot;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.profiling.BlockedHandlerEvent;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Detects listeners that block the event thread, which stalls the handling of all other gateway events.
+ * <p>
+ * Every delivery of an event to a listener is timed. A check runs several times per threshold and samples the stack
+ * of each event thread whose listener runs longer than the threshold. When the listener returns, the listener,
+ * the event, the sampled location and the total duration are logged and recorded as {@link BlockedHandlerEvent}.
+ * The number of blocking deliveries per listener is logged on shutdown, for example at the end of a replay.
+ * <p>
+ * In the strict mode, listeners run in the callback context of JDA, so {@code RestAction.complete()} throws an
+ * exception on event threads instead of blocking them. This relies on internal JDA API, see
+ * {@link StrictCallbackContext}.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class HandlerWatchdog implements Runnable {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(HandlerWatchdog.class);
+
+    /**
+     * The package prefix of the frames of the bot.
+     */
+    private static final String BOT_PACKAGE = "org.betonquest.discordbot.";
+
+    /**
+     * The maximum number of sampled frames.
+     */
+    private static final int MAX_FRAMES = 16;
+
+    /**
+     * The number of checks per threshold.
+     */
+    private static final int CHECKS_PER_THRESHOLD = 4;
+
+    /**
+     * The time in nanoseconds after which a listener is considered blocking.
+     */
+    private final long threshold;
+
+    /**
+     * The callback context entered by listeners in the strict mode, or null if not in the strict mode.
+     */
+    @Nullable
+    private final StrictCallbackContext strict;
+
+    /**
+     * The running deliveries by their event thread.
+     */
+    private final Map<Thread, Delivery> running;
+
+    /**
+     * The number of blocking deliveries by listener.
+     */
+    private final Map<String, LongAdder> blocked;
+
+    /**
+     * Creates a new {@link HandlerWatchdog} and starts the checks.
+     *
+     * @param config    the {@link BetonBotConfig} instance
+     * @param scheduler the scheduler the checks run on
+     */
+    public HandlerWatchdog(final BetonBotConfig config, final ScheduledExecutorService scheduler) {
+        this.threshold = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.watchdogThreshold));
+        this.strict = config.watchdogStrict ? StrictCallbackContext.create() : null;
+        this.running = new ConcurrentHashMap<>();
+        this.blocked = new ConcurrentHashMap<>();
+        final long period = Math.max(1, threshold / CHECKS_PER_THRESHOLD);
+        scheduler.scheduleAtFixedRate(this, period, period, TimeUnit.NANOSECONDS);
+        if (strict != null) {
+            LOGGER.info("The watchdog rejects RestAction.complete() on event threads.");
+        }
+    }
+
+    /**
+     * Starts watching the delivery of an event to a listener on the current thread.
+     *
+     * @param listener the listener
+     * @param event    the event
+     * @return the delivery, to end it with {@link #end(Delivery)}
+     */
+    public Delivery begin(final Object listener, final GenericEvent event) {
+        final Object context = strict == null ? null : strict.enter();
+        final Delivery delivery = new Delivery(Thread.currentThread(), listener.getClass().getSimpleName(),
+                event.getClass().getSimpleName(), context);
+        running.put(delivery.thread, delivery);
+        return delivery;
+    }
+
+    /**
+     * Ends watching a delivery and records it, if it was blocking.
+     *
+     * @param delivery the delivery
+     */
+    public void end(final Delivery delivery) {
+        running.remove(delivery.thread, delivery);
+        if (strict != null && delivery.context != null) {
+            strict.exit(delivery.context);
+        }
+        final String stack = delivery.stack;
+        if (stack == null) {
+            return;
+        }
+        final long nanos = System.nanoTime() - delivery.start;
+        blocked.computeIfAbsent(delivery.listener, listener -> new LongAdder()).increment();
+        LOGGER.warn("The listener {} blocked the event thread for {} ms while handling {} at {}.",
+                delivery.listener, TimeUnit.NANOSECONDS.toMillis(nanos), delivery.event, delivery.location);
+        final BlockedHandlerEvent recorded = new BlockedHandlerEvent();
+        if (recorded.shouldCommit()) {
+            recorded.listener = delivery.listener;
+            recorded.event = delivery.event;
+            recorded.location = delivery.location;
+            recorded.stack = stack;
+            recorded.blocked = nanos;
+            recorded.commit();
+        }
+    }
+
+    /**
+     * Logs the number of blocking deliveries per listener.
+     */
+    public void logSummary() {
+        if (blocked.isEmpty()) {
+            LOGGER.info("No listener blocked an event thread longer than {} ms.",
+                    TimeUnit.NANOSECONDS.toMillis(threshold));
+            return;
+        }
+        LOGGER.warn("Listeners blocked an event thread longer than {} ms: {}", TimeUnit.NANOSECONDS.toMillis(threshold),
+                blocked.entrySet().stream()
+                        .map(entry -> entry.getKey() + " " + entry.getValue().sum() + "x")
+                        .collect(Collectors.joining(", ")));
+    }
+
+    @Override
+    public void run() {
+        final long now = System.nanoTime();
+        for (final Delivery delivery : running.values()) {
+            if (delivery.stack == null && now - delivery.start >= threshold) {
+                sample(delivery);
+                LOGGER.warn("The listener {} is blocking the event thread {} while handling {}:{}", delivery.listener,
+                        delivery.thread.getName(), delivery.event, delivery.stack);
+            }
+        }
+    }
+
+    private void sample(final Delivery delivery) {
+        final StackTraceElement[] frames = delivery.thread.getStackTrace();
+        delivery.location = Arrays.stream(frames)
+                .filter(frame -> frame.getClassName().startsWith(BOT_PACKAGE)
+                        && !frame.getClassName().equals(BotEventManager.class.getName()))
+                .findFirst()
+                .map(StackTraceElement::toString)
+                .orElse("unknown");
+        delivery.stack = Arrays.stream(frames)
+                .limit(MAX_FRAMES)
+                .map(frame -> "\n\tat " + frame)
+                .collect(Collectors.joining());
+    }
+
+    /**
+     * The delivery of an event to a listener on an event thread.
+     */
+    public static final class Delivery {
+        /**
+         * The event thread.
+         */
+        private final Thread thread;
+
+        /**
+         * The simple class name of the listener.
+         */
+        private final String listener;
+
+        /**
+         * The simple class name of the event.
+         */
+        private final String event;
+
+        /**
+         * The callback context of the strict mode, or null if not entered.
+         */
+        @Nullable
+        private final Object context;
+
+        /**
+         * The start of the delivery in nanoseconds.
+         */
+        private final long start;
+
+        /**
+         * The first bot frame of the sampled stack, or null if not sampled.
+         */
+        @Nullable
+        private volatile String location;
+
+        /**
+         * The sampled stack, or null if the delivery did not pass the threshold yet.
+         */
+        @Nullable
+        private volatile String stack;
+
+        private Delivery(final Thread thread, final String listener, final String event,
+                         @Nullable final Object context) {
+            this.thread = thread;
+            this.listener = listener;
+            this.event = event;
+            this.context = context;
+            this.start = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.betonquest.discordbot;
+
+import net.dv8tion.jda.api.JDAInfo;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Enters the callback context of JDA, in which {@code RestAction.complete()} throws an exception instead of blocking.
+ * <p>
+ * JDA has no public API for this, so the internal {@code CallbackContext} is used by reflection. It is only used
+ * with the JDA major version it was checked against, otherwise or if the internal class changed, the strict mode
+ * of the {@link HandlerWatchdog} is not available.
+ */
+/* default */ final class StrictCallbackContext {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(StrictCallbackContext.class);
+
+    /**
+     * The JDA major version the internal class was checked against.
+     */
+    private static final int SUPPORTED_MAJOR_VERSION = 6;
+
+    /**
+     * The internal class of the callback context.
+     */
+    private static final String CALLBACK_CONTEXT = "net.dv8tion.jda.internal.requests.CallbackContext";
+
+    /**
+     * The method to enter the context.
+     */
+    private final Method getInstance;
+
+    /**
+     * The method to check if the current thread is in the context.
+     */
+    private final Method isCallbackContext;
+
+    /**
+     * The method to leave the context.
+     */
+    private final Method close;
+
+    private StrictCallbackContext(final Method getInstance, final Method isCallbackContext, final Method close) {
+        this.getInstance = getInstance;
+        this.isCallbackContext = isCallbackContext;
+        this.close = close;
+    }
+
+    /**
+     * Creates the adapter for the internal callback context of the running JDA version.
+     *
+     * @return the adapter, or null if the JDA version is not supported
+     */
+    @Nullable
+    /* default */ static StrictCallbackContext create() {
+        if (JDAInfo.VERSION_MAJOR != SUPPORTED_MAJOR_VERSION) {
+            LOGGER.warn("The strict mode of the watchdog is not available for JDA {}.", JDAInfo.VERSION);
+            return null;
+        }
+        try {
+            final Class<?> type = Class.forName(CALLBACK_CONTEXT);
+            final Method getInstance = type.getMethod("getInstance");
+            final Method isCallbackContext = type.getMethod("isCallbackContext");
+            final Method close = type.getMethod("close");
+            if (getInstance.getReturnType() != type || isCallbackContext.getReturnType() != boolean.class
+                    || close.getExceptionTypes().length > 0) {
+                LOGGER.warn("The strict mode of the watchdog is not available, the callback context of JDA {} changed.",
+                        JDAInfo.VERSION);
+                return null;
+            }
+            return new StrictCallbackContext(getInstance, isCallbackContext, close);
+        } catch (final ReflectiveOperationException e) {
+            LOGGER.warn("The strict mode of the watchdog is not available for JDA {}.", JDAInfo.VERSION, e);
+            return null;
+        }
+    }
+
+    /**
+     * Enters the callback context on the current thread, if it is not in the context yet.
+     *
+     * @return the context to close after the listener, or null if the thread already was in the context
+     */
+    @Nullable
+    /* default */ Object enter() {
+        try {
+            if ((Boolean) isCallbackContext.invoke(null)) {
+                return null;
+            }
+            return getInstance.invoke(null);
+        } catch (final IllegalAccessException | InvocationTargetException e) {
+            LOGGER.warn("Could not enter the callback context of JDA.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Leaves the callback context on the current thread.
+     *
+     * @param context the context returned by {@link #enter()}
+     */
+    /* default */ void exit(final Object context) {
+        try {
+            close.invoke(context);
+        } catch (final IllegalAccessException | InvocationTargetException e) {
+            LOGGER.warn("Could not leave the callback context of JDA.", e);
+        }
+    }
+}
@@ -46,6 +46,21 @@ public class BetonBotConfig {
     @Nullable
     public final String welcomeEmoji;
 
+    /**
+     * Should the welcome module be started.
+     */
+    public final boolean welcomeEnabled;
+
+    /**
+     * Should the support module be started.
+     */
+    public final boolean supportEnabled;
+
+    /**
+     * Should the promotion module be started.
+     */
+    public final boolean promotionEnabled;
+
     /**
      * The ids of the support channels.
      */
@@ -81,6 +96,11 @@ public class BetonBotConfig {
      */
     public final List<Long> supportTagsToKeep;
 
+    /**
+     * Keywords by Tag-ID. The tag is applied to new Support Posts whose title or first message contains a keyword.
+     */
+    public final Map<Object, List<String>> supportTagsRules;
+
     /**
      * The Interval the Bot checks for Support Posts that should be Closed.
      */
@@ -91,6 +111,151 @@ public class BetonBotConfig {
      */
     public final int supportAutoCloseTimeout;
 
+    /**
+     * Should all Support Posts, including archived ones, be reconciled with the current tag configuration on startup.
+     */
+    public final boolean supportReconcileEnabled;
+
+    /**
+     * The maximum number of Support Posts that are reconciled at the same time.
+     */
+    public final int supportReconcileConcurrency;
+
+    /**
+     * The maximum number of REST requests per minute the reconciliation may use.
+     */
+    public final int supportReconcileRequestsPerMinute;
+
+    /**
+     * The number of Support Posts after which the reconciliation progress is saved.
+     */
+    public final int supportReconcileCheckpointInterval;
+
+    /**
+     * Should new Support Posts be answered with similar solved Posts.
+     */
+    public final boolean supportDuplicatesEnabled;
+
+    /**
+     * The maximum number of similar solved Posts shown for a new Support Post.
+     */
+    public final int supportDuplicatesResults;
+
+    /**
+     * The minimal similarity in percent of a solved Post to be shown for a new Support Post.
+     */
+    public final int supportDuplicatesMinSimilarity;
+
+    /**
+     * The message to show, when similar solved Posts were found for a new Support Post.
+     */
+    public final ConfigEmbedBuilder supportDuplicatesEmbed;
+
+    /**
+     * The maximum number of solved Posts shown by the `search` command.
+     */
+    public final int supportSearchResults;
+
+    /**
+     * Should archived solved Support Posts be exported as transcripts.
+     */
+    public final boolean supportTranscriptsEnabled;
+
+    /**
+     * The maximum number of transcripts that are exported at the same time.
+     */
+    public final int supportTranscriptsConcurrency;
+
+    /**
+     * The REST budget of the transcript export in requests per minute.
+     */
+    public final int supportTranscriptsRequestsPerMinute;
+
+    /**
+     * Should log files attached in Support Posts be analyzed.
+     */
+    public final boolean supportLogAnalysisEnabled;
+
+    /**
+     * The maximum size of an analyzed log file in MiB, after decompression.
+     */
+    public final int supportLogAnalysisMaxSize;
+
+    /**
+     * The time in seconds after which the analysis of a log file is aborted.
+     */
+    public final int supportLogAnalysisTimeout;
+
+    /**
+     * The number of log files that are analyzed at the same time.
+     */
+    public final int supportLogAnalysisThreads;
+
+    /**
+     * The embed with the summary of an analyzed log file.
+     */
+    public final ConfigEmbedBuilder supportLogAnalysisEmbed;
+
+    /**
+     * Should YAML code blocks in Support Posts be validated.
+     */
+    public final boolean supportYamlValidationEnabled;
+
+    /**
+     * The maximum number of characters of a validated YAML code block.
+     */
+    public final int supportYamlValidationMaxSize;
+
+    /**
+     * The maximum nesting depth of a validated YAML code block.
+     */
+    public final int supportYamlValidationMaxDepth;
+
+    /**
+     * The maximum number of aliases in a validated YAML code block.
+     */
+    public final int supportYamlValidationMaxAliases;
+
+    /**
+     * The time in seconds after which the validation of a YAML code block is aborted.
+     */
+    public final int supportYamlValidationTimeout;
+
+    /**
+     * The number of YAML code blocks that are validated at the same time.
+     */
+    public final int supportYamlValidationThreads;
+
+    /**
+     * The embed with the first error of an invalid YAML code block.
+     */
+    public final ConfigEmbedBuilder supportYamlValidationEmbed;
+
+    /**
+     * Should floods of messages in Support Posts be stopped.
+     */
+    public final boolean supportFloodEnabled;
+
+    /**
+     * The duration in seconds of the window in which messages are counted for flood detection.
+     */
+    public final int supportFloodWindow;
+
+    /**
+     * The number of messages a user may send in one Support Post within the window before being timed out.
+     */
+    public final int supportFloodUserMessages;
+
+    /**
+     * The number of messages in one Support Post within the window before the Post is locked.
+     */
+    public final int supportFloodThreadMessages;
+
+    /**
+     * The duration in minutes of the timeout for flooding users. 0 disables the timeout.
+     */
+    public final int supportFloodTimeout;
+
     /**
      * A ordered List of Roles contained in the Promotion Ladder.
      */
@@ -101,6 +266,16 @@ public class BetonBotConfig {
      */
     public final ConfigEmbedBuilder promotionEmbed;
 
+    /**
+     * The message to show when several Users were promoted at once.
+     */
+    public final ConfigEmbedBuilder promotionBatchEmbed;
+
+    /**
+     * The message to show when a User was demoted.
+     */
+    public final ConfigEmbedBuilder promotionDemotionEmbed;
+
     /**
      * A List of Roles that can bypass checks in the Promotion System.
      */
@@ -111,6 +286,91 @@ public class BetonBotConfig {
      */
     public final int promotionCooldown;
 
+    /**
+     * The size limit in bytes of a segment file of the promotion audit log.
+     */
+    public final int promotionAuditSegmentSize;
+
+    /**
+     * Should the handling of events be traced.
+     */
+    public final boolean tracingEnabled;
+
+    /**
+     * The percentage of traces that are kept at random, in addition to the slowest traces.
+     */
+    public final int tracingSamplePercent;
+
+    /**
+     * The threading mode of JDA and the bot: platform, virtual or bounded.
+     */
+    public final String threadingMode;
+
+    /**
+     * The size of the JDA event and callback pools in the bounded threading mode.
+     */
+    public final int threadingPoolSize;
+
+    /**
+     * If the gateway events should be captured for the replay runner.
+     */
+    public final boolean captureEnabled;
+
+    /**
+     * The types of the captured gateway events.
+     */
+    public final List<String> captureEvents;
+
+    /**
+     * The size of uncompressed events per capture file in bytes.
+     */
+    public final int captureFileSize;
+
+    /**
+     * If duplicate gateway events, like after a resume, should be dropped before the listeners.
+     */
+    public final boolean deduplicationEnabled;
+
+    /**
+     * The time in seconds an event is remembered for de-duplication.
+     */
+    public final int deduplicationWindow;
+
+    /**
+     * The number of events per window the de-duplication is sized for.
+     */
+    public final int deduplicationExpectedEvents;
+
+    /**
+     * If listeners that block the event thread should be detected.
+     */
+    public final boolean watchdogEnabled;
+
+    /**
+     * The time in milliseconds after which a listener is considered blocking.
+     */
+    public final int watchdogThreshold;
+
+    /**
+     * If {@code RestAction.complete()} should be rejected on event threads.
+     */
+    public final boolean watchdogStrict;
+
+    /**
+     * If the bot should be recorded continuously with the Java Flight Recorder.
+     */
+    public final boolean profilingEnabled;
+
+    /**
+     * The time in minutes the flight recording is kept for.
+     */
+    public final int profilingMaxAge;
+
+    /**
+     * The size in MiB the flight recording is limited to.
+     */
+    public final int profilingMaxSize;
+
     /**
      * Create a new Instance of the Configuration Class.
      *
@@ -125,19 +385,74 @@ public class BetonBotConfig {
         guildID = getOrCreate("GuildID", -1L, config);
         updateCommands = getOrCreate("UpdateCommands", true, config);
         welcomeEmoji = checkEmpty(String.valueOf(getOrCreate("WelcomeEmoji", "U+1F44B", config)));
+        welcomeEnabled = getOrCreate("Welcome.Enabled", true, config);
+        supportEnabled = getOrCreate("Support.Enabled", true, config);
+        promotionEnabled = getOrCreate("Promotion.Enabled", true, config);
         supportChannelIDs = getOrCreate("Support.ChannelIDs", Lists.newArrayList(-1L), config);
         supportTagsSolved = getOrCreate("Support.Tags.Solved", -1L, config);
         supportTagsDefault = getOrCreate("Support.Tags.Default", -1L, config);
         supportTagsToKeep = getOrCreate("Support.Tags.Keep", Lists.newArrayList(-1L), config);
         supportTagsOrder = getOrCreate("Support.Tags.Order", Lists.newArrayList(-1L), config);
+        supportTagsRules = getOrCreate("Support.Tags.Rules", new LinkedHashMap<>(), config);
         supportSolvedEmbed = getOrCreateEmbed("Support.SolvedMessage", config);
         supportClosedEmbed = getOrCreateEmbed("Support.ClosedMessage", config);
         supportAutoCloseCheckInterval = getOrCreate("Support.AutoCloseCheckInterval", 20, config);
         supportAutoCloseTimeout = getOrCreate("Support.AutoCloseTimeout", 15, config);
+        supportReconcileEnabled = getOrCreate("Support.Reconcile.Enabled", false, config);
+        supportReconcileConcurrency = getOrCreate("Support.Reconcile.Concurrency", 4, config);
+        supportReconcileRequestsPerMinute = getOrCreate("Support.Reconcile.RequestsPerMinute", 30, config);
+        supportReconcileCheckpointInterval = getOrCreate("Support.Reconcile.CheckpointInterval", 50, config);
+        supportDuplicatesEnabled = getOrCreate("Support.Duplicates.Enabled", true, config);
+        supportDuplicatesResults = getOrCreate("Support.Duplicates.Results", 3, config);
+        supportDuplicatesMinSimilarity = getOrCreate("Support.Duplicates.MinSimilarity", 50, config);
+        supportDuplicatesEmbed = getOrCreateEmbed("Support.Duplicates.Message", config);
+        supportSearchResults = getOrCreate("Support.Search.Results", 10, config);
+        supportTranscriptsEnabled = getOrCreate("Support.Transcripts.Enabled", true, config);
+        supportTranscriptsConcurrency = getOrCreate("Support.Transcripts.Concurrency", 2, config);
+        supportTranscriptsRequestsPerMinute = getOrCreate("Support.Transcripts.RequestsPerMinute", 30, config);
+        supportLogAnalysisEnabled = getOrCreate("Support.LogAnalysis.Enabled", true, config);
+        supportLogAnalysisMaxSize = getOrCreate("Support.LogAnalysis.MaxSize", 16, config);
+        supportLogAnalysisTimeout = getOrCreate("Support.LogAnalysis.Timeout", 10, config);
+        supportLogAnalysisThreads = getOrCreate("Support.LogAnalysis.Threads", 2, config);
+        supportLogAnalysisEmbed = getOrCreateEmbed("Support.LogAnalysis.Message", config);
+        supportYamlValidationEnabled = getOrCreate("Support.YamlValidation.Enabled", true, config);
+        supportYamlValidationMaxSize = getOrCreate("Support.YamlValidation.MaxSize", 20_000, config);
+        supportYamlValidationMaxDepth = getOrCreate("Support.YamlValidation.MaxDepth", 50, config);
+        supportYamlValidationMaxAliases = getOrCreate("Support.YamlValidation.MaxAliases", 20, config);
+        supportYamlValidationTimeout = getOrCreate("Support.YamlValidation.Timeout", 5, config);
+        supportYamlValidationThreads = getOrCreate("Support.YamlValidation.Threads", 2, config);
+        supportYamlValidationEmbed = getOrCreateEmbed("Support.YamlValidation.Message", config);
+        supportFloodEnabled = getOrCreate("Support.Flood.Enabled", false, config);
+        supportFloodWindow = getOrCreate("Support.Flood.Window", 60, config);
+        supportFloodUserMessages = getOrCreate("Support.Flood.UserMessages", 15, config);
+        supportFloodThreadMessages = getOrCreate("Support.Flood.ThreadMessages", 60, config);
+        supportFloodTimeout = getOrCreate("Support.Flood.Timeout", 10, config);
         promotionRanks = getOrCreate("Promotion.Ranks", Lists.newArrayList(-1L), config);
         promotionEmbed = getOrCreateEmbed("Promotion.PromotionMessage", config);
+        promotionBatchEmbed = getOrCreateEmbed("Promotion.BatchPromotionMessage", config);
+        promotionDemotionEmbed = getOrCreateEmbed("Promotion.DemotionMessage", config);
         promotionBypassRoles = getOrCreate("Promotion.BypassRoles", Lists.newArrayList(-1L), config);
         promotionCooldown = getOrCreate("Promotion.Cooldown", 0, config);
+        promotionAuditSegmentSize = getOrCreate("Promotion.AuditSegmentSize", 1_048_576, config);
+        tracingEnabled = getOrCreate("Tracing.Enabled", true, config);
+        tracingSamplePercent = getOrCreate("Tracing.SamplePercent", 1, config);
+        threadingMode = getOrCreate("Threading.Mode", "platform", config);
+        threadingPoolSize = getOrCreate("Threading.PoolSize", 4, config);
+        captureEnabled = getOrCreate("Capture.Enabled", false, config);
+        captureEvents = getOrCreate("Capture.Events", Lists.newArrayList("READY", "GUILD_CREATE",
+                "GUILD_MEMBERS_CHUNK", "GUILD_MEMBER_ADD", "GUILD_MEMBER_UPDATE", "GUILD_MEMBER_REMOVE",
+                "CHANNEL_UPDATE", "THREAD_CREATE", "THREAD_UPDATE", "THREAD_DELETE", "THREAD_LIST_SYNC",
+                "MESSAGE_CREATE", "INTERACTION_CREATE"), config);
+        captureFileSize = getOrCreate("Capture.FileSize", 64 * 1024 * 1024, config);
+        deduplicationEnabled = getOrCreate("Deduplication.Enabled", true, config);
+        deduplicationWindow = getOrCreate("Deduplication.Window", 120, config);
+        deduplicationExpectedEvents = getOrCreate("Deduplication.ExpectedEvents", 20_000, config);
+        watchdogEnabled = getOrCreate("Watchdog.Enabled", true, config);
+        watchdogThreshold = getOrCreate("Watchdog.Threshold", 500, config);
+        watchdogStrict = getOrCreate("Watchdog.Strict", false, config);
+        profilingEnabled = getOrCreate("Profiling.Enabled", true, config);
+        profilingMaxAge = getOrCreate("Profiling.MaxAge", 60, config);
+        profilingMaxSize = getOrCreate("Profiling.MaxSize", 100, config);
 
         if (updateCommands) {
             config.put("UpdateCommands", false);
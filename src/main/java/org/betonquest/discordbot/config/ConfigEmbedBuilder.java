@@ -1,11 +1,11 @@
 package org.betonquest.discordbot.config;
 
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Triple;
+import org.betonquest.discordbot.profiling.EmbedBuildEvent;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,7 +23,7 @@ public class ConfigEmbedBuilder {
     /**
      * Logger instance.
      */
-    private static final Logger LOGGER = LoggerFactory.getLogger(CacheBuilder.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigEmbedBuilder.class);
 
     /**
      * All variables that should be parsed.
@@ -226,6 +226,8 @@ public class ConfigEmbedBuilder {
      * @return the created {@link MessageEmbed}
      */
     public MessageEmbed getEmbed() {
+        final EmbedBuildEvent event = new EmbedBuildEvent();
+        event.begin();
         final EmbedBuilder embed = new EmbedBuilder();
         embed.setColor(Integer.parseInt(resolveVariables(color)));
         embed.setTitle(resolveVariables(title), resolveVariables(titleUrl));
@@ -242,19 +244,26 @@ public class ConfigEmbedBuilder {
             } else if (fieldName != null && fieldValueString != null) {
                 embed.addField(fieldName, fieldValueString, fieldInline);
             } else {
-                LOGGER.warn("Your embed might be misconfigured at path '" + fullPath + "'.");
+                LOGGER.warn("Your embed might be misconfigured at path '{}'.", fullPath);
             }
         }
         embed.setFooter(resolveVariables(footer), resolveVariables(footerIconUrl));
 
         if (embed.isEmpty()) {
-            LOGGER.warn("Your embed message in the config at path '" + fullPath + "' is empty!");
+            LOGGER.warn("Your embed message in the config at path '{}' is empty!", fullPath);
         }
         if (!embed.isValidLength()) {
-            LOGGER.warn("Your embed message in the config at path '" + fullPath + "' is too long!");
+            LOGGER.warn("Your embed message in the config at path '{}' is too long!", fullPath);
         }
 
-        return embed.build();
+        final MessageEmbed built = embed.build();
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = fullPath;
+            event.variables = variables.size();
+            event.commit();
+        }
+        return built;
     }
 
     /**
@@ -313,7 +322,7 @@ public class ConfigEmbedBuilder {
          * @return the replaces string
          */
         private String resolve(final String input) {
-            return input.replaceAll(VARIABLE_INDICATOR + placeholder + VARIABLE_INDICATOR, value);
+            return input.replace(VARIABLE_INDICATOR + placeholder + VARIABLE_INDICATOR, value);
         }
     }
 }
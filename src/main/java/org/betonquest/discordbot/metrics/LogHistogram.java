@@ -0,0 +1,137 @@
+package org.betonquest.discordbot.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-memory histogram with logarithmic buckets, similar to an HdrHistogram.
+ * Each power of two is split into 16 linear sub-buckets, so every value is recorded with a relative error of
+ * at most about 6%. Histograms can be merged by adding their counts.
+ * <p>
+ * This class is not thread safe.
+ */
+public class LogHistogram {
+    /**
+     * The number of bits used for sub-buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The highest bit of the largest recordable value.
+     */
+    private static final int MAX_BIT = 40;
+
+    /**
+     * The largest recordable value, larger values are recorded as this value.
+     */
+    private static final long MAX_VALUE = (1L << (MAX_BIT + 1)) - 1;
+
+    /**
+     * The counts of each bucket.
+     */
+    private final long[] counts;
+
+    /**
+     * The total count of recorded values.
+     */
+    private long totalCount;
+
+    /**
+     * Creates a new empty histogram.
+     */
+    public LogHistogram() {
+        this.counts = new long[index(MAX_VALUE) + 1];
+    }
+
+    /**
+     * Gets the bucket index of a value.
+     *
+     * @param value the value, not negative
+     * @return the bucket index
+     */
+    private static int index(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = highestBit - SUB_BUCKET_BITS;
+        return (highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Gets the highest value that falls into a bucket.
+     *
+     * @param index the bucket index
+     * @return the highest value of the bucket
+     */
+    private static long highestValue(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int highestBit = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final int shift = highestBit - SUB_BUCKET_BITS;
+        final long lowest = (1L << highestBit) | ((long) (index % SUB_BUCKETS) << shift);
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values are recorded as 0
+     */
+    public void record(final long value) {
+        counts[index(Math.min(Math.max(value, 0), MAX_VALUE))]++;
+        totalCount++;
+    }
+
+    /**
+     * Adds all counts of another histogram to this histogram.
+     *
+     * @param other the histogram to merge
+     */
+    public void merge(final LogHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+    }
+
+    /**
+     * Gets the total count of recorded values.
+     *
+     * @return the count
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the value at a percentile.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the highest value of the bucket containing the percentile, or 0 if the histogram is empty
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return highestValue(i);
+            }
+        }
+        return 0;
+    }
+}
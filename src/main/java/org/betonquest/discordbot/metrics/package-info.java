@@ -0,0 +1,4 @@
+/**
+ * Metric utilities.
+ */
+package org.betonquest.discordbot.metrics;
@@ -0,0 +1,74 @@
+package org.betonquest.discordbot.modules;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import org.betonquest.discordbot.config.BetonBotConfig;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A module of the Discord Bot, that is discovered with the {@link java.util.ServiceLoader}.
+ * <p>
+ * The bot only subscribes to the gateway intents, cache flags and members the enabled modules declare.
+ * A module is started after the guild is ready and registers its listeners itself.
+ */
+public interface BotModule {
+    /**
+     * Checks if this module is enabled in the config.
+     *
+     * @param config the {@link BetonBotConfig} instance
+     * @return true if the module should be started
+     */
+    boolean isEnabled(BetonBotConfig config);
+
+    /**
+     * Gets the gateway intents this module needs.
+     *
+     * @return the gateway intents
+     */
+    default Set<GatewayIntent> getIntents() {
+        return Set.of();
+    }
+
+    /**
+     * Gets the cache flags this module needs.
+     *
+     * @return the cache flags
+     */
+    default Set<CacheFlag> getCacheFlags() {
+        return Set.of();
+    }
+
+    /**
+     * Gets the members this module needs in the cache.
+     *
+     * @return the member cache policy
+     */
+    default MemberCachePolicy getMemberCachePolicy() {
+        return MemberCachePolicy.NONE;
+    }
+
+    /**
+     * Gets the events of listeners of this module that are traced, by listener class.
+     *
+     * @return the traced events by listener class
+     */
+    default Map<Class<?>, Set<Class<? extends GenericEvent>>> getTracedEvents() {
+        return Map.of();
+    }
+
+    /**
+     * Starts this module.
+     *
+     * @param context the {@link ModuleContext} to start the module in
+     * @return the slash commands of this module
+     * @throws IOException if the files of the module could not be read
+     */
+    List<SlashCommandData> start(ModuleContext context) throws IOException;
+}
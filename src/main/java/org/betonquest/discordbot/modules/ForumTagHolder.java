@@ -3,12 +3,15 @@ package org.betonquest.discordbot.modules;
 import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
 import net.dv8tion.jda.api.entities.channel.forums.ForumTag;
 import net.dv8tion.jda.api.entities.channel.forums.ForumTagSnowflake;
+import net.dv8tion.jda.api.managers.channel.concrete.ThreadChannelManager;
 import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.profiling.TagApplyEvent;
+import org.betonquest.discordbot.tracing.Tracer;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Helper Class for managing forum tags.
@@ -26,6 +29,11 @@ public class ForumTagHolder {
      */
     private final ThreadChannel channel;
 
+    /**
+     * The IDs of the tags currently applied to the {@link ThreadChannel}
+     */
+    private final List<Long> currentTagIds;
+
     /**
      * Tags saved as IDs
      */
@@ -37,11 +45,24 @@ public class ForumTagHolder {
      * @param channel The {@link ThreadChannel} to manage tags for
      */
     public ForumTagHolder(final ThreadChannel channel) {
-        this.channel = channel;
-        this.tagIds = channel.getAppliedTags()
+        this(channel, channel.getAppliedTags()
                 .stream()
                 .map(ForumTag::getIdLong)
-                .collect(Collectors.toList());
+                .toList());
+    }
+
+    /**
+     * Creates a new {@link ForumTagHolder} to manage the tags of a given {@link ThreadChannel},
+     * starting from the given tags instead of the cached tags of the channel.
+     * This allows to build on a change whose update event did not arrive yet.
+     *
+     * @param channel       The {@link ThreadChannel} to manage tags for
+     * @param currentTagIds The IDs of the tags currently applied to the channel
+     */
+    public ForumTagHolder(final ThreadChannel channel, final List<Long> currentTagIds) {
+        this.channel = channel;
+        this.currentTagIds = List.copyOf(currentTagIds);
+        this.tagIds = new ArrayList<>(currentTagIds);
     }
 
     /**
@@ -99,11 +120,68 @@ public class ForumTagHolder {
      * This is a terminal operation.
      *
      * @param sorting The sorting order, represented by TagIDs
+     * @return the future that completes when the tags were applied
+     */
+    public CompletableFuture<Void> apply(final List<Long> sorting) {
+        final TagApplyEvent event = new TagApplyEvent();
+        event.begin();
+        final CompletableFuture<Void> applied = Tracer.submit("setAppliedTags", prepare(sorting));
+        event.end();
+        if (event.shouldCommit()) {
+            event.threadId = channel.getIdLong();
+            event.tags = tagIds.size();
+            event.commit();
+        }
+        return applied;
+    }
+
+    /**
+     * Creates the {@link ThreadChannelManager} that applies the first five tags to the {@link ThreadChannel},
+     * without queueing it. This allows callers to combine the tag change with other changes in one request.
+     *
+     * @param sorting The sorting order, represented by TagIDs
+     * @return the prepared {@link ThreadChannelManager}
+     * @see #apply(List)
      */
-    public void apply(final List<Long> sorting) {
-        final List<Long> tagIdsToApply;
+    public ThreadChannelManager prepare(final List<Long> sorting) {
+        final ForumTagSnowflake[] tagSnowflakes = getSortedTagIds(sorting).stream()
+                .map(ForumTagSnowflake::fromId)
+                .toList()
+                .toArray(new ForumTagSnowflake[0]);
+
+        return channel.getManager().setAppliedTags(getMaxTags(tagSnowflakes));
+    }
 
-        tagIdsToApply = new ArrayList<>(tagIds.size());
+    /**
+     * Checks if the tags currently applied to the {@link ThreadChannel} already match
+     * the tags that {@link #apply(List)} would set.
+     *
+     * @param sorting The sorting order, represented by TagIDs
+     * @return true if applying would not change anything, otherwise false
+     */
+    public boolean isApplied(final List<Long> sorting) {
+        return getTagIdsToApply(sorting).equals(currentTagIds);
+    }
+
+    /**
+     * Gets the IDs of the tags that {@link #apply(List)} would set, in the order they would be set.
+     *
+     * @param sorting The sorting order, represented by TagIDs
+     * @return the first five sorted tag IDs
+     */
+    public List<Long> getTagIdsToApply(final List<Long> sorting) {
+        final List<Long> sorted = getSortedTagIds(sorting);
+        return List.copyOf(sorted.subList(0, Math.min(sorted.size(), MAX_TAGS_PER_POST)));
+    }
+
+    /**
+     * Sorts the held tags by a given order. Unspecified tags will be attached at the end of the list.
+     *
+     * @param sorting The sorting order, represented by TagIDs
+     * @return the sorted tag IDs without duplicates
+     */
+    private List<Long> getSortedTagIds(final List<Long> sorting) {
+        final List<Long> tagIdsToApply = new ArrayList<>(tagIds.size());
         for (final Long tagId : sorting) {
             if (tagIds.contains(tagId) && !tagIdsToApply.contains(tagId)) {
                 tagIdsToApply.add(tagId);
@@ -114,13 +192,7 @@ public class ForumTagHolder {
                 tagIdsToApply.add(tagId);
             }
         }
-
-        final ForumTagSnowflake[] tagSnowflakes = tagIdsToApply.stream()
-                .map(ForumTagSnowflake::fromId)
-                .toList()
-                .toArray(new ForumTagSnowflake[0]);
-
-        channel.getManager().setAppliedTags(getMaxTags(tagSnowflakes)).queue();
+        return tagIdsToApply;
     }
 
     /**
@@ -0,0 +1,20 @@
+package org.betonquest.discordbot.modules;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.threading.BotThreads;
+
+import java.time.Clock;
+
+/**
+ * The environment a {@link BotModule} is started in.
+ *
+ * @param api     the {@link JDA} instance
+ * @param config  the {@link BetonBotConfig} instance
+ * @param guild   the {@link Guild} of the bot
+ * @param clock   the clock to read the current time from
+ * @param threads the {@link BotThreads} to create executors with
+ */
+public record ModuleContext(JDA api, BetonBotConfig config, Guild guild, Clock clock, BotThreads threads) {
+}
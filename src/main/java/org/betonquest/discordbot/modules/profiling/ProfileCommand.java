@@ -0,0 +1,123 @@
+package org.betonquest.discordbot.modules.profiling;
+
+import jdk.jfr.Recording;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.session.ShutdownEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A `profile` command to dump the continuous flight recording to a local file.
+ * The recording is written on its own executor, as it can be large.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class ProfileCommand extends ListenerAdapter {
+    /**
+     * The command name.
+     */
+    public static final String COMMAND = "profile";
+
+    /**
+     * The subcommand to dump the recording.
+     */
+    public static final String DUMP_SUBCOMMAND = "dump";
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProfileCommand.class);
+
+    /**
+     * The continuous flight recording.
+     */
+    private final Recording recording;
+
+    /**
+     * The directory the dumps are written to.
+     */
+    private final Path directory;
+
+    /**
+     * The clock to read the current time from.
+     */
+    private final Clock clock;
+
+    /**
+     * The executor writing the dumps.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * Create a new `profile` command instance.
+     *
+     * @param api             The {@link JDA} instance
+     * @param recording       The continuous flight recording, that is closed on shutdown
+     * @param directory       The directory the dumps are written to
+     * @param clock           The clock to read the current time from
+     * @param executorService The executor writing the dumps
+     */
+    public ProfileCommand(final JDA api, final Recording recording, final Path directory, final Clock clock,
+                          final ExecutorService executorService) {
+        super();
+        this.recording = recording;
+        this.directory = directory;
+        this.clock = clock;
+        this.executorService = executorService;
+        api.addEventListener(this);
+    }
+
+    /**
+     * Get the slash command data for this command.
+     *
+     * @return The slash command data
+     */
+    public @NotNull SlashCommandData getSlashCommandData() {
+        return Commands.slash(COMMAND, "Profile the bot with the Java Flight Recorder.")
+                .setDefaultPermissions(DefaultMemberPermissions.enabledFor(Permission.ADMINISTRATOR))
+                .addSubcommands(new SubcommandData(DUMP_SUBCOMMAND, "Write the recording to a file on the host."));
+    }
+
+    @Override
+    public void onSlashCommandInteraction(final SlashCommandInteractionEvent event) {
+        if (!COMMAND.equals(event.getName()) || !DUMP_SUBCOMMAND.equals(event.getSubcommandName())) {
+            return;
+        }
+        Tracer.queue("deferReply", event.deferReply(true));
+        final Path file = directory.resolve("discordbot-%d.jfr".formatted(clock.millis()));
+        executorService.execute(() -> dump(event, file));
+    }
+
+    private void dump(final SlashCommandInteractionEvent event, final Path file) {
+        try {
+            Files.createDirectories(directory);
+            recording.dump(file);
+            LOGGER.info("{} dumped the flight recording to '{}'.", event.getUser().getName(), file);
+            Tracer.queue("sendMessage", event.getHook()
+                    .sendMessage("The recording was written to `" + file.toAbsolutePath() + "`."));
+        } catch (final IOException | IllegalStateException e) {
+            LOGGER.warn("Error while dumping the flight recording.", e);
+            Tracer.queue("sendMessage", event.getHook()
+                    .sendMessage("The recording could not be written: " + e.getMessage()));
+        }
+    }
+
+    @Override
+    public void onShutdown(@NotNull final ShutdownEvent event) {
+        recording.close();
+    }
+}
@@ -0,0 +1,78 @@
+package org.betonquest.discordbot.modules.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.modules.BotModule;
+import org.betonquest.discordbot.modules.ModuleContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The profiling module, that continuously records the bot with the Java Flight Recorder.
+ * The recording uses the `discordbot.jfc` profile, that enables the events of the bot and low-overhead JDK events.
+ * Only the configured time and size of the recording are kept, the `profile dump` command writes it to a file.
+ */
+public class ProfilingModule implements BotModule {
+    /**
+     * The resource of the recording profile.
+     */
+    private static final String PROFILE = "/discordbot.jfc";
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProfilingModule.class);
+
+    /**
+     * Create a new {@link ProfilingModule}.
+     */
+    public ProfilingModule() {
+        // Empty
+    }
+
+    @Override
+    public boolean isEnabled(final BetonBotConfig config) {
+        return config.profilingEnabled;
+    }
+
+    @Override
+    public List<SlashCommandData> start(final ModuleContext context) throws IOException {
+        final BetonBotConfig config = context.config();
+        final Recording recording;
+        try (InputStream input = ProfilingModule.class.getResourceAsStream(PROFILE)) {
+            if (input == null) {
+                throw new IOException("The recording profile '" + PROFILE + "' is missing!");
+            }
+            try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                recording = new Recording(Configuration.create(reader));
+            }
+        } catch (final ParseException e) {
+            throw new IOException("The recording profile '" + PROFILE + "' is invalid!", e);
+        }
+        recording.setName("BetonQuest Discord Bot");
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofMinutes(config.profilingMaxAge));
+        recording.setMaxSize(config.profilingMaxSize * 1024L * 1024L);
+        try {
+            recording.start();
+        } catch (final IllegalStateException | SecurityException e) {
+            LOGGER.warn("Could not start the flight recording.", e);
+            recording.close();
+            return List.of();
+        }
+        return List.of(new ProfileCommand(context.api(), recording, Paths.get("profiles"), context.clock(),
+                context.threads().newSingleThreadExecutor("ProfileDump")).getSlashCommandData());
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * The profiling module, that records the bot with the Java Flight Recorder.
+ */
+package org.betonquest.discordbot.modules.profiling;
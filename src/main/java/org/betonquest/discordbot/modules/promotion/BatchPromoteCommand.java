@@ -0,0 +1,306 @@
+package org.betonquest.discordbot.modules.promotion;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.exceptions.PermissionException;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.apache.commons.lang3.StringUtils;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A `promote-batch` command to promote several users up in a ranking ladder at once.
+ * Every member is promoted with a single role modification, that also removes the lower ladder roles.
+ * The cooldowns are persisted once after all role modifications completed.
+ * Members whose rank is already changed by another command are skipped.
+ */
+public class BatchPromoteCommand extends ListenerAdapter {
+    /**
+     * The command name.
+     */
+    public static final String COMMAND = "promote-batch";
+
+    /**
+     * The command option users.
+     */
+    public static final String USERS_OPTION_NAME = "users";
+
+    /**
+     * The command option role.
+     */
+    public static final String ROLE_OPTION_NAME = "role";
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchPromoteCommand.class);
+
+    /**
+     * The pattern of user IDs in the users option, also matching mentions.
+     */
+    private static final Pattern USER_ID_PATTERN = Pattern.compile("\\d{17,20}");
+
+    /**
+     * The maximum length of a list in the summary embed.
+     */
+    private static final int MAX_LIST_LENGTH = 1000;
+
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The {@link PromotionCache} instance to manage user promotions.
+     */
+    private final PromotionCache promotionCache;
+
+    /**
+     * The {@link PromotionLadder} to evaluate promotions.
+     */
+    private final PromotionLadder ladder;
+
+    /**
+     * The {@link PromotionAuditLog} to record promotions in.
+     */
+    private final PromotionAuditLog auditLog;
+
+    /**
+     * Create a new `promote-batch` command instance.
+     *
+     * @param api            The {@link JDA} instance
+     * @param config         The {@link BetonBotConfig} instance
+     * @param promotionCache The {@link PromotionCache} instance to manage user promotions
+     * @param ladder         The {@link PromotionLadder} to evaluate promotions
+     * @param auditLog       The {@link PromotionAuditLog} to record promotions in
+     */
+    public BatchPromoteCommand(final JDA api, final BetonBotConfig config, final PromotionCache promotionCache,
+                               final PromotionLadder ladder, final PromotionAuditLog auditLog) {
+        super();
+        this.config = config;
+        this.promotionCache = promotionCache;
+        this.ladder = ladder;
+        this.auditLog = auditLog;
+        if (config.promotionRanks.isEmpty()) {
+            LOGGER.warn("No promotion ranks where found or set!");
+            return;
+        }
+        api.addEventListener(this);
+    }
+
+    /**
+     * Get the slash command data for this command.
+     *
+     * @return The slash command data
+     */
+    public @NotNull SlashCommandData getSlashCommandData() {
+        return Commands.slash(COMMAND, "Promote several players up the ranking ladder.")
+                .setDefaultPermissions(DefaultMemberPermissions.enabledFor(Permission.ADMINISTRATOR))
+                .addOption(OptionType.STRING, USERS_OPTION_NAME, "Mentions or IDs of the Users to promote", false)
+                .addOption(OptionType.ROLE, ROLE_OPTION_NAME, "Promote all members of this Role", false);
+    }
+
+    @Override
+    public void onSlashCommandInteraction(final SlashCommandInteractionEvent event) {
+        if (!COMMAND.equals(event.getName())) {
+            return;
+        }
+
+        final Member cmdExecutor = event.getInteraction().getMember();
+        final Guild guild = event.getGuild();
+        if (cmdExecutor == null || guild == null) {
+            LOGGER.error("The promote-batch command was triggered without a member!");
+            return;
+        }
+
+        final String executorDenial = ladder.checkExecutor(cmdExecutor);
+        if (executorDenial != null) {
+            Tracer.queue("reply", event.reply(executorDenial).setEphemeral(true));
+            return;
+        }
+
+        final List<String> skipped = Collections.synchronizedList(new ArrayList<>());
+        final Map<Long, Member> targets = getTargets(event, guild, skipped);
+        if (targets.isEmpty()) {
+            Tracer.queue("reply", event.reply("You need to specify users or a role to promote.").setEphemeral(true));
+            return;
+        }
+
+        Tracer.queue("deferReply", event.deferReply());
+        LOGGER.atInfo().addKeyValue("event", COMMAND).addKeyValue("guild", guild.getIdLong())
+                .addKeyValue("user", cmdExecutor.getIdLong())
+                .log("Batch promoting {} Members ...", targets.size());
+        final List<String> promoted = Collections.synchronizedList(new ArrayList<>());
+        final List<CompletableFuture<?>> changes = new ArrayList<>();
+        for (final Member target : targets.values()) {
+            if (!ladder.beginRankChange(target)) {
+                skipped.add(target.getAsMention() + ": another rank change is still running");
+                continue;
+            }
+            changes.add(promote(guild, cmdExecutor, target, promoted, skipped)
+                    .whenComplete((nothing, failure) -> ladder.endRankChange(target)));
+        }
+
+        CompletableFuture.allOf(changes.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            LOGGER.atInfo().addKeyValue("event", COMMAND).addKeyValue("guild", guild.getIdLong())
+                    .addKeyValue("user", cmdExecutor.getIdLong())
+                    .log("Batch promoted {} Members, skipped {}.", promoted.size(), skipped.size());
+            if (!promoted.isEmpty()) {
+                persist(guild, cmdExecutor);
+            }
+            final MessageEmbed embed = config.promotionBatchEmbed
+                    .variable("promoted", formatList(promoted))
+                    .variable("skipped", formatList(skipped))
+                    .variable("promoter", cmdExecutor.getEffectiveName())
+                    .getEmbed();
+            Tracer.queue("editOriginalEmbeds", event.getHook().editOriginalEmbeds(embed));
+        }).exceptionally(failure -> {
+            LOGGER.atError().addKeyValue("event", COMMAND).addKeyValue("guild", guild.getIdLong())
+                    .addKeyValue("user", cmdExecutor.getIdLong()).setCause(failure)
+                    .log("Could not finish the batch promotion!");
+            Tracer.queue("editOriginal", event.getHook().editOriginal("The batch promotion finished with "
+                    + promoted.size() + " promoted and " + skipped.size() + " skipped Members, "
+                    + "but the result could not be shown."));
+            return null;
+        });
+    }
+
+    /**
+     * Persists the cooldowns of all promoted Members at once. A failure is only logged,
+     * as the roles were already changed and the cooldowns are kept in memory.
+     *
+     * @param guild       the guild of the promotion
+     * @param cmdExecutor the promoting member
+     */
+    private void persist(final Guild guild, final Member cmdExecutor) {
+        promotionCache.persist(cmdExecutor.getIdLong()).whenComplete((nothing, failure) -> {
+            if (failure != null) {
+                LOGGER.atError().addKeyValue("event", COMMAND).addKeyValue("guild", guild.getIdLong())
+                        .addKeyValue("user", cmdExecutor.getIdLong()).setCause(failure)
+                        .log("Could not persist the promotion cache after the batch promotion!");
+            }
+        });
+    }
+
+    /**
+     * Evaluates and starts the promotion of one member of the batch, while no other rank change of the member runs.
+     * Denied and failed promotions are added to the skipped members with the reason.
+     *
+     * @param guild       the guild
+     * @param cmdExecutor the promoting member
+     * @param target      the member to promote
+     * @param promoted    the promoted members
+     * @param skipped     the skipped members
+     * @return the future that completes when the promotion completed, failed or was denied
+     */
+    private CompletableFuture<?> promote(final Guild guild, final Member cmdExecutor, final Member target,
+                                         final List<String> promoted, final List<String> skipped) {
+        final PromotionLadder.Evaluation evaluation = ladder.evaluate(cmdExecutor, target);
+        if (!evaluation.isAllowed()) {
+            skipped.add(target.getAsMention() + ": " + evaluation.denial().lines().findFirst().orElse(""));
+            return CompletableFuture.completedFuture(null);
+        }
+        final Role newRole = guild.getRoleById(ladder.getRankRoleId(evaluation.newRankIndex()));
+        if (newRole == null) {
+            skipped.add(target.getAsMention() + ": the new role does not exist in the Guild");
+            return CompletableFuture.completedFuture(null);
+        }
+        final PromotionCache.Reservation reservation = promotionCache.reserve(target);
+        if (reservation == null) {
+            skipped.add(target.getAsMention() + ": still on cooldown");
+            return CompletableFuture.completedFuture(null);
+        }
+        final long oldRoleId = ladder.getCurrentRankRoleId(target);
+        return setRank(guild, target, newRole)
+                .handle((nothing, failure) -> {
+                    if (failure == null) {
+                        ladder.setRank(target, newRole);
+                        auditLog.record(target.getIdLong(), cmdExecutor.getIdLong(), oldRoleId,
+                                newRole.getIdLong());
+                        promoted.add(target.getAsMention() + " -> " + newRole.getName());
+                    } else {
+                        promotionCache.rollback(reservation);
+                        LOGGER.atWarn().addKeyValue("event", COMMAND).addKeyValue("guild", guild.getIdLong())
+                                .addKeyValue("user", target.getIdLong()).setCause(failure)
+                                .log("Could not promote Member {} to Role {}!", target.getIdLong(),
+                                        newRole.getIdLong());
+                        skipped.add(target.getAsMention() + ": " + failure.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Sets the complete roles of a member with a new rank in one request.
+     * JDA checks the permissions and the role hierarchy before the request is created,
+     * a failed check is returned as failed future, so only this member is skipped.
+     *
+     * @param guild   the guild of the promotion
+     * @param member  the member
+     * @param newRole the new rank role
+     * @return the future that completes when the roles were changed
+     */
+    private CompletableFuture<Void> setRank(final Guild guild, final Member member, final Role newRole) {
+        try {
+            return Tracer.submit("modifyMemberRoles",
+                    guild.modifyMemberRoles(member, ladder.getRolesWithRank(member, newRole)));
+        } catch (final PermissionException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Map<Long, Member> getTargets(final SlashCommandInteractionEvent event, final Guild guild,
+                                         final List<String> skipped) {
+        final Map<Long, Member> targets = new LinkedHashMap<>();
+        final OptionMapping users = event.getOption(USERS_OPTION_NAME);
+        if (users != null) {
+            final Matcher matcher = USER_ID_PATTERN.matcher(users.getAsString());
+            while (matcher.find()) {
+                final Member member = guild.getMemberById(matcher.group());
+                if (member == null) {
+                    skipped.add(matcher.group() + ": not a member of this server");
+                } else {
+                    targets.put(member.getIdLong(), member);
+                }
+            }
+        }
+        final OptionMapping role = event.getOption(ROLE_OPTION_NAME);
+        if (role != null) {
+            for (final Member member : guild.getMembersWithRoles(role.getAsRole())) {
+                targets.put(member.getIdLong(), member);
+            }
+        }
+        return targets;
+    }
+
+    private String formatList(final List<String> entries) {
+        if (entries.isEmpty()) {
+            return "-";
+        }
+        synchronized (entries) {
+            return StringUtils.abbreviate(String.join("\n", entries), MAX_LIST_LENGTH);
+        }
+    }
+}
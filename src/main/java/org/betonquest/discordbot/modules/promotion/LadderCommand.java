@@ -0,0 +1,124 @@
+package org.betonquest.discordbot.modules.promotion;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A `ladder` command to show the members of each rank of the promotion ladder from the {@link RankIndex}.
+ */
+public class LadderCommand extends ListenerAdapter {
+    /**
+     * The command name.
+     */
+    public static final String COMMAND = "ladder";
+
+    /**
+     * The command option rank.
+     */
+    public static final String RANK_OPTION_NAME = "rank";
+
+    /**
+     * The command option page.
+     */
+    public static final String PAGE_OPTION_NAME = "page";
+
+    /**
+     * The number of members on a page.
+     */
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * The {@link PromotionLadder} to resolve the ranks.
+     */
+    private final PromotionLadder ladder;
+
+    /**
+     * The {@link RankIndex} of the members of each rank.
+     */
+    private final RankIndex rankIndex;
+
+    /**
+     * Create a new `ladder` command instance.
+     *
+     * @param api       The {@link JDA} instance
+     * @param ladder    The {@link PromotionLadder} to resolve the ranks
+     * @param rankIndex The {@link RankIndex} of the members of each rank
+     */
+    public LadderCommand(final JDA api, final PromotionLadder ladder, final RankIndex rankIndex) {
+        super();
+        this.ladder = ladder;
+        this.rankIndex = rankIndex;
+        api.addEventListener(this);
+    }
+
+    /**
+     * Get the slash command data for this command.
+     *
+     * @return The slash command data
+     */
+    public @NotNull SlashCommandData getSlashCommandData() {
+        return Commands.slash(COMMAND, "Show the members of each rank of the promotion ladder.")
+                .setDefaultPermissions(DefaultMemberPermissions.enabledFor(Permission.ADMINISTRATOR))
+                .addOption(OptionType.ROLE, RANK_OPTION_NAME, "The rank to list the members of", false)
+                .addOptions(new OptionData(OptionType.INTEGER, PAGE_OPTION_NAME, "The page of members to show", false)
+                        .setMinValue(1));
+    }
+
+    @Override
+    public void onSlashCommandInteraction(@NotNull final SlashCommandInteractionEvent event) {
+        if (!COMMAND.equals(event.getName())) {
+            return;
+        }
+        final OptionMapping rankOption = event.getOption(RANK_OPTION_NAME);
+        if (rankOption == null) {
+            Tracer.queue("reply", event.reply(getOverview()).setEphemeral(true));
+            return;
+        }
+        final Role role = rankOption.getAsRole();
+        final int rank = getRank(role.getIdLong());
+        if (rank == -1) {
+            Tracer.queue("reply", event.reply(role.getAsMention() + " is not a rank of the promotion ladder.")
+                    .setEphemeral(true));
+            return;
+        }
+        final OptionMapping pageOption = event.getOption(PAGE_OPTION_NAME);
+        final int pages = Math.max(1, (rankIndex.count(rank) + PAGE_SIZE - 1) / PAGE_SIZE);
+        final int page = Math.min(pages, pageOption == null ? 1 : pageOption.getAsInt());
+        final StringBuilder message = new StringBuilder(32 * PAGE_SIZE)
+                .append(role.getAsMention()).append(" has ").append(rankIndex.count(rank))
+                .append(" members (page ").append(page).append('/').append(pages).append("):\n");
+        for (final long member : rankIndex.getMembers(rank, (page - 1) * PAGE_SIZE, PAGE_SIZE)) {
+            message.append("<@").append(member).append("> ");
+        }
+        Tracer.queue("reply", event.reply(message.toString().strip()).setEphemeral(true));
+    }
+
+    private String getOverview() {
+        final StringBuilder message = new StringBuilder(32 * ladder.size()).append("Promotion ladder:");
+        for (int rank = ladder.size() - 1; rank >= 0; rank--) {
+            message.append("\n<@&").append(ladder.getRankRoleId(rank)).append(">: ")
+                    .append(rankIndex.count(rank)).append(" members");
+        }
+        return message.toString();
+    }
+
+    private int getRank(final long roleId) {
+        for (int rank = 0; rank < ladder.size(); rank++) {
+            if (ladder.getRankRoleId(rank) == roleId) {
+                return rank;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,5 +1,6 @@
 package org.betonquest.discordbot.modules.promotion;
 
+import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Guild;
@@ -7,6 +8,7 @@ import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.exceptions.PermissionException;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;
 import net.dv8tion.jda.api.interactions.commands.OptionMapping;
@@ -15,15 +17,24 @@ import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
 import net.dv8tion.jda.api.utils.TimeFormat;
 import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.tracing.Tracer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
-import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
- * A `promote` command to promote users up in a ranking ladder
+ * A `promote` command to promote users up in a ranking ladder, and a `demote` command to demote them.
+ * <p>
+ * All checks run in memory, so invalid changes are answered at once. A valid change defers the reply,
+ * because the role change and the cooldown persistence may take longer than the interaction deadline.
+ * The complete roles of the member are set in one request, that replaces all ladder roles with the new rank role.
+ * So every rank change costs one REST call and members only hold the role of their current rank.
+ * Only one rank change per member runs at a time, further commands for the member are denied until it completed.
  */
 public class PromoteCommand extends ListenerAdapter {
     /**
@@ -31,6 +42,11 @@ public class PromoteCommand extends ListenerAdapter {
      */
     public static final String COMMAND = "promote";
 
+    /**
+     * The demotion command name.
+     */
+    public static final String DEMOTE_COMMAND = "demote";
+
     /**
      * The command option user.
      */
@@ -51,17 +67,32 @@ public class PromoteCommand extends ListenerAdapter {
      */
     private final PromotionCache promotionCache;
 
+    /**
+     * The {@link PromotionLadder} to evaluate promotions.
+     */
+    private final PromotionLadder ladder;
+
+    /**
+     * The {@link PromotionAuditLog} to record promotions in.
+     */
+    private final PromotionAuditLog auditLog;
+
     /**
      * Create a new `promote` command instance.
      *
      * @param api            The {@link JDA} instance
      * @param config         The {@link BetonBotConfig} instance
      * @param promotionCache The {@link PromotionCache} instance to manage user promotions
+     * @param ladder         The {@link PromotionLadder} to evaluate promotions
+     * @param auditLog       The {@link PromotionAuditLog} to record promotions in
      */
-    public PromoteCommand(final JDA api, final BetonBotConfig config, final PromotionCache promotionCache) {
+    public PromoteCommand(final JDA api, final BetonBotConfig config, final PromotionCache promotionCache,
+                          final PromotionLadder ladder, final PromotionAuditLog auditLog) {
         super();
         this.config = config;
         this.promotionCache = promotionCache;
+        this.ladder = ladder;
+        this.auditLog = auditLog;
         if (config.promotionRanks.isEmpty()) {
             LOGGER.warn("No support channels where found or set!");
             return;
@@ -83,122 +114,278 @@ public class PromoteCommand extends ListenerAdapter {
                 .addOption(OptionType.USER, USER_OPTION_NAME, "The User to promote", true);
     }
 
-    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.CognitiveComplexity"})
+    /**
+     * Get the slash command data for the demotion command.
+     *
+     * @return The slash command data
+     */
+    public @NotNull SlashCommandData getDemoteSlashCommandData() {
+        return Commands.slash(DEMOTE_COMMAND, "Demote a player down the ranking ladder.")
+                .setDefaultPermissions(DefaultMemberPermissions.enabledFor(Permission.ADMINISTRATOR))
+                .addOption(OptionType.USER, USER_OPTION_NAME, "The User to demote", true);
+    }
+
     @Override
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
     public void onSlashCommandInteraction(final SlashCommandInteractionEvent event) {
-        if (!COMMAND.equals(event.getName())) {
+        if (!COMMAND.equals(event.getName()) && !DEMOTE_COMMAND.equals(event.getName())) {
             return;
         }
+        final boolean demotion = DEMOTE_COMMAND.equals(event.getName());
 
         final OptionMapping option = event.getOption(USER_OPTION_NAME);
-        if (option == null) {
-            event.reply("You need to specify a user to promote.").setEphemeral(true).queue();
-            return;
-        }
-
-        final Member promotionTarget = option.getAsMember();
-        if (promotionTarget == null) {
-            event.reply("You need to specify a user to promote.").setEphemeral(true).queue();
+        final Member target = option == null ? null : option.getAsMember();
+        if (target == null) {
+            Tracer.queue("reply", event.reply("You need to specify a user to " + event.getName() + ".")
+                    .setEphemeral(true));
             return;
         }
 
         final Member cmdExecutor = event.getInteraction().getMember();
         if (cmdExecutor == null) {
-            LOGGER.error("The promote command was triggered without a member!");
+            LOGGER.error("The {} command was triggered without a member!", event.getName());
             return;
         }
 
-        final List<Role> executorRoles = cmdExecutor.getRoles();
-        final boolean noBypassRole = executorRoles.stream().noneMatch(r ->
-                config.promotionBypassRoles.contains(r.getIdLong()));
-
-        final List<Role> promotionRolesOfExecutor = filterAndSortByPromotionLadder(executorRoles);
-        if (noBypassRole && promotionRolesOfExecutor.isEmpty()) {
-            event.reply("You need to have a promotable Rank yourself to use this command!")
-                    .setEphemeral(true).queue();
+        final String executorDenial = ladder.checkExecutor(cmdExecutor);
+        if (executorDenial != null) {
+            Tracer.queue("reply", event.reply(executorDenial).setEphemeral(true));
             return;
         }
 
-        final Long highestRoleOfExecutor = getLast(promotionRolesOfExecutor).getIdLong();
-        if (noBypassRole && getFirst(config.promotionRanks).equals(highestRoleOfExecutor)) {
-            event.reply("There are no roles below you in the Promotion Ladder. You cannot use this command.")
-                    .setEphemeral(true).queue();
+        if (!ladder.beginRankChange(target)) {
+            Tracer.queue("reply", event.reply("Another rank change of the user is still running. Try again shortly.")
+                    .setEphemeral(true));
             return;
         }
+        try {
+            changeRank(event, demotion, target, cmdExecutor)
+                    .whenComplete((nothing, failure) -> ladder.endRankChange(target));
+        } catch (final RuntimeException e) {
+            ladder.endRankChange(target);
+            throw e;
+        }
+    }
 
-        final List<Role> promotionRolesOfTarget = filterAndSortByPromotionLadder(promotionTarget.getRoles());
-
-        final Long highestRoleIdOfTarget = promotionRolesOfTarget.isEmpty()
-                ? -1L
-                : getLast(promotionRolesOfTarget).getIdLong();
-
-        final int indexOfHighestExecutorRole = config.promotionRanks.indexOf(highestRoleOfExecutor);
-        final int indexOfHighestTargetRole = config.promotionRanks.indexOf(highestRoleIdOfTarget);
-        if (noBypassRole && indexOfHighestTargetRole >= indexOfHighestExecutorRole) {
-            event.reply("The target user is already ranked higher or equally high ranked as you.\n"
-                            + "You can only rank up to one role lower than yourself.")
-                    .setEphemeral(true).queue();
-            return;
+    /**
+     * Evaluates and runs a rank change, while no other rank change of the target runs.
+     *
+     * @param event       the command interaction
+     * @param demotion    true for a demotion, false for a promotion
+     * @param target      the member to change
+     * @param cmdExecutor the member changing the rank
+     * @return the future that completes when the rank change completed or was denied
+     */
+    private CompletableFuture<?> changeRank(final SlashCommandInteractionEvent event, final boolean demotion,
+                                            final Member target, final Member cmdExecutor) {
+        final PromotionLadder.Evaluation evaluation = demotion ? ladder.evaluateDemotion(cmdExecutor, target)
+                : ladder.evaluate(cmdExecutor, target);
+        if (!evaluation.isAllowed()) {
+            Tracer.queue("reply", event.reply(evaluation.denial()).setEphemeral(true));
+            return CompletableFuture.completedFuture(null);
         }
 
-        final int indexOfNewRoleOfTarget = indexOfHighestTargetRole + 1;
-        if (noBypassRole && indexOfNewRoleOfTarget >= indexOfHighestExecutorRole) {
-            event.reply("You cannot promote other users up to your own rank.")
-                    .setEphemeral(true).queue();
-            return;
+        final Guild guild = target.getGuild();
+        final Role newRole;
+        if (evaluation.newRankIndex() == -1) {
+            newRole = null;
+        } else {
+            final Long newRoleIdOfTarget = ladder.getRankRoleId(evaluation.newRankIndex());
+            newRole = guild.getRoleById(newRoleIdOfTarget);
+            if (newRole == null) {
+                LOGGER.atError().addKeyValue("event", event.getName()).addKeyValue("guild", guild.getIdLong())
+                        .log("The role id {} does not exist in the Guild!", newRoleIdOfTarget);
+                Tracer.queue("reply", event.reply("The role id " + newRoleIdOfTarget
+                        + " does not exist in the Guild!").setEphemeral(true));
+                return CompletableFuture.completedFuture(null);
+            }
         }
 
-        if (!noBypassRole && indexOfNewRoleOfTarget == config.promotionRanks.size()) {
-            event.reply("The target user is already on the highest rank")
-                    .setEphemeral(true).queue();
-            return;
+        if (demotion) {
+            return demote(event, newRole, target, cmdExecutor);
         }
 
-        if (!promotionCache.isPromotable(promotionTarget)) {
-            final String time = TimeFormat.RELATIVE.format(promotionCache.getTimeOfNextPromotion(promotionTarget) * 1000);
-            event.reply("The user was previously promoted and is still on cooldown.\n"
+        final PromotionCache.Reservation reservation = promotionCache.reserve(target);
+        if (reservation == null) {
+            final String time = TimeFormat.RELATIVE.format(promotionCache.getTimeOfNextPromotion(target) * 1000);
+            Tracer.queue("reply", event.reply("The user was previously promoted and is still on cooldown.\n"
                             + "The next promotion is possible " + time + ".")
-                    .setEphemeral(true).queue();
-            return;
+                    .setEphemeral(true));
+            return CompletableFuture.completedFuture(null);
         }
 
-        final Long newRoleIdOfTarget = config.promotionRanks.get(indexOfNewRoleOfTarget);
-        addRoleToUser(event, newRoleIdOfTarget, promotionTarget, cmdExecutor);
+        return promote(event, Objects.requireNonNull(newRole), target, cmdExecutor, reservation);
     }
 
-    private void addRoleToUser(final SlashCommandInteractionEvent event, final Long roleId,
-                               final Member member, final Member cmdExecutor) {
+    /**
+     * Runs the slow steps of a promotion, after all in-memory checks passed and the cooldown was reserved.
+     * The reply is deferred at once, then the roles are changed and the cooldown persisted.
+     * The deferred reply is edited with the result. If the role change fails, the cooldown is rolled back.
+     * Once the roles are changed, the promotion is recorded and reported as successful, even if persisting fails.
+     *
+     * @param event       the command interaction
+     * @param newRole     the new rank role
+     * @param member      the promoted member
+     * @param cmdExecutor the promoting member
+     * @param reservation the reserved cooldown of the promoted member
+     * @return the future that completes with the embed of the promotion
+     */
+    private CompletableFuture<MessageEmbed> promote(final SlashCommandInteractionEvent event, final Role newRole,
+                                                    final Member member, final Member cmdExecutor,
+                                                    final PromotionCache.Reservation reservation) {
         final Guild guild = member.getGuild();
-        final Role newRole = guild.getRoleById(roleId);
-        if (newRole == null) {
-            LOGGER.error("The role id " + roleId + " does not exist in the Guild!");
-            event.reply("The role id " + roleId + " does not exist in the Guild!").setEphemeral(true).queue();
-            return;
-        }
-        LOGGER.info("Promoting Member %d to Role %d...".formatted(member.getIdLong(), roleId));
-        guild.addRoleToMember(member, newRole).queue((nothing) -> {
-            LOGGER.info("Successfully promoted Member %d to Role %d!".formatted(member.getIdLong(), roleId));
-            final MessageEmbed embed = config.promotionEmbed
-                    .variable("user", member.getAsMention())
-                    .variable("newRole", newRole.getName())
-                    .variable("promoter", cmdExecutor.getEffectiveName())
-                    .getEmbed();
-            event.replyEmbeds(embed).setEphemeral(false).queue();
+        final long oldRoleId = ladder.getCurrentRankRoleId(member);
+        final CompletableFuture<?> deferred = Tracer.submit("deferReply", event.deferReply());
+        LOGGER.atInfo().addKeyValue("event", COMMAND).addKeyValue("guild", guild.getIdLong())
+                .addKeyValue("user", member.getIdLong())
+                .log("Promoting Member {} to Role {}...", member.getIdLong(), newRole.getIdLong());
+        final CompletableFuture<MessageEmbed> promotion = setRank(member, newRole)
+                .whenComplete((nothing, failure) -> {
+                    if (failure != null) {
+                        promotionCache.rollback(reservation);
+                    }
+                })
+                .thenApply(nothing -> {
+                    LOGGER.atInfo().addKeyValue("event", COMMAND).addKeyValue("guild", guild.getIdLong())
+                            .addKeyValue("user", member.getIdLong())
+                            .log("Successfully promoted Member {} to Role {}!", member.getIdLong(),
+                                    newRole.getIdLong());
+                    ladder.setRank(member, newRole);
+                    auditLog.record(member.getIdLong(), cmdExecutor.getIdLong(), oldRoleId, newRole.getIdLong());
+                    persist(COMMAND, member);
+                    return getEmbed(COMMAND, member, () -> config.promotionEmbed
+                            .variable("user", member.getAsMention())
+                            .variable("newRole", newRole.getName())
+                            .variable("promoter", cmdExecutor.getEffectiveName())
+                            .getEmbed());
+                });
+        editReply(event, deferred, promotion, member, newRole.getIdLong());
+        return promotion;
+    }
+
+    /**
+     * Runs the slow steps of a demotion, after all in-memory checks passed.
+     * The reply is deferred at once, then the roles are changed and the cooldown is released,
+     * so the member can be promoted again at once. The deferred reply is edited with the result.
+     *
+     * @param event       the command interaction
+     * @param newRole     the new rank role, or null if the member has no rank after the demotion
+     * @param member      the demoted member
+     * @param cmdExecutor the demoting member
+     * @return the future that completes with the embed of the demotion
+     */
+    private CompletableFuture<MessageEmbed> demote(final SlashCommandInteractionEvent event,
+                                                   @Nullable final Role newRole, final Member member,
+                                                   final Member cmdExecutor) {
+        final Guild guild = member.getGuild();
+        final long oldRoleId = ladder.getCurrentRankRoleId(member);
+        final long newRoleId = newRole == null ? -1L : newRole.getIdLong();
+        final CompletableFuture<?> deferred = Tracer.submit("deferReply", event.deferReply());
+        LOGGER.atInfo().addKeyValue("event", DEMOTE_COMMAND).addKeyValue("guild", guild.getIdLong())
+                .addKeyValue("user", member.getIdLong())
+                .log("Demoting Member {} to Role {}...", member.getIdLong(), newRoleId);
+        final CompletableFuture<MessageEmbed> demotion = setRank(member, newRole)
+                .thenApply(nothing -> {
+                    LOGGER.atInfo().addKeyValue("event", DEMOTE_COMMAND).addKeyValue("guild", guild.getIdLong())
+                            .addKeyValue("user", member.getIdLong())
+                            .log("Successfully demoted Member {} to Role {}!", member.getIdLong(), newRoleId);
+                    ladder.setRank(member, newRole);
+                    auditLog.record(member.getIdLong(), cmdExecutor.getIdLong(), oldRoleId, newRoleId);
+                    promotionCache.release(member.getIdLong());
+                    persist(DEMOTE_COMMAND, member);
+                    return getEmbed(DEMOTE_COMMAND, member, () -> config.promotionDemotionEmbed
+                            .variable("user", member.getAsMention())
+                            .variable("newRole", newRole == null ? "none" : newRole.getName())
+                            .variable("demoter", cmdExecutor.getEffectiveName())
+                            .getEmbed());
+                });
+        editReply(event, deferred, demotion, member, newRoleId);
+        return demotion;
+    }
+
+    /**
+     * Persists the cooldown of a member after a rank change.
+     * A failure is only logged, as the roles were already changed and the cooldown is kept in memory.
+     *
+     * @param command the name of the command
+     * @param member  the changed member
+     */
+    private void persist(final String command, final Member member) {
+        promotionCache.persist(member.getIdLong()).whenComplete((nothing, failure) -> {
+            if (failure != null) {
+                LOGGER.atError().addKeyValue("event", command).addKeyValue("guild", member.getGuild().getIdLong())
+                        .addKeyValue("user", member.getIdLong()).setCause(failure)
+                        .log("Could not persist the promotion cache after the {} of Member {}!", command,
+                                member.getIdLong());
+            }
         });
     }
 
-    private List<Role> filterAndSortByPromotionLadder(final List<Role> roles) {
-        return roles.stream()
-                .filter(role -> config.promotionRanks.contains(role.getIdLong()))
-                .sorted(Comparator.comparingInt(role -> config.promotionRanks.indexOf(role.getIdLong())))
-                .toList();
+    /**
+     * Gets the embed of a successful rank change.
+     * If the configured embed cannot be created, a plain embed is returned, as the roles were already changed.
+     *
+     * @param command the name of the command
+     * @param member  the changed member
+     * @param embed   the creation of the configured embed
+     * @return the embed
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private MessageEmbed getEmbed(final String command, final Member member, final Supplier<MessageEmbed> embed) {
+        try {
+            return embed.get();
+        } catch (final RuntimeException e) {
+            LOGGER.atError().addKeyValue("event", command).addKeyValue("guild", member.getGuild().getIdLong())
+                    .addKeyValue("user", member.getIdLong()).setCause(e)
+                    .log("Could not create the embed of the {} of Member {}!", command, member.getIdLong());
+            return new EmbedBuilder().setDescription("The " + command + " of " + member.getAsMention()
+                    + " succeeded.").build();
+        }
     }
 
-    private <T> T getFirst(final List<T> list) {
-        return list.get(0);
+    /**
+     * Sets the complete roles of a member with a new rank in one request.
+     * JDA checks the permissions and the role hierarchy before the request is created,
+     * a failed check is returned as failed future like a failed request.
+     *
+     * @param member  the member
+     * @param newRole the new rank role, or null to remove all ladder roles
+     * @return the future that completes when the roles were changed
+     */
+    private CompletableFuture<Void> setRank(final Member member, @Nullable final Role newRole) {
+        try {
+            return Tracer.submit("modifyMemberRoles",
+                    member.getGuild().modifyMemberRoles(member, ladder.getRolesWithRank(member, newRole)));
+        } catch (final PermissionException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
-    private <T> T getLast(final List<T> list) {
-        return list.get(list.size() - 1);
+    /**
+     * Edits the deferred reply with the result of a rank change, or replaces it with the failure.
+     *
+     * @param event     the command interaction
+     * @param deferred  the deferred reply
+     * @param change    the embed of the completed rank change
+     * @param member    the changed member
+     * @param newRoleId the ID of the new rank role, or -1 if none
+     */
+    private void editReply(final SlashCommandInteractionEvent event, final CompletableFuture<?> deferred,
+                           final CompletableFuture<MessageEmbed> change, final Member member, final long newRoleId) {
+        deferred.thenCombine(change, (hook, embed) -> embed).whenComplete((embed, failure) -> {
+            if (failure == null) {
+                Tracer.queue("editOriginalEmbeds", event.getHook().editOriginalEmbeds(embed));
+                return;
+            }
+            LOGGER.atWarn().addKeyValue("event", event.getName()).addKeyValue("guild", member.getGuild().getIdLong())
+                    .addKeyValue("user", member.getIdLong()).setCause(failure)
+                    .log("Could not {} Member {} to Role {}!", event.getName(), member.getIdLong(), newRoleId);
+            if (deferred.isCompletedExceptionally()) {
+                return;
+            }
+            Tracer.queue("deleteOriginal", event.getHook().deleteOriginal());
+            Tracer.queue("sendMessage", event.getHook().sendMessage("The " + event.getName() + " failed: "
+                    + (failure.getCause() == null ? failure : failure.getCause()).getMessage()).setEphemeral(true));
+        });
     }
 }
@@ -0,0 +1,303 @@
+package org.betonquest.discordbot.modules.promotion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * An append-only log of all promotions and demotions.
+ * <p>
+ * Promotions and demotions are stored as fixed size records in memory-mapped segment files,
+ * that roll over at a size limit.
+ * A per-user index points to the records of each user, so the history of a user is read without scanning.
+ * The index is persisted next to the segments and rebuilt from the segments if it is lost or does not match.
+ * Records are written on a writer executor, so the callbacks of JDA do not wait for the disk.
+ */
+public class PromotionAuditLog implements Closeable {
+    /**
+     * The size of one record in bytes: timestamp, target, promoter, old rank and new rank.
+     */
+    public static final int RECORD_SIZE = 5 * Long.BYTES;
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PromotionAuditLog.class);
+
+    /**
+     * The size of one index entry in bytes: user and record pointer.
+     */
+    private static final int INDEX_ENTRY_SIZE = 2 * Long.BYTES;
+
+    /**
+     * The name of the index file.
+     */
+    private static final String INDEX_FILE = "index.dat";
+
+    /**
+     * The pattern of segment file names.
+     */
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("segment-(\\d+)\\.log");
+
+    /**
+     * The directory containing the segments and the index.
+     */
+    private final Path directory;
+
+    /**
+     * The number of records in a new segment.
+     */
+    private final int recordsPerSegment;
+
+    /**
+     * The mapped segments, ordered from oldest to newest.
+     */
+    private final List<MappedByteBuffer> segments;
+
+    /**
+     * The record pointers of each user.
+     */
+    private final Map<Long, List<Long>> index;
+
+    /**
+     * The channel to append to the persisted index.
+     */
+    private final FileChannel indexChannel;
+
+    /**
+     * The clock to read the current time from.
+     */
+    private final Clock clock;
+
+    /**
+     * The executor the records are written on.
+     */
+    private final Executor writer;
+
+    /**
+     * The next free record slot in the newest segment.
+     */
+    private int writeSlot;
+
+    /**
+     * Opens the audit log in the given directory.
+     *
+     * @param directory   the directory containing the segments and the index
+     * @param segmentSize the size limit of a segment in bytes
+     * @param clock       the clock to read the current time from
+     * @param writer      the executor the records are written on, it should run one task at a time
+     * @throws IOException if an I/O error occurs while opening the segments or the index
+     */
+    public PromotionAuditLog(final Path directory, final int segmentSize, final Clock clock,
+                             final Executor writer) throws IOException {
+        this.directory = directory;
+        this.clock = clock;
+        this.writer = writer;
+        this.recordsPerSegment = Math.max(1, segmentSize / RECORD_SIZE);
+        this.segments = new ArrayList<>();
+        this.index = new HashMap<>();
+        Files.createDirectories(directory);
+        final long records = openSegments();
+        this.indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (!loadIndex(records)) {
+            LOGGER.info("Rebuilding promotion audit index from {} records ...", records);
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * Appends a promotion to the log on the writer executor, as the record is forced to the disk.
+     * The promotion is recorded with the current time, even if it is written later.
+     * Errors are logged, as the promotion itself already happened.
+     *
+     * @param target   the ID of the promoted user
+     * @param promoter the ID of the promoting user
+     * @param oldRank  the role ID of the previous rank, or -1 if there was none
+     * @param newRank  the role ID of the new rank
+     * @return the future that completes after the record was written
+     */
+    public CompletableFuture<Void> record(final long target, final long promoter, final long oldRank,
+                                          final long newRank) {
+        final long timestamp = clock.instant().getEpochSecond();
+        return CompletableFuture.runAsync(() -> append(timestamp, target, promoter, oldRank, newRank), writer);
+    }
+
+    private synchronized void append(final long timestamp, final long target, final long promoter, final long oldRank,
+                                     final long newRank) {
+        try {
+            if (segments.isEmpty() || writeSlot == capacity(segments.get(segments.size() - 1))) {
+                segments.add(mapSegment(segments.size(), recordsPerSegment));
+                writeSlot = 0;
+            }
+            final MappedByteBuffer segment = segments.get(segments.size() - 1);
+            final int offset = writeSlot * RECORD_SIZE;
+            segment.putLong(offset + Long.BYTES, target);
+            segment.putLong(offset + 2 * Long.BYTES, promoter);
+            segment.putLong(offset + 3 * Long.BYTES, oldRank);
+            segment.putLong(offset + 4 * Long.BYTES, newRank);
+            segment.putLong(offset, timestamp);
+            segment.force();
+
+            final long pointer = pointer(segments.size() - 1, writeSlot);
+            writeSlot++;
+            index.computeIfAbsent(target, user -> new ArrayList<>()).add(pointer);
+            appendIndex(target, pointer);
+        } catch (final IOException e) {
+            LOGGER.warn("Error while writing promotion audit log.", e);
+        }
+    }
+
+    /**
+     * Gets all promotions of a user, ordered from oldest to newest.
+     *
+     * @param target the ID of the user
+     * @return the promotions of the user
+     */
+    public synchronized List<Entry> getHistory(final long target) {
+        final List<Long> pointers = index.getOrDefault(target, Collections.emptyList());
+        final List<Entry> entries = new ArrayList<>(pointers.size());
+        for (final long pointer : pointers) {
+            entries.add(read(segments.get((int) (pointer >>> Integer.SIZE)), (int) pointer));
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        indexChannel.close();
+    }
+
+    private long openSegments() throws IOException {
+        final List<Integer> numbers;
+        try (Stream<Path> files = Files.list(directory)) {
+            numbers = files.map(file -> SEGMENT_PATTERN.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+        long records = 0;
+        for (int i = 0; i < numbers.size(); i++) {
+            if (numbers.get(i) != i) {
+                throw new IOException("Promotion audit segment " + i + " is missing in '" + directory + "'!");
+            }
+            final long fileSize = Files.size(segmentPath(i));
+            final int capacity = fileSize < RECORD_SIZE ? recordsPerSegment : (int) (fileSize / RECORD_SIZE);
+            final MappedByteBuffer segment = mapSegment(i, capacity);
+            segments.add(segment);
+            writeSlot = countRecords(segment);
+            records += writeSlot;
+        }
+        return records;
+    }
+
+    private MappedByteBuffer mapSegment(final int number, final int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+        }
+    }
+
+    private Path segmentPath(final int number) {
+        return directory.resolve("segment-%05d.log".formatted(number));
+    }
+
+    private int countRecords(final MappedByteBuffer segment) {
+        final int capacity = capacity(segment);
+        for (int slot = 0; slot < capacity; slot++) {
+            if (segment.getLong(slot * RECORD_SIZE) == 0) {
+                return slot;
+            }
+        }
+        return capacity;
+    }
+
+    private int capacity(final MappedByteBuffer segment) {
+        return segment.capacity() / RECORD_SIZE;
+    }
+
+    private long pointer(final int segment, final int slot) {
+        return (long) segment << Integer.SIZE | slot;
+    }
+
+    private Entry read(final MappedByteBuffer segment, final int slot) {
+        final int offset = slot * RECORD_SIZE;
+        return new Entry(segment.getLong(offset),
+                segment.getLong(offset + Long.BYTES),
+                segment.getLong(offset + 2 * Long.BYTES),
+                segment.getLong(offset + 3 * Long.BYTES),
+                segment.getLong(offset + 4 * Long.BYTES));
+    }
+
+    private boolean loadIndex(final long records) throws IOException {
+        final long size = indexChannel.size();
+        if (size % INDEX_ENTRY_SIZE != 0 || size / INDEX_ENTRY_SIZE != records) {
+            return false;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        indexChannel.read(buffer, 0);
+        buffer.flip();
+        while (buffer.remaining() >= INDEX_ENTRY_SIZE) {
+            final long target = buffer.getLong();
+            final long pointer = buffer.getLong();
+            index.computeIfAbsent(target, user -> new ArrayList<>()).add(pointer);
+        }
+        indexChannel.position(size);
+        return true;
+    }
+
+    private void rebuildIndex() throws IOException {
+        index.clear();
+        indexChannel.truncate(0);
+        for (int number = 0; number < segments.size(); number++) {
+            final MappedByteBuffer segment = segments.get(number);
+            final int records = countRecords(segment);
+            for (int slot = 0; slot < records; slot++) {
+                final long target = segment.getLong(slot * RECORD_SIZE + Long.BYTES);
+                final long pointer = pointer(number, slot);
+                index.computeIfAbsent(target, user -> new ArrayList<>()).add(pointer);
+                appendIndex(target, pointer);
+            }
+        }
+    }
+
+    private void appendIndex(final long target, final long pointer) throws IOException {
+        final ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+        entry.putLong(target).putLong(pointer).flip();
+        while (entry.hasRemaining()) {
+            indexChannel.write(entry);
+        }
+    }
+
+    /**
+     * A promotion in the audit log.
+     *
+     * @param timestamp the time of the promotion in epoch seconds
+     * @param target    the ID of the promoted user
+     * @param promoter  the ID of the promoting user
+     * @param oldRank   the role ID of the previous rank, or -1 if there was none
+     * @param newRank   the role ID of the new rank
+     */
+    public record Entry(long timestamp, long target, long promoter, long oldRank, long newRank) {
+    }
+}
@@ -2,21 +2,29 @@ package org.betonquest.discordbot.modules.promotion;
 
 import net.dv8tion.jda.api.entities.Member;
 import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.profiling.PromotionCachePersistEvent;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Instant;
+import java.time.Clock;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * A cache to manage user promotions with a cooldown mechanism.
  * It stores the last promotion time for each user and checks if they can be promoted again.
+ * <p>
+ * A promotion first reserves the cooldown in memory. The reservation is written to the cache file on the
+ * writer executor after the promotion succeeded, or rolled back if it failed.
  */
 public class PromotionCache {
     /**
@@ -44,14 +52,27 @@ public class PromotionCache {
      */
     private final int promotionCooldown;
 
+    /**
+     * The clock to read the current time from.
+     */
+    private final Clock clock;
+
+    /**
+     * The executor the cache file is written on.
+     */
+    private final Executor writer;
+
     /**
      * Creates a new PromotionCache instance.
      *
      * @param cachePath the path to the cache file
      * @param config    the BetonBotConfig instance containing the promotion cooldown
+     * @param clock     the clock to read the current time from
+     * @param writer    the executor the cache file is written on, it should run one task at a time
      * @throws IOException if an I/O error occurs while reading or writing the cache file
      */
-    public PromotionCache(final Path cachePath, final BetonBotConfig config) throws IOException {
+    public PromotionCache(final Path cachePath, final BetonBotConfig config, final Clock clock,
+                          final Executor writer) throws IOException {
         this.cachePath = cachePath;
         this.yaml = getYaml();
         this.promotions = new LinkedHashMap<>();
@@ -63,46 +84,103 @@ public class PromotionCache {
             }
         }
         this.promotionCooldown = config.promotionCooldown;
+        this.clock = clock;
+        this.writer = writer;
     }
 
     /**
-     * Checks if a user is promotable and updates the cache if so.
+     * Reserves the cooldown of a user, if the user is promotable.
+     * The reservation is only kept in memory until it is persisted with {@link #persist(long)}.
      *
      * @param member the member to check
-     * @return true if the user can be promoted, false otherwise
+     * @return the reservation, or null if the user is still on cooldown
      */
-    public boolean isPromotable(final Member member) {
+    @Nullable
+    public synchronized Reservation reserve(final Member member) {
         final long userID = member.getIdLong();
-        final long currentTime = Instant.now().getEpochSecond();
-        final Long lastTime = promotions.getOrDefault(userID, 0L);
-        if (lastTime + promotionCooldown < currentTime) {
-            promotions.put(userID, currentTime);
-            try {
-                yaml.dump(promotions, Files.newBufferedWriter(cachePath));
-            } catch (final IOException e) {
-                LOGGER.warn("Error while writing promotion cache.", e);
-            }
-            return true;
+        final long currentTime = clock.instant().getEpochSecond();
+        final Long lastTime = promotions.get(userID);
+        if ((lastTime == null ? 0L : lastTime) + promotionCooldown >= currentTime) {
+            return null;
+        }
+        promotions.put(userID, currentTime);
+        return new Reservation(userID, lastTime, currentTime);
+    }
+
+    /**
+     * Rolls back a reservation, if it was not replaced by a newer one.
+     *
+     * @param reservation the reservation to roll back
+     */
+    public synchronized void rollback(final Reservation reservation) {
+        final Long current = promotions.get(reservation.userId());
+        if (current == null || current != reservation.time()) {
+            return;
+        }
+        if (reservation.previousTime() == null) {
+            promotions.remove(reservation.userId());
         } else {
-            return false;
+            promotions.put(reservation.userId(), reservation.previousTime());
         }
     }
 
+    /**
+     * Releases the cooldown of a user, for example after a demotion, so the user can be promoted again at once.
+     * The change is only kept in memory until it is persisted with {@link #persist(long)}.
+     *
+     * @param userID the ID of the user
+     */
+    public synchronized void release(final long userID) {
+        promotions.remove(userID);
+    }
+
+    /**
+     * Writes the cache file on the writer executor.
+     * Errors are logged, as the promotions are kept in memory anyway.
+     *
+     * @param userID the ID of the user whose promotion is persisted, or of the promoter for a batch of promotions
+     * @return the future that completes after the file was written
+     */
+    public CompletableFuture<Void> persist(final long userID) {
+        return CompletableFuture.runAsync(() -> write(userID), writer);
+    }
+
     /**
      * Gets the time stamp of the next possible promotion for a user.
      *
      * @param member the member to check
      * @return the time in seconds until the next promotion can occur
      */
-    public long getTimeOfNextPromotion(final Member member) {
+    public synchronized long getTimeOfNextPromotion(final Member member) {
         final long userID = member.getIdLong();
         final Long lastTime = promotions.getOrDefault(userID, 0L);
         if (lastTime == 0) {
-            return Instant.now().getEpochSecond();
+            return clock.instant().getEpochSecond();
         }
         return lastTime + promotionCooldown;
     }
 
+    private void write(final long userID) {
+        final PromotionCachePersistEvent event = new PromotionCachePersistEvent();
+        event.begin();
+        final Map<Long, Long> snapshot;
+        synchronized (this) {
+            snapshot = new LinkedHashMap<>(promotions);
+        }
+        try (Writer fileWriter = Files.newBufferedWriter(cachePath)) {
+            yaml.dump(snapshot, fileWriter);
+        } catch (final IOException e) {
+            LOGGER.warn("Error while writing promotion cache.", e);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.userId = userID;
+            event.entries = snapshot.size();
+            event.fileSize = cachePath.toFile().length();
+            event.commit();
+        }
+    }
+
     private Yaml getYaml() {
         final DumperOptions options = new DumperOptions();
         options.setIndent(4);
@@ -119,4 +197,14 @@ public class PromotionCache {
             return new LinkedHashMap<>();
         }
     }
+
+    /**
+     * A cooldown reserved for a promotion.
+     *
+     * @param userId       the ID of the promoted user
+     * @param previousTime the time of the previous promotion in epoch seconds, or null if there was none
+     * @param time         the reserved time of the promotion in epoch seconds
+     */
+    public record Reservation(long userId, @Nullable Long previousTime, long time) {
+    }
 }
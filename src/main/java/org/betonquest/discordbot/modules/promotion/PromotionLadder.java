@@ -0,0 +1,229 @@
+package org.betonquest.discordbot.modules.promotion;
+
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Evaluates members against the promotion ladder configured in {@link BetonBotConfig#promotionRanks}.
+ */
+public class PromotionLadder {
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The {@link RankIndex} to look up the ranks of members in.
+     */
+    private final RankIndex rankIndex;
+
+    /**
+     * Creates a new {@link PromotionLadder}.
+     *
+     * @param config    the {@link BetonBotConfig} instance
+     * @param rankIndex the {@link RankIndex} to look up the ranks of members in
+     */
+    public PromotionLadder(final BetonBotConfig config, final RankIndex rankIndex) {
+        this.config = config;
+        this.rankIndex = rankIndex;
+    }
+
+    /**
+     * Checks if a member has a role that bypasses the ladder checks.
+     *
+     * @param member the member to check
+     * @return true if the member can bypass the checks
+     */
+    public boolean canBypass(final Member member) {
+        return member.getRoles().stream().anyMatch(role -> config.promotionBypassRoles.contains(role.getIdLong()));
+    }
+
+    /**
+     * Gets the index of the highest ladder role of a member.
+     *
+     * @param member the member
+     * @return the index in the ladder, or -1 if the member has no ladder role
+     */
+    public int getRankIndex(final Member member) {
+        return rankIndex.getRankIndex(member.getIdLong());
+    }
+
+    /**
+     * Gets the number of ranks in the ladder.
+     *
+     * @return the number of ranks
+     */
+    public int size() {
+        return config.promotionRanks.size();
+    }
+
+    /**
+     * Gets the role ID of a rank.
+     *
+     * @param rankIndex the index in the ladder
+     * @return the role ID
+     */
+    public Long getRankRoleId(final int rankIndex) {
+        return config.promotionRanks.get(rankIndex);
+    }
+
+    /**
+     * Starts a rank change of a member, unless another rank change of the member is still running.
+     * The change must be ended with {@link #endRankChange(Member)}.
+     *
+     * @param member the member
+     * @return true if the change may start, false if another change is running
+     */
+    public boolean beginRankChange(final Member member) {
+        return rankIndex.beginChange(member.getIdLong());
+    }
+
+    /**
+     * Ends a rank change of a member started with {@link #beginRankChange(Member)}.
+     *
+     * @param member the member
+     */
+    public void endRankChange(final Member member) {
+        rankIndex.endChange(member.getIdLong());
+    }
+
+    /**
+     * Sets the rank of a member in the index after the roles of the member were changed.
+     *
+     * @param member  the member
+     * @param newRole the role of the new rank, or null if the member has no rank
+     */
+    public void setRank(final Member member, @Nullable final Role newRole) {
+        rankIndex.setRank(member.getIdLong(), newRole == null ? -1L : newRole.getIdLong());
+    }
+
+    /**
+     * Gets the role ID of the highest rank of a member.
+     *
+     * @param member the member
+     * @return the role ID, or -1 if the member has no rank
+     */
+    public long getCurrentRankRoleId(final Member member) {
+        final int index = getRankIndex(member);
+        return index == -1 ? -1L : getRankRoleId(index);
+    }
+
+    /**
+     * Gets the complete roles of a member with a new rank: all roles that are not in the ladder and the new rank role.
+     * Setting these roles replaces all ladder roles of the member in one request.
+     *
+     * @param member  the member
+     * @param newRole the role of the new rank, or null to remove all ladder roles
+     * @return the complete roles of the member
+     */
+    public List<Role> getRolesWithRank(final Member member, @Nullable final Role newRole) {
+        final List<Role> roles = new ArrayList<>(member.getRoles().size() + 1);
+        for (final Role role : member.getRoles()) {
+            if (!config.promotionRanks.contains(role.getIdLong())) {
+                roles.add(role);
+            }
+        }
+        if (newRole != null) {
+            roles.add(newRole);
+        }
+        return roles;
+    }
+
+    /**
+     * Checks if a member is allowed to promote others at all.
+     *
+     * @param executor the member that wants to promote
+     * @return the reason why the member is not allowed, or null if allowed
+     */
+    @Nullable
+    public String checkExecutor(final Member executor) {
+        if (canBypass(executor)) {
+            return null;
+        }
+        final int executorIndex = getRankIndex(executor);
+        if (executorIndex == -1) {
+            return "You need to have a promotable Rank yourself to use this command!";
+        }
+        if (executorIndex == 0) {
+            return "There are no roles below you in the Promotion Ladder. You cannot use this command.";
+        }
+        return null;
+    }
+
+    /**
+     * Evaluates the promotion of a target by an executor, that already passed {@link #checkExecutor(Member)}.
+     *
+     * @param executor the member that wants to promote
+     * @param target   the member to promote
+     * @return the {@link Evaluation} of the promotion
+     */
+    public Evaluation evaluate(final Member executor, final Member target) {
+        final boolean bypass = canBypass(executor);
+        final int executorIndex = getRankIndex(executor);
+        final int targetIndex = getRankIndex(target);
+        if (!bypass && targetIndex >= executorIndex) {
+            return Evaluation.denied("The target user is already ranked higher or equally high ranked as you.\n"
+                    + "You can only rank up to one role lower than yourself.");
+        }
+        final int newIndex = targetIndex + 1;
+        if (!bypass && newIndex >= executorIndex) {
+            return Evaluation.denied("You cannot promote other users up to your own rank.");
+        }
+        if (bypass && newIndex == size()) {
+            return Evaluation.denied("The target user is already on the highest rank");
+        }
+        return new Evaluation(null, newIndex);
+    }
+
+    /**
+     * Evaluates the demotion of a target by an executor, that already passed {@link #checkExecutor(Member)}.
+     *
+     * @param executor the member that wants to demote
+     * @param target   the member to demote
+     * @return the {@link Evaluation} of the demotion
+     */
+    public Evaluation evaluateDemotion(final Member executor, final Member target) {
+        final int targetIndex = getRankIndex(target);
+        if (targetIndex == -1) {
+            return Evaluation.denied("The target user has no rank to be demoted from.");
+        }
+        if (!canBypass(executor) && targetIndex >= getRankIndex(executor)) {
+            return Evaluation.denied("The target user is already ranked higher or equally high ranked as you.\n"
+                    + "You can only demote users ranked lower than yourself.");
+        }
+        return new Evaluation(null, targetIndex - 1);
+    }
+
+    /**
+     * The result of evaluating a promotion or demotion.
+     *
+     * @param denial       the reason why the change is denied, or null if allowed
+     * @param newRankIndex the index of the new rank in the ladder, or -1 if denied or the member has no rank after it
+     */
+    public record Evaluation(@Nullable String denial, int newRankIndex) {
+        /**
+         * Creates a denied {@link Evaluation}.
+         *
+         * @param denial the reason why the promotion is denied
+         * @return the denied {@link Evaluation}
+         */
+        public static Evaluation denied(final String denial) {
+            return new Evaluation(denial, -1);
+        }
+
+        /**
+         * Checks if the promotion is allowed.
+         *
+         * @return true if allowed
+         */
+        public boolean isAllowed() {
+            return denial == null;
+        }
+    }
+}
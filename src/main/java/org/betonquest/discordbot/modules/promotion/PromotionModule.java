@@ -0,0 +1,72 @@
+package org.betonquest.discordbot.modules.promotion;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.modules.BotModule;
+import org.betonquest.discordbot.modules.ModuleContext;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The promotion module, that promotes members up the promotion ladder.
+ * It caches all members, as the {@link RankIndex} and `promote-batch` need the roles of every member.
+ */
+public class PromotionModule implements BotModule {
+    /**
+     * Create a new {@link PromotionModule}.
+     */
+    public PromotionModule() {
+        // Empty
+    }
+
+    @Override
+    public boolean isEnabled(final BetonBotConfig config) {
+        return config.promotionEnabled;
+    }
+
+    @Override
+    public Set<GatewayIntent> getIntents() {
+        return Set.of(GatewayIntent.GUILD_MEMBERS);
+    }
+
+    @Override
+    public MemberCachePolicy getMemberCachePolicy() {
+        return MemberCachePolicy.ALL;
+    }
+
+    @Override
+    public Map<Class<?>, Set<Class<? extends GenericEvent>>> getTracedEvents() {
+        return Map.of(PromoteCommand.class, Set.of(SlashCommandInteractionEvent.class));
+    }
+
+    @Override
+    public List<SlashCommandData> start(final ModuleContext context) throws IOException {
+        final BetonBotConfig config = context.config();
+        final RankIndex rankIndex = new RankIndex(context.api(), config);
+        context.guild().loadMembers(rankIndex::addMember).get();
+        final PromotionCache promotionCache = new PromotionCache(Paths.get("promotionCache.yml"), config,
+                context.clock(), context.threads().newSingleThreadExecutor("PromotionCache"));
+        final PromotionLadder ladder = new PromotionLadder(config, rankIndex);
+        final PromotionAuditLog auditLog = new PromotionAuditLog(Paths.get("promotionAudit"),
+                config.promotionAuditSegmentSize, context.clock(),
+                context.threads().newSingleThreadExecutor("PromotionAudit"));
+        final PromoteCommand promoteCommand = new PromoteCommand(context.api(), config, promotionCache, ladder,
+                auditLog);
+        return List.of(
+                promoteCommand.getSlashCommandData(),
+                promoteCommand.getDemoteSlashCommandData(),
+                new BatchPromoteCommand(context.api(), config, promotionCache, ladder, auditLog)
+                        .getSlashCommandData(),
+                new PromotionsCommand(context.api(), auditLog).getSlashCommandData(),
+                new LadderCommand(context.api(), ladder, rankIndex).getSlashCommandData()
+        );
+    }
+}
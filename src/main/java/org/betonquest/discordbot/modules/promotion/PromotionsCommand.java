@@ -0,0 +1,123 @@
+package org.betonquest.discordbot.modules.promotion;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.session.ShutdownEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import net.dv8tion.jda.api.utils.TimeFormat;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A `promotions` command to show information from the {@link PromotionAuditLog}.
+ */
+public class PromotionsCommand extends ListenerAdapter {
+    /**
+     * The command name.
+     */
+    public static final String COMMAND = "promotions";
+
+    /**
+     * The subcommand to show the history of a user.
+     */
+    public static final String HISTORY_SUBCOMMAND = "history";
+
+    /**
+     * The command option user.
+     */
+    public static final String USER_OPTION_NAME = "user";
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PromotionsCommand.class);
+
+    /**
+     * The maximum number of shown promotions.
+     */
+    private static final int MAX_ENTRIES = 20;
+
+    /**
+     * The {@link PromotionAuditLog} instance.
+     */
+    private final PromotionAuditLog auditLog;
+
+    /**
+     * Create a new `promotions` command instance.
+     *
+     * @param api      The {@link JDA} instance
+     * @param auditLog The {@link PromotionAuditLog} instance
+     */
+    public PromotionsCommand(final JDA api, final PromotionAuditLog auditLog) {
+        super();
+        this.auditLog = auditLog;
+        api.addEventListener(this);
+    }
+
+    /**
+     * Get the slash command data for this command.
+     *
+     * @return The slash command data
+     */
+    public @NotNull SlashCommandData getSlashCommandData() {
+        return Commands.slash(COMMAND, "Show information about promotions.")
+                .setDefaultPermissions(DefaultMemberPermissions.enabledFor(Permission.ADMINISTRATOR))
+                .addSubcommands(new SubcommandData(HISTORY_SUBCOMMAND, "Show the promotion history of a user.")
+                        .addOption(OptionType.USER, USER_OPTION_NAME, "The User to show the history for", true));
+    }
+
+    @Override
+    public void onSlashCommandInteraction(final SlashCommandInteractionEvent event) {
+        if (!COMMAND.equals(event.getName()) || !HISTORY_SUBCOMMAND.equals(event.getSubcommandName())) {
+            return;
+        }
+
+        final OptionMapping option = event.getOption(USER_OPTION_NAME);
+        if (option == null) {
+            event.reply("You need to specify a user.").setEphemeral(true).queue();
+            return;
+        }
+        final User user = option.getAsUser();
+        final List<PromotionAuditLog.Entry> history = auditLog.getHistory(user.getIdLong());
+        if (history.isEmpty()) {
+            event.reply("There are no recorded promotions for " + user.getAsMention() + ".")
+                    .setEphemeral(true).queue();
+            return;
+        }
+
+        final StringBuilder message = new StringBuilder(64 * MAX_ENTRIES)
+                .append("Promotions of ").append(user.getAsMention())
+                .append(" (").append(history.size()).append(" total):");
+        for (final PromotionAuditLog.Entry entry : history.subList(Math.max(0, history.size() - MAX_ENTRIES),
+                history.size())) {
+            message.append('\n')
+                    .append(TimeFormat.DATE_TIME_SHORT.format(entry.timestamp() * 1000)).append(": ")
+                    .append(entry.oldRank() == -1 ? "none" : "<@&" + entry.oldRank() + ">")
+                    .append(" -> ").append(entry.newRank() == -1 ? "none" : "<@&" + entry.newRank() + ">")
+                    .append(" by <@")
+                    .append(entry.promoter()).append('>');
+        }
+        event.reply(message.toString()).setEphemeral(true).queue();
+    }
+
+    @Override
+    public void onShutdown(@NotNull final ShutdownEvent event) {
+        try {
+            auditLog.close();
+        } catch (final IOException e) {
+            LOGGER.warn("Error while closing promotion audit log.", e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package org.betonquest.discordbot.modules.promotion;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleAddEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleRemoveEvent;
+import net.dv8tion.jda.api.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of the members holding each rank of the promotion ladder.
+ * <p>
+ * The members of each rank are stored as a sorted array of IDs, so a page of a rank is a copy of a range and
+ * the rank of a member is found with one binary search per rank, without walking the roles of the member.
+ * The index is filled while the members of the guild are loaded and kept current by the role events.
+ * The rank changes of the bot are applied at once, as their role events may arrive after the next command.
+ * Only one rank change per member runs at a time, see {@link #beginChange(long)}.
+ */
+public class RankIndex extends ListenerAdapter {
+    /**
+     * The initial capacity of the member array of a rank.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The ID of the guild of the ladder.
+     */
+    private final long guildId;
+
+    /**
+     * The role IDs of the ranks, from lowest to highest.
+     */
+    private final long[] rankRoles;
+
+    /**
+     * The sorted member IDs of each rank, valid up to the size of the rank.
+     */
+    private final long[][] members;
+
+    /**
+     * The number of members of each rank.
+     */
+    private final int[] sizes;
+
+    /**
+     * The IDs of the members whose rank is currently changed by the bot.
+     */
+    private final Set<Long> changing;
+
+    /**
+     * Create a new empty {@link RankIndex}.
+     *
+     * @param api    the {@link JDA} instance
+     * @param config the {@link BetonBotConfig} instance
+     */
+    public RankIndex(final JDA api, final BetonBotConfig config) {
+        super();
+        this.guildId = config.guildID;
+        this.rankRoles = ((List<?>) config.promotionRanks).stream()
+                .mapToLong(rank -> ((Number) rank).longValue())
+                .toArray();
+        this.members = new long[rankRoles.length][INITIAL_CAPACITY];
+        this.sizes = new int[rankRoles.length];
+        this.changing = ConcurrentHashMap.newKeySet();
+        api.addEventListener(this);
+    }
+
+    /**
+     * Adds the ranks of a member, for example while the members are loaded.
+     *
+     * @param member the member
+     */
+    public synchronized void addMember(final Member member) {
+        if (member.getGuild().getIdLong() == guildId) {
+            addRoles(member.getIdLong(), member.getRoles());
+        }
+    }
+
+    /**
+     * Gets the index of the highest rank of a member.
+     *
+     * @param memberId the ID of the member
+     * @return the index in the ladder, or -1 if the member has no rank
+     */
+    public synchronized int getRankIndex(final long memberId) {
+        for (int rank = rankRoles.length - 1; rank >= 0; rank--) {
+            if (Arrays.binarySearch(members[rank], 0, sizes[rank], memberId) >= 0) {
+                return rank;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Starts a rank change of a member, unless another rank change of the member is still running.
+     * The change must be ended with {@link #endChange(long)}.
+     *
+     * @param memberId the ID of the member
+     * @return true if the change may start, false if another change is running
+     */
+    public boolean beginChange(final long memberId) {
+        return changing.add(memberId);
+    }
+
+    /**
+     * Ends a rank change of a member started with {@link #beginChange(long)}.
+     *
+     * @param memberId the ID of the member
+     */
+    public void endChange(final long memberId) {
+        changing.remove(memberId);
+    }
+
+    /**
+     * Sets the rank of a member after the bot replaced all ladder roles of the member with one rank.
+     *
+     * @param memberId the ID of the member
+     * @param roleId   the role ID of the new rank, or -1 if the member has no rank
+     */
+    public synchronized void setRank(final long memberId, final long roleId) {
+        for (int rank = 0; rank < rankRoles.length; rank++) {
+            remove(rank, memberId);
+        }
+        final int newRank = rankOf(roleId);
+        if (newRank >= 0) {
+            add(newRank, memberId);
+        }
+    }
+
+    /**
+     * Gets the number of members of a rank.
+     *
+     * @param rankIndex the index in the ladder
+     * @return the number of members
+     */
+    public synchronized int count(final int rankIndex) {
+        return sizes[rankIndex];
+    }
+
+    /**
+     * Gets a page of the members of a rank, ordered by ID.
+     *
+     * @param rankIndex the index in the ladder
+     * @param offset    the number of members to skip
+     * @param limit     the maximum number of members
+     * @return the member IDs
+     */
+    public synchronized long[] getMembers(final int rankIndex, final int offset, final int limit) {
+        final int from = Math.min(offset, sizes[rankIndex]);
+        return Arrays.copyOfRange(members[rankIndex], from, Math.min(sizes[rankIndex], from + limit));
+    }
+
+    @Override
+    public void onGuildMemberRoleAdd(@NotNull final GuildMemberRoleAddEvent event) {
+        if (isLadderGuild(event.getGuild())) {
+            synchronized (this) {
+                addRoles(event.getMember().getIdLong(), event.getRoles());
+            }
+        }
+    }
+
+    @Override
+    public void onGuildMemberRoleRemove(@NotNull final GuildMemberRoleRemoveEvent event) {
+        if (isLadderGuild(event.getGuild())) {
+            synchronized (this) {
+                for (final Role role : event.getRoles()) {
+                    final int rank = rankOf(role.getIdLong());
+                    if (rank >= 0) {
+                        remove(rank, event.getMember().getIdLong());
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onGuildMemberRemove(@NotNull final GuildMemberRemoveEvent event) {
+        if (isLadderGuild(event.getGuild())) {
+            synchronized (this) {
+                for (int rank = 0; rank < rankRoles.length; rank++) {
+                    remove(rank, event.getUser().getIdLong());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onRoleDelete(@NotNull final RoleDeleteEvent event) {
+        if (isLadderGuild(event.getGuild())) {
+            final int rank = rankOf(event.getRole().getIdLong());
+            if (rank >= 0) {
+                synchronized (this) {
+                    sizes[rank] = 0;
+                }
+            }
+        }
+    }
+
+    private boolean isLadderGuild(final Guild guild) {
+        return guild.getIdLong() == guildId;
+    }
+
+    private void addRoles(final long memberId, final Collection<Role> roles) {
+        for (final Role role : roles) {
+            final int rank = rankOf(role.getIdLong());
+            if (rank >= 0) {
+                add(rank, memberId);
+            }
+        }
+    }
+
+    private int rankOf(final long roleId) {
+        for (int rank = 0; rank < rankRoles.length; rank++) {
+            if (rankRoles[rank] == roleId) {
+                return rank;
+            }
+        }
+        return -1;
+    }
+
+    private void add(final int rank, final long memberId) {
+        final int index = Arrays.binarySearch(members[rank], 0, sizes[rank], memberId);
+        if (index >= 0) {
+            return;
+        }
+        final int insertion = -index - 1;
+        if (sizes[rank] == members[rank].length) {
+            members[rank] = Arrays.copyOf(members[rank], sizes[rank] * 2);
+        }
+        System.arraycopy(members[rank], insertion, members[rank], insertion + 1, sizes[rank] - insertion);
+        members[rank][insertion] = memberId;
+        sizes[rank]++;
+    }
+
+    private void remove(final int rank, final long memberId) {
+        final int index = Arrays.binarySearch(members[rank], 0, sizes[rank], memberId);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(members[rank], index + 1, members[rank], index, sizes[rank] - index - 1);
+        sizes[rank]--;
+    }
+}
@@ -0,0 +1,116 @@
+package org.betonquest.discordbot.modules.search;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.session.ShutdownEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.modules.support.SolvedPosts;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A `search` command to find solved Support Posts in the {@link SearchIndex}.
+ * Posts are added to the index when they are solved and removed when they are reopened.
+ */
+public class SearchCommand extends ListenerAdapter implements SolvedPosts.Listener {
+    /**
+     * The command name.
+     */
+    public static final String COMMAND = "search";
+
+    /**
+     * The command option query.
+     */
+    public static final String QUERY_OPTION_NAME = "query";
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchCommand.class);
+
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The {@link SearchIndex} instance.
+     */
+    private final SearchIndex index;
+
+    /**
+     * Create a new `search` command instance.
+     *
+     * @param api         The {@link JDA} instance
+     * @param config      The {@link BetonBotConfig} instance
+     * @param index       The {@link SearchIndex} instance
+     * @param solvedPosts The {@link SolvedPosts} to index solved Posts from
+     */
+    public SearchCommand(final JDA api, final BetonBotConfig config, final SearchIndex index,
+                         final SolvedPosts solvedPosts) {
+        super();
+        this.config = config;
+        this.index = index;
+        solvedPosts.addListener(this);
+        api.addEventListener(this);
+    }
+
+    /**
+     * Get the slash command data for this command.
+     *
+     * @return The slash command data
+     */
+    public @NotNull SlashCommandData getSlashCommandData() {
+        return Commands.slash(COMMAND, "Search solved support posts.")
+                .addOption(OptionType.STRING, QUERY_OPTION_NAME, "The words to search for", true);
+    }
+
+    @Override
+    public void onSolved(final ThreadChannel channel, final Message message) {
+        index.add(channel.getIdLong(), channel.getName() + "\n" + message.getContentRaw());
+    }
+
+    @Override
+    public void onReopened(final ThreadChannel channel) {
+        index.remove(channel.getIdLong());
+    }
+
+    @Override
+    public void onSlashCommandInteraction(@NotNull final SlashCommandInteractionEvent event) {
+        if (!COMMAND.equals(event.getName())) {
+            return;
+        }
+        final String query = event.getOption(QUERY_OPTION_NAME, "", OptionMapping::getAsString);
+        final List<SearchIndex.Hit> hits = index.search(query, config.supportSearchResults);
+        if (hits.isEmpty()) {
+            Tracer.queue("reply", event.reply("No solved posts were found for your search.").setEphemeral(true));
+            return;
+        }
+        final StringBuilder message = new StringBuilder(32 * hits.size()).append("Solved posts for your search:");
+        for (final SearchIndex.Hit hit : hits) {
+            message.append("\n- <#").append(hit.threadId()).append('>');
+        }
+        Tracer.queue("reply", event.reply(message.toString()).setEphemeral(true));
+    }
+
+    @Override
+    public void onShutdown(@NotNull final ShutdownEvent event) {
+        try {
+            index.close();
+        } catch (final IOException e) {
+            LOGGER.warn("Error while closing search index.", e);
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package org.betonquest.discordbot.modules.search;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A full text index of solved Support Posts, ranked with BM25.
+ * <p>
+ * Each added Post is written as a new {@link SearchSegment} file. Removed Posts are appended to a deletion file
+ * and skipped in searches. Segments are grouped in tiers by their size. When a tier is full, its segments are
+ * merged in the background into one segment of the next tier, which also drops the removed Posts.
+ * All changes run on a single thread, searches read an immutable snapshot of the segments and never wait for changes.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class SearchIndex implements Closeable {
+    /**
+     * The BM25 term frequency saturation.
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * The BM25 document length normalization.
+     */
+    private static final double B = 0.75;
+
+    /**
+     * The number of segments of the same size tier that are merged into one segment of the next tier.
+     */
+    private static final int MERGE_FACTOR = 5;
+
+    /**
+     * The maximum length of a term.
+     */
+    private static final int MAX_TERM_LENGTH = 40;
+
+    /**
+     * The size of a deletion entry in bytes: Post ID and sequence number.
+     */
+    private static final int DELETION_SIZE = 2 * Long.BYTES;
+
+    /**
+     * The name of the deletion file.
+     */
+    private static final String DELETIONS_FILE = "deletions.dat";
+
+    /**
+     * The pattern of segment file names.
+     */
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("segment-(\\d+)\\.idx");
+
+    /**
+     * The pattern of term separators.
+     */
+    private static final Pattern SEPARATOR_PATTERN = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchIndex.class);
+
+    /**
+     * The directory containing the segments and the deletion file.
+     */
+    private final Path directory;
+
+    /**
+     * The executor running all changes of the index.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * The live document of each Post.
+     */
+    private final Map<Long, LiveDocument> live;
+
+    /**
+     * The channel to append to the deletion file.
+     */
+    private FileChannel deletions;
+
+    /**
+     * The current segments. The list is replaced on each change.
+     */
+    private volatile List<SearchSegment> segments;
+
+    /**
+     * The total length of all live documents.
+     */
+    private volatile long totalLength;
+
+    /**
+     * The sequence number of the next added document.
+     */
+    private long nextSequence;
+
+    /**
+     * The number of the next segment.
+     */
+    private int nextSegment;
+
+    /**
+     * Opens the index in the given directory.
+     * Segments left over from an interrupted merge are deleted.
+     *
+     * @param directory       the directory containing the segments and the deletion file
+     * @param executorService the executor to run all changes on, that runs one task at a time
+     * @throws IOException if an I/O error occurs while reading the segments or the deletion file
+     */
+    public SearchIndex(final Path directory, final ExecutorService executorService) throws IOException {
+        this.directory = directory;
+        this.executorService = executorService;
+        this.live = new ConcurrentHashMap<>();
+        Files.createDirectories(directory);
+        this.segments = List.copyOf(openSegments());
+        this.deletions = FileChannel.open(directory.resolve(DELETIONS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        loadLiveDocuments();
+        LOGGER.info("Loaded {} Posts in {} segments into the search index.", live.size(), segments.size());
+        executorService.execute(this::mergeIfNeeded);
+    }
+
+    /**
+     * Splits a text into lower case terms.
+     *
+     * @param text the text
+     * @return the terms in the order of the text
+     */
+    public static List<String> tokenize(final String text) {
+        final List<String> terms = new ArrayList<>();
+        for (final String term : SEPARATOR_PATTERN.split(text.toLowerCase(Locale.ROOT))) {
+            if (term.length() > 1 && term.length() <= MAX_TERM_LENGTH) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Adds a Post to the index in the background. Posts that are already indexed are ignored.
+     *
+     * @param threadId the ID of the Post
+     * @param text     the text of the Post
+     */
+    public void add(final long threadId, final String text) {
+        executorService.execute(() -> {
+            if (live.containsKey(threadId)) {
+                return;
+            }
+            final List<String> terms = tokenize(text);
+            final Map<String, Integer> frequencies = new HashMap<>();
+            terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            final TreeMap<String, SearchSegment.PostingsWriter> postings = new TreeMap<>();
+            frequencies.forEach((term, frequency) -> {
+                final SearchSegment.PostingsWriter writer = new SearchSegment.PostingsWriter();
+                writer.add(0, frequency);
+                postings.put(term, writer);
+            });
+            final long sequence = nextSequence++;
+            try {
+                final SearchSegment segment = SearchSegment.write(nextSegment, segmentPath(nextSegment), new int[0],
+                        new SearchSegment.Document[]{new SearchSegment.Document(threadId, sequence, terms.size())},
+                        postings);
+                nextSegment++;
+                final List<SearchSegment> changed = new ArrayList<>(segments);
+                changed.add(segment);
+                segments = List.copyOf(changed);
+                live.put(threadId, new LiveDocument(sequence, terms.size()));
+                totalLength += terms.size();
+            } catch (final IOException e) {
+                LOGGER.warn("Error while adding Post {} to the search index.", threadId, e);
+                return;
+            }
+            mergeIfNeeded();
+        });
+    }
+
+    /**
+     * Removes a Post from the index in the background.
+     *
+     * @param threadId the ID of the Post
+     */
+    public void remove(final long threadId) {
+        executorService.execute(() -> {
+            final LiveDocument document = live.remove(threadId);
+            if (document == null) {
+                return;
+            }
+            totalLength -= document.length();
+            try {
+                deletions.write(ByteBuffer.allocate(DELETION_SIZE).putLong(threadId).putLong(document.sequence())
+                        .flip(), deletions.size());
+                deletions.force(false);
+            } catch (final IOException e) {
+                LOGGER.warn("Error while removing Post {} from the search index.", threadId, e);
+            }
+        });
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param query the search query
+     * @param limit the maximum number of results
+     * @return the results, ordered from best to worst
+     */
+    public List<Hit> search(final String query, final int limit) {
+        final List<SearchSegment> snapshot = segments;
+        final int documentCount = live.size();
+        if (documentCount == 0) {
+            return List.of();
+        }
+        final double averageLength = Math.max(1, (double) totalLength / documentCount);
+        final Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        final Map<String, Double> idf = new HashMap<>();
+        for (final String term : terms) {
+            final int[] documentFrequency = {0};
+            for (final SearchSegment segment : snapshot) {
+                segment.readPostings(term, (document, frequency) -> {
+                    if (isLive(segment, document)) {
+                        documentFrequency[0]++;
+                    }
+                });
+            }
+            final int liveFrequency = documentFrequency[0];
+            if (liveFrequency > 0) {
+                idf.put(term, Math.log(1 + (documentCount - liveFrequency + 0.5) / (liveFrequency + 0.5)));
+            }
+        }
+        final PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        for (final SearchSegment segment : snapshot) {
+            final double[] scores = new double[segment.getDocumentCount()];
+            idf.forEach((term, termIdf) -> segment.readPostings(term, (document, frequency) -> {
+                final double norm = K1 * (1 - B + B * segment.getLength(document) / averageLength);
+                scores[document] += termIdf * frequency * (K1 + 1) / (frequency + norm);
+            }));
+            for (int document = 0; document < scores.length; document++) {
+                if (scores[document] > 0 && (best.size() < limit || scores[document] > best.peek().score())
+                        && isLive(segment, document)) {
+                    best.add(new Hit(segment.getDocument(document).threadId(), scores[document]));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+        final List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+        return hits;
+    }
+
+    private boolean isLive(final SearchSegment segment, final int document) {
+        final SearchSegment.Document info = segment.getDocument(document);
+        final LiveDocument liveDocument = live.get(info.threadId());
+        return liveDocument != null && liveDocument.sequence() == info.sequence();
+    }
+
+    /**
+     * Gets the number of indexed Posts.
+     *
+     * @return the number of Posts
+     */
+    public int size() {
+        return live.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.warn("The search index did not finish all changes in time.");
+                executorService.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deletions.close();
+    }
+
+    private List<SearchSegment> openSegments() throws IOException {
+        final List<Integer> numbers;
+        try (Stream<Path> files = Files.list(directory)) {
+            numbers = files.map(file -> SEGMENT_PATTERN.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+        final List<SearchSegment> opened = new ArrayList<>();
+        for (final int number : numbers) {
+            opened.add(SearchSegment.open(number, segmentPath(number)));
+            nextSegment = number + 1;
+        }
+        final Set<Integer> merged = new HashSet<>();
+        for (final SearchSegment segment : opened) {
+            for (final int source : segment.getSources()) {
+                merged.add(source);
+            }
+        }
+        for (final SearchSegment segment : List.copyOf(opened)) {
+            if (merged.contains(segment.getNumber())) {
+                LOGGER.info("Deleting search segment {}, as it was already merged.", segment.getNumber());
+                opened.remove(segment);
+                Files.deleteIfExists(segment.getFile());
+            }
+        }
+        return opened;
+    }
+
+    private void loadLiveDocuments() throws IOException {
+        for (final SearchSegment segment : segments) {
+            for (int document = 0; document < segment.getDocumentCount(); document++) {
+                final SearchSegment.Document info = segment.getDocument(document);
+                final LiveDocument current = live.get(info.threadId());
+                if (current == null || current.sequence() < info.sequence()) {
+                    live.put(info.threadId(), new LiveDocument(info.sequence(), info.length()));
+                }
+                nextSequence = Math.max(nextSequence, info.sequence() + 1);
+            }
+        }
+        final ByteBuffer entry = ByteBuffer.allocate(DELETION_SIZE);
+        final long validSize = deletions.size() / DELETION_SIZE * DELETION_SIZE;
+        for (long position = 0; position < validSize; position += DELETION_SIZE) {
+            deletions.read(entry.clear(), position);
+            final LiveDocument current = live.get(entry.getLong(0));
+            if (current != null && current.sequence() == entry.getLong(Long.BYTES)) {
+                live.remove(entry.getLong(0));
+            }
+        }
+        deletions.truncate(validSize);
+        totalLength = live.values().stream().mapToLong(LiveDocument::length).sum();
+    }
+
+    private void mergeIfNeeded() {
+        final Map<Integer, List<SearchSegment>> tiers = new TreeMap<>();
+        for (final SearchSegment segment : segments) {
+            tiers.computeIfAbsent(tier(segment), tier -> new ArrayList<>()).add(segment);
+        }
+        for (final List<SearchSegment> tier : tiers.values()) {
+            if (tier.size() >= MERGE_FACTOR) {
+                if (merge(tier.subList(0, MERGE_FACTOR))) {
+                    mergeIfNeeded();
+                }
+                return;
+            }
+        }
+    }
+
+    private int tier(final SearchSegment segment) {
+        int tier = 0;
+        for (long size = MERGE_FACTOR; size <= segment.getDocumentCount(); size *= MERGE_FACTOR) {
+            tier++;
+        }
+        return tier;
+    }
+
+    private boolean merge(final List<SearchSegment> sources) {
+        try {
+            final SearchSegment merged = write(sources);
+            final List<SearchSegment> changed = new ArrayList<>(segments);
+            changed.removeAll(sources);
+            if (merged != null) {
+                changed.add(merged);
+            }
+            segments = List.copyOf(changed);
+            rewriteDeletions();
+            for (final SearchSegment source : sources) {
+                Files.deleteIfExists(source.getFile());
+            }
+            LOGGER.debug("Merged {} search segments.", sources.size());
+            return true;
+        } catch (final IOException e) {
+            LOGGER.warn("Error while merging search segments.", e);
+            return false;
+        }
+    }
+
+    @Nullable
+    private SearchSegment write(final List<SearchSegment> sources) throws IOException {
+        final List<SearchSegment.Document> documents = new ArrayList<>();
+        final List<int[]> mappings = new ArrayList<>();
+        final TreeMap<String, SearchSegment.PostingsWriter> postings = new TreeMap<>();
+        for (final SearchSegment source : sources) {
+            final int[] mapping = new int[source.getDocumentCount()];
+            for (int document = 0; document < mapping.length; document++) {
+                final SearchSegment.Document info = source.getDocument(document);
+                final LiveDocument liveDocument = live.get(info.threadId());
+                if (liveDocument != null && liveDocument.sequence() == info.sequence()) {
+                    mapping[document] = documents.size();
+                    documents.add(info);
+                } else {
+                    mapping[document] = -1;
+                }
+            }
+            mappings.add(mapping);
+            for (final String term : source.getTerms()) {
+                postings.putIfAbsent(term, null);
+            }
+        }
+        if (documents.isEmpty()) {
+            return null;
+        }
+        for (final Map.Entry<String, SearchSegment.PostingsWriter> entry : postings.entrySet()) {
+            final SearchSegment.PostingsWriter writer = new SearchSegment.PostingsWriter();
+            for (int i = 0; i < sources.size(); i++) {
+                final int[] mapping = mappings.get(i);
+                sources.get(i).readPostings(entry.getKey(), (document, frequency) -> {
+                    if (mapping[document] >= 0) {
+                        writer.add(mapping[document], frequency);
+                    }
+                });
+            }
+            entry.setValue(writer);
+        }
+        postings.values().removeIf(writer -> writer.getDocumentFrequency() == 0);
+        final int number = nextSegment++;
+        final int[] sourceNumbers = sources.stream().mapToInt(SearchSegment::getNumber).toArray();
+        return SearchSegment.write(number, segmentPath(number), sourceNumbers,
+                documents.toArray(new SearchSegment.Document[0]), postings);
+    }
+
+    private void rewriteDeletions() throws IOException {
+        final Path file = directory.resolve(DELETIONS_FILE);
+        final Path temp = directory.resolve(DELETIONS_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+            for (final SearchSegment segment : segments) {
+                for (int document = 0; document < segment.getDocumentCount(); document++) {
+                    final SearchSegment.Document info = segment.getDocument(document);
+                    final LiveDocument liveDocument = live.get(info.threadId());
+                    if (liveDocument == null || liveDocument.sequence() != info.sequence()) {
+                        out.writeLong(info.threadId());
+                        out.writeLong(info.sequence());
+                    }
+                }
+            }
+        }
+        deletions.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deletions = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    private Path segmentPath(final int number) {
+        return directory.resolve("segment-%06d.idx".formatted(number));
+    }
+
+    /**
+     * The live document of a Post.
+     *
+     * @param sequence the sequence number of the document
+     * @param length   the number of terms in the document
+     */
+    private record LiveDocument(long sequence, int length) {
+    }
+
+    /**
+     * A search result.
+     *
+     * @param threadId the ID of the Post
+     * @param score    the BM25 score
+     */
+    public record Hit(long threadId, double score) {
+    }
+}
@@ -0,0 +1,362 @@
+package org.betonquest.discordbot.modules.search;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * An immutable segment of the {@link SearchIndex}, stored in a memory-mapped file.
+ * <p>
+ * A segment contains the numbers of the segments it was merged from, a table of its documents
+ * and the postings of each term.
+ * The postings of a term are the document numbers as deltas and the term frequencies, both as variable length
+ * integers. The term dictionary is read into memory when the segment is opened, the documents and postings
+ * are read from the mapped file.
+ */
+/* default */ final class SearchSegment {
+    /**
+     * The marker at the start of a segment file.
+     */
+    private static final int MAGIC = 0x4253_4547;
+
+    /**
+     * The size of the header in bytes: marker, document count, term count, postings offset and source count.
+     */
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+    /**
+     * The size of a document entry in bytes: Post ID, sequence number and length.
+     */
+    private static final int DOCUMENT_SIZE = 2 * Long.BYTES + Integer.BYTES;
+
+    /**
+     * The segment number, that is part of the file name.
+     */
+    private final int number;
+
+    /**
+     * The segment file.
+     */
+    private final Path file;
+
+    /**
+     * The mapped segment file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The numbers of the segments this segment was merged from.
+     */
+    private final int[] sources;
+
+    /**
+     * The offset of the document table.
+     */
+    private final int documentsOffset;
+
+    /**
+     * The number of documents.
+     */
+    private final int documentCount;
+
+    /**
+     * The postings of each term.
+     */
+    private final Map<String, TermInfo> terms;
+
+    private SearchSegment(final int number, final Path file) throws IOException {
+        this.number = number;
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("The search segment '" + file + "' is invalid!");
+        }
+        this.documentCount = buffer.getInt(Integer.BYTES);
+        final int termCount = buffer.getInt(2 * Integer.BYTES);
+        final int postingsOffset = buffer.getInt(3 * Integer.BYTES);
+        this.sources = new int[buffer.getInt(4 * Integer.BYTES)];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = buffer.getInt(HEADER_SIZE + i * Integer.BYTES);
+        }
+        this.documentsOffset = HEADER_SIZE + sources.length * Integer.BYTES;
+        this.terms = new HashMap<>(termCount * 4 / 3 + 1);
+        int position = documentsOffset + documentCount * DOCUMENT_SIZE;
+        for (int i = 0; i < termCount; i++) {
+            final byte[] term = new byte[Short.toUnsignedInt(buffer.getShort(position))];
+            buffer.get(position + Short.BYTES, term);
+            position += Short.BYTES + term.length;
+            terms.put(new String(term, StandardCharsets.UTF_8), new TermInfo(buffer.getInt(position),
+                    postingsOffset + buffer.getInt(position + Integer.BYTES)));
+            position += 2 * Integer.BYTES;
+        }
+    }
+
+    /**
+     * Opens an existing segment.
+     *
+     * @param number the segment number
+     * @param file   the segment file
+     * @return the segment
+     * @throws IOException if the file could not be read or is invalid
+     */
+    /* default */ static SearchSegment open(final int number, final Path file) throws IOException {
+        return new SearchSegment(number, file);
+    }
+
+    /**
+     * Writes a new segment and opens it.
+     * The file is written to a temporary file first, so a segment file is always complete.
+     *
+     * @param number    the segment number
+     * @param file      the segment file
+     * @param sources   the numbers of the segments the new segment is merged from
+     * @param documents the documents, the document number is the index in the array
+     * @param postings  the postings of each term
+     * @return the segment
+     * @throws IOException if the file could not be written
+     */
+    /* default */ static SearchSegment write(final int number, final Path file, final int[] sources,
+                                            final Document[] documents,
+                                            final SortedMap<String, PostingsWriter> postings) throws IOException {
+        final ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+        final DataOutputStream dictionaryOut = new DataOutputStream(dictionary);
+        int postingsSize = 0;
+        for (final Map.Entry<String, PostingsWriter> entry : postings.entrySet()) {
+            final byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            dictionaryOut.writeShort(term.length);
+            dictionaryOut.write(term);
+            dictionaryOut.writeInt(entry.getValue().getDocumentFrequency());
+            dictionaryOut.writeInt(postingsSize);
+            postingsSize += entry.getValue().size();
+        }
+        final int documentsOffset = HEADER_SIZE + sources.length * Integer.BYTES;
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(documents.length);
+            out.writeInt(postings.size());
+            out.writeInt(documentsOffset + documents.length * DOCUMENT_SIZE + dictionary.size());
+            out.writeInt(sources.length);
+            for (final int source : sources) {
+                out.writeInt(source);
+            }
+            for (final Document document : documents) {
+                out.writeLong(document.threadId());
+                out.writeLong(document.sequence());
+                out.writeInt(document.length());
+            }
+            dictionary.writeTo(out);
+            for (final PostingsWriter writer : postings.values()) {
+                writer.writeTo(out);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new SearchSegment(number, file);
+    }
+
+    /**
+     * Gets the segment number.
+     *
+     * @return the segment number
+     */
+    /* default */ int getNumber() {
+        return number;
+    }
+
+    /**
+     * Gets the numbers of the segments this segment was merged from.
+     *
+     * @return the segment numbers
+     */
+    /* default */ int[] getSources() {
+        return sources.clone();
+    }
+
+    /**
+     * Gets the segment file.
+     *
+     * @return the segment file
+     */
+    /* default */ Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the number of documents.
+     *
+     * @return the number of documents
+     */
+    /* default */ int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * Gets a document.
+     *
+     * @param document the document number
+     * @return the document
+     */
+    /* default */ Document getDocument(final int document) {
+        final int offset = documentsOffset + document * DOCUMENT_SIZE;
+        return new Document(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES),
+                buffer.getInt(offset + 2 * Long.BYTES));
+    }
+
+    /**
+     * Gets the length of a document.
+     *
+     * @param document the document number
+     * @return the number of terms in the document
+     */
+    /* default */ int getLength(final int document) {
+        return buffer.getInt(documentsOffset + document * DOCUMENT_SIZE + 2 * Long.BYTES);
+    }
+
+    /**
+     * Gets the terms of this segment.
+     *
+     * @return the terms
+     */
+    /* default */ Iterable<String> getTerms() {
+        return terms.keySet();
+    }
+
+    /**
+     * Reads the postings of a term.
+     *
+     * @param term     the term
+     * @param consumer the consumer of document number and term frequency
+     */
+    /* default */ void readPostings(final String term, final PostingConsumer consumer) {
+        final TermInfo info = terms.get(term);
+        if (info == null) {
+            return;
+        }
+        final int[] position = {info.offset()};
+        int document = 0;
+        for (int i = 0; i < info.documentFrequency(); i++) {
+            document += readVarInt(position);
+            consumer.accept(document, readVarInt(position));
+        }
+    }
+
+    private int readVarInt(final int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = buffer.get(position[0]++);
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while (current < 0);
+        return value;
+    }
+
+    /**
+     * The document frequency and postings offset of a term.
+     *
+     * @param documentFrequency the number of documents containing the term
+     * @param offset            the offset of the postings in the file
+     */
+    private record TermInfo(int documentFrequency, int offset) {
+    }
+
+    /**
+     * A document of a segment.
+     *
+     * @param threadId the ID of the Post
+     * @param sequence the sequence number, that is increased for each added document
+     * @param length   the number of terms in the document
+     */
+    /* default */ record Document(long threadId, long sequence, int length) {
+    }
+
+    /**
+     * A consumer of postings.
+     */
+    @FunctionalInterface
+    /* default */ interface PostingConsumer {
+        /**
+         * Accepts a posting.
+         *
+         * @param document      the document number
+         * @param termFrequency the number of occurrences of the term in the document
+         */
+        void accept(int document, int termFrequency);
+    }
+
+    /**
+     * Encodes the postings of one term for a new segment. Documents must be added in ascending order.
+     */
+    /* default */ static final class PostingsWriter {
+        /**
+         * The encoded postings.
+         */
+        private final ByteArrayOutputStream bytes;
+
+        /**
+         * The number of added documents.
+         */
+        private int documentFrequency;
+
+        /**
+         * The last added document number.
+         */
+        private int lastDocument;
+
+        /**
+         * Creates an empty postings writer.
+         */
+        /* default */ PostingsWriter() {
+            this.bytes = new ByteArrayOutputStream();
+        }
+
+        /**
+         * Adds a posting.
+         *
+         * @param document      the document number
+         * @param termFrequency the number of occurrences of the term in the document
+         */
+        /* default */ void add(final int document, final int termFrequency) {
+            writeVarInt(document - lastDocument);
+            writeVarInt(termFrequency);
+            lastDocument = document;
+            documentFrequency++;
+        }
+
+        /* default */ int getDocumentFrequency() {
+            return documentFrequency;
+        }
+
+        /* default */ int size() {
+            return bytes.size();
+        }
+
+        /* default */ void writeTo(final OutputStream out) throws IOException {
+            bytes.writeTo(out);
+        }
+
+        private void writeVarInt(final int value) {
+            int remaining = value;
+            while ((remaining & ~0x7F) != 0) {
+                bytes.write(remaining & 0x7F | 0x80);
+                remaining >>>= 7;
+            }
+            bytes.write(remaining);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Search module.
+ */
+package org.betonquest.discordbot.modules.search;
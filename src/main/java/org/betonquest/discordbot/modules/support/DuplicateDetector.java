@@ -0,0 +1,103 @@
+package org.betonquest.discordbot.modules.support;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.session.ShutdownEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Replies to new Support Posts with similar solved Posts, that might already answer the question.
+ * <p>
+ * Solved Posts are added to the {@link DuplicateIndex} with their title and first message.
+ * A new Post is detected by its first message, as it is sent after the Post was created.
+ */
+public class DuplicateDetector extends ListenerAdapter implements SolvedPosts.Listener {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(DuplicateDetector.class);
+
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The {@link DuplicateIndex} of solved Posts.
+     */
+    private final DuplicateIndex index;
+
+    /**
+     * Create a new {@link DuplicateDetector}.
+     *
+     * @param api         the {@link JDA} instance
+     * @param config      the {@link BetonBotConfig} instance
+     * @param index       the {@link DuplicateIndex} of solved Posts
+     * @param solvedPosts the {@link SolvedPosts} to index solved Posts from
+     */
+    public DuplicateDetector(final JDA api, final BetonBotConfig config, final DuplicateIndex index,
+                             final SolvedPosts solvedPosts) {
+        super();
+        this.config = config;
+        this.index = index;
+        if (!config.supportDuplicatesEnabled) {
+            return;
+        }
+        solvedPosts.addListener(this);
+        api.addEventListener(this);
+    }
+
+    @Override
+    public void onSolved(final ThreadChannel channel, final Message message) {
+        if (!index.contains(channel.getIdLong())) {
+            index.add(channel.getIdLong(), DuplicateIndex.signature(getText(channel, message)));
+        }
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull final MessageReceivedEvent event) {
+        if (!event.isFromThread() || event.getAuthor().isBot()
+                || event.getMessageIdLong() != event.getChannel().getIdLong()) {
+            return;
+        }
+        final ThreadChannel channel = event.getChannel().asThreadChannel();
+        if (!config.supportChannelIDs.contains(channel.getParentChannel().getIdLong())) {
+            return;
+        }
+        final List<DuplicateIndex.Match> matches = index.query(
+                DuplicateIndex.signature(getText(channel, event.getMessage())), channel.getIdLong(),
+                config.supportDuplicatesMinSimilarity / 100.0, config.supportDuplicatesResults);
+        if (matches.isEmpty()) {
+            return;
+        }
+        final String posts = matches.stream()
+                .map(match -> "<#" + match.threadId() + "> (" + Math.round(match.similarity() * 100) + "%)")
+                .collect(Collectors.joining("\n"));
+        Tracer.queue("sendMessageEmbeds", channel.sendMessageEmbeds(
+                config.supportDuplicatesEmbed.variable("posts", posts).getEmbed()));
+    }
+
+    @Override
+    public void onShutdown(@NotNull final ShutdownEvent event) {
+        try {
+            index.close();
+        } catch (final IOException e) {
+            LOGGER.warn("Error while closing duplicate index.", e);
+        }
+    }
+
+    private String getText(final ThreadChannel channel, final Message message) {
+        return channel.getName() + "\n" + message.getContentRaw();
+    }
+}
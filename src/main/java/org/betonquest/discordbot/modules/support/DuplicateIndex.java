@@ -0,0 +1,354 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A near-duplicate index of solved Support Posts.
+ * <p>
+ * Each Post is represented by a MinHash signature of the character shingles of its text.
+ * The signatures are split into bands for locality sensitive hashing, so a query only compares
+ * the signatures of Posts that share at least one band with it, instead of all indexed Posts.
+ * Each band is a sorted array of band hash and Post, that is searched with a binary search.
+ * <p>
+ * The signatures are appended to a file, so the index is loaded instead of rebuilt on startup.
+ */
+public class DuplicateIndex implements Closeable {
+    /**
+     * The number of hash functions of a signature.
+     */
+    public static final int SIGNATURE_SIZE = 128;
+
+    /**
+     * The number of signature values in a band. With 32 bands Posts with a similarity of about 42% and more
+     * share a band with a probability of at least 50%.
+     */
+    private static final int ROWS_PER_BAND = 4;
+
+    /**
+     * The number of bands of a signature.
+     */
+    private static final int BANDS = SIGNATURE_SIZE / ROWS_PER_BAND;
+
+    /**
+     * The length of a character shingle.
+     */
+    private static final int SHINGLE_LENGTH = 5;
+
+    /**
+     * The maximum number of characters of a text that are used for the signature.
+     */
+    private static final int MAX_TEXT_LENGTH = 4000;
+
+    /**
+     * The marker at the start of the index file, including the signature size, to detect incompatible files.
+     */
+    private static final int FILE_HEADER = 0x4D48_0000 | SIGNATURE_SIZE;
+
+    /**
+     * The size of one record in the index file in bytes: Post ID and signature.
+     */
+    private static final int RECORD_SIZE = Long.BYTES + SIGNATURE_SIZE * Integer.BYTES;
+
+    /**
+     * The mask of the Post index in a band entry.
+     */
+    private static final long DOCUMENT_MASK = 0xFFFF_FFFFL;
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(DuplicateIndex.class);
+
+    /**
+     * The hash function for shingles.
+     */
+    private static final HashFunction SHINGLE_HASH = Hashing.murmur3_128();
+
+    /**
+     * The seeds of the hash functions of a signature. They are fixed, as signatures are persisted.
+     */
+    private static final long[] SEEDS = createSeeds();
+
+    /**
+     * The channel to append to the index file.
+     */
+    private final FileChannel fileChannel;
+
+    /**
+     * The index of each Post by its ID.
+     */
+    private final Map<Long, Integer> documents;
+
+    /**
+     * The entries of each band, sorted. An entry is the band hash in the upper and the Post index in the lower bits.
+     */
+    private final long[][] bands;
+
+    /**
+     * The Post IDs by their index.
+     */
+    private long[] threadIds;
+
+    /**
+     * The signatures by Post index.
+     */
+    private int[][] signatures;
+
+    /**
+     * The number of indexed Posts.
+     */
+    private int size;
+
+    /**
+     * Opens the index stored in the given file.
+     *
+     * @param file the index file
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    public DuplicateIndex(final Path file) throws IOException {
+        this.documents = new HashMap<>();
+        this.threadIds = new long[64];
+        this.signatures = new int[64][];
+        this.bands = new long[BANDS][];
+        this.fileChannel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+    }
+
+    /**
+     * Computes the signature of a text.
+     *
+     * @param text the text
+     * @return the signature
+     */
+    public static int[] signature(final String text) {
+        final String normalized = normalize(text);
+        final int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        final int shingles = Math.max(1, normalized.length() - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < shingles; start++) {
+            final String shingle = normalized.substring(start, Math.min(normalized.length(), start + SHINGLE_LENGTH));
+            final long hash = SHINGLE_HASH.hashString(shingle, StandardCharsets.UTF_8).asLong();
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                final int value = (int) (mix(hash ^ SEEDS[i]) >>> Integer.SIZE);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Checks if a Post is indexed.
+     *
+     * @param threadId the ID of the Post
+     * @return true if the Post is indexed
+     */
+    public synchronized boolean contains(final long threadId) {
+        return documents.containsKey(threadId);
+    }
+
+    /**
+     * Adds a Post to the index and appends it to the index file. Posts that are already indexed are ignored.
+     *
+     * @param threadId  the ID of the Post
+     * @param signature the signature of the Post
+     */
+    public synchronized void add(final long threadId, final int[] signature) {
+        if (documents.containsKey(threadId)) {
+            return;
+        }
+        final int document = addDocument(threadId, signature);
+        for (int band = 0; band < BANDS; band++) {
+            final long entry = entry(bandHash(signature, band), document);
+            final long[] entries = bands[band];
+            final int insertion = -Arrays.binarySearch(entries, entry) - 1;
+            final long[] grown = new long[entries.length + 1];
+            System.arraycopy(entries, 0, grown, 0, insertion);
+            grown[insertion] = entry;
+            System.arraycopy(entries, insertion, grown, insertion + 1, entries.length - insertion);
+            bands[band] = grown;
+        }
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).putLong(threadId);
+        record.asIntBuffer().put(signature);
+        try {
+            fileChannel.write(record.rewind(), fileChannel.size());
+            fileChannel.force(false);
+        } catch (final IOException e) {
+            LOGGER.warn("Error while writing duplicate index.", e);
+        }
+    }
+
+    /**
+     * Finds the indexed Posts that are most similar to a signature.
+     *
+     * @param signature     the signature to search for
+     * @param excludeId     the ID of a Post that should not be returned, usually the Post of the signature
+     * @param minSimilarity the minimal estimated similarity between 0 and 1
+     * @param limit         the maximum number of results
+     * @return the matches, ordered from most to least similar
+     */
+    public synchronized List<Match> query(final int[] signature, final long excludeId, final double minSimilarity,
+                                          final int limit) {
+        final BitSet candidates = new BitSet(size);
+        for (int band = 0; band < BANDS; band++) {
+            final long[] entries = bands[band];
+            final long first = entry(bandHash(signature, band), 0);
+            int index = Arrays.binarySearch(entries, first);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            while (index < entries.length && (entries[index] & ~DOCUMENT_MASK) == first) {
+                candidates.set((int) (entries[index] & DOCUMENT_MASK));
+                index++;
+            }
+        }
+        final List<Match> matches = new ArrayList<>();
+        for (int document = candidates.nextSetBit(0); document >= 0; document = candidates.nextSetBit(document + 1)) {
+            final double similarity = similarity(signature, signatures[document]);
+            if (similarity >= minSimilarity && threadIds[document] != excludeId) {
+                matches.add(new Match(threadIds[document], similarity));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::similarity).reversed());
+        return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Gets the number of indexed Posts.
+     *
+     * @return the number of Posts
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        fileChannel.close();
+    }
+
+    private void load() throws IOException {
+        final long fileSize = fileChannel.size();
+        final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        if (fileSize < Integer.BYTES || fileChannel.read(header, 0) < Integer.BYTES
+                || header.getInt(0) != FILE_HEADER) {
+            if (fileSize > 0) {
+                LOGGER.warn("The duplicate index file has an unknown format and is recreated.");
+            }
+            fileChannel.truncate(0);
+            fileChannel.write(header.putInt(0, FILE_HEADER).rewind(), 0);
+            Arrays.fill(bands, new long[0]);
+            return;
+        }
+        final long records = (fileSize - Integer.BYTES) / RECORD_SIZE;
+        final long validSize = Integer.BYTES + records * RECORD_SIZE;
+        if (validSize != fileSize) {
+            LOGGER.warn("Removing an incomplete record from the duplicate index file.");
+            fileChannel.truncate(validSize);
+        }
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        for (long position = Integer.BYTES; position < validSize; position += RECORD_SIZE) {
+            record.clear();
+            fileChannel.read(record, position);
+            final long threadId = record.getLong(0);
+            if (!documents.containsKey(threadId)) {
+                final int[] signature = new int[SIGNATURE_SIZE];
+                record.position(Long.BYTES).asIntBuffer().get(signature);
+                addDocument(threadId, signature);
+            }
+        }
+        for (int band = 0; band < BANDS; band++) {
+            final long[] entries = new long[size];
+            for (int document = 0; document < size; document++) {
+                entries[document] = entry(bandHash(signatures[document], band), document);
+            }
+            Arrays.sort(entries);
+            bands[band] = entries;
+        }
+        LOGGER.info("Loaded {} Posts into the duplicate index.", size);
+    }
+
+    private int addDocument(final long threadId, final int[] signature) {
+        if (size == threadIds.length) {
+            threadIds = Arrays.copyOf(threadIds, size * 2);
+            signatures = Arrays.copyOf(signatures, size * 2);
+        }
+        threadIds[size] = threadId;
+        signatures[size] = signature.clone();
+        documents.put(threadId, size);
+        return size++;
+    }
+
+    private static String normalize(final String text) {
+        final String limited = text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
+        return limited.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").strip();
+    }
+
+    private static double similarity(final int[] first, final int[] second) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    private static int bandHash(final int[] signature, final int band) {
+        long hash = band;
+        for (int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+            hash = mix(hash * 31 + signature[row]);
+        }
+        return (int) hash;
+    }
+
+    private static long entry(final int bandHash, final int document) {
+        return (long) bandHash << Integer.SIZE | document;
+    }
+
+    private static long mix(final long value) {
+        long mixed = (value ^ value >>> 33) * 0xFF51_AFD7_ED55_8CCDL;
+        mixed = (mixed ^ mixed >>> 33) * 0xC4CE_B9FE_1A85_EC53L;
+        return mixed ^ mixed >>> 33;
+    }
+
+    private static long[] createSeeds() {
+        final long[] seeds = new long[SIGNATURE_SIZE];
+        long state = 0x5DEE_CE66_DL;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            state += 0x9E37_79B9_7F4A_7C15L;
+            seeds[i] = mix(state);
+        }
+        return seeds;
+    }
+
+    /**
+     * An indexed Post that is similar to a query.
+     *
+     * @param threadId   the ID of the Post
+     * @param similarity the estimated similarity between 0 and 1
+     */
+    public record Match(long threadId, double similarity) {
+    }
+}
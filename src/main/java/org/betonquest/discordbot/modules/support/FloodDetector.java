@@ -0,0 +1,132 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.betonquest.discordbot.ClockTicker;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Detects floods of messages in Support Posts and stops them.
+ * <p>
+ * Messages are counted per user and Post and per Post in {@link SlidingCountMinSketch}es, so the memory is fixed
+ * and counting needs no lock on the event threads. A user exceeding the configured number of messages in the window
+ * is timed out, and a Post exceeding its limit is locked. Members that can manage messages are never timed out.
+ */
+public class FloodDetector extends ListenerAdapter {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(FloodDetector.class);
+
+    /**
+     * The number of counters per row of a sketch.
+     */
+    private static final int SKETCH_WIDTH = 4096;
+
+    /**
+     * The number of buckets of the sliding window.
+     */
+    private static final int WINDOW_BUCKETS = 6;
+
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The clock to read the current time from.
+     */
+    private final Clock clock;
+
+    /**
+     * The messages per user and Post.
+     */
+    private final SlidingCountMinSketch userMessages;
+
+    /**
+     * The messages per Post.
+     */
+    private final SlidingCountMinSketch threadMessages;
+
+    /**
+     * The keys that were already acted on in the current window.
+     */
+    private final Cache<Long, Boolean> handled;
+
+    /**
+     * Create a new {@link FloodDetector}.
+     *
+     * @param api    the {@link JDA} instance
+     * @param config the {@link BetonBotConfig} instance
+     * @param clock  the clock to read the current time from
+     */
+    public FloodDetector(final JDA api, final BetonBotConfig config, final Clock clock) {
+        super();
+        this.config = config;
+        this.clock = clock;
+        final long windowMillis = Duration.ofSeconds(config.supportFloodWindow).toMillis();
+        this.userMessages = new SlidingCountMinSketch(SKETCH_WIDTH, WINDOW_BUCKETS, windowMillis);
+        this.threadMessages = new SlidingCountMinSketch(SKETCH_WIDTH, WINDOW_BUCKETS, windowMillis);
+        this.handled = CacheBuilder.newBuilder()
+                .ticker(new ClockTicker(clock))
+                .expireAfterWrite(Duration.ofMillis(windowMillis))
+                .build();
+        if (!config.supportFloodEnabled) {
+            return;
+        }
+        api.addEventListener(this);
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull final MessageReceivedEvent event) {
+        if (!event.isFromThread() || event.getAuthor().equals(event.getJDA().getSelfUser())) {
+            return;
+        }
+        final ThreadChannel channel = event.getChannel().asThreadChannel();
+        if (!config.supportChannelIDs.contains(channel.getParentChannel().getIdLong())) {
+            return;
+        }
+        final long now = clock.millis();
+        final long userKey = event.getAuthor().getIdLong() * 31 + channel.getIdLong();
+        if (userMessages.add(userKey, now) > config.supportFloodUserMessages) {
+            timeout(event.getMember(), channel, userKey);
+        }
+        if (threadMessages.add(channel.getIdLong(), now) > config.supportFloodThreadMessages) {
+            lock(channel);
+        }
+    }
+
+    private void timeout(@Nullable final Member member, final ThreadChannel channel, final long userKey) {
+        if (member == null || config.supportFloodTimeout <= 0
+                || member.hasPermission(channel.getParentChannel(), Permission.MESSAGE_MANAGE)
+                || handled.asMap().putIfAbsent(userKey, true) != null) {
+            return;
+        }
+        LOGGER.info("Timing out {} for flooding the Post {}.", member.getIdLong(), channel.getIdLong());
+        Tracer.queue("timeoutFor", member.timeoutFor(Duration.ofMinutes(config.supportFloodTimeout)), null,
+                failure -> LOGGER.warn("Could not time out {} for flooding.", member.getIdLong(), failure));
+    }
+
+    private void lock(final ThreadChannel channel) {
+        if (channel.isLocked() || handled.asMap().putIfAbsent(~channel.getIdLong(), true) != null) {
+            return;
+        }
+        LOGGER.info("Locking the flooded Post {}.", channel.getIdLong());
+        Tracer.queue("setLocked", channel.getManager().setLocked(true), null,
+                failure -> LOGGER.warn("Could not lock the flooded Post {}.", channel.getIdLong(), failure));
+    }
+}
@@ -0,0 +1,202 @@
+package org.betonquest.discordbot.modules.support;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A binary min-heap of keys by priority, with an index of the position of each key.
+ * Inserting, updating and removing a key takes O(log n), reading the smallest k keys takes O(k log k).
+ * <p>
+ * This class is not thread-safe.
+ */
+/* default */ final class IndexedHeap {
+    /**
+     * The initial capacity of the heap.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The position of each key in the heap.
+     */
+    private final Map<Long, Integer> positions;
+
+    /**
+     * The keys in heap order.
+     */
+    private long[] keys;
+
+    /**
+     * The priorities in heap order.
+     */
+    private long[] priorities;
+
+    /**
+     * The number of keys.
+     */
+    private int size;
+
+    /**
+     * Creates an empty heap.
+     */
+    /* default */ IndexedHeap() {
+        this.positions = new HashMap<>();
+        this.keys = new long[INITIAL_CAPACITY];
+        this.priorities = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Checks if a key is in the heap.
+     *
+     * @param key the key
+     * @return true if the key is in the heap
+     */
+    /* default */ boolean contains(final long key) {
+        return positions.containsKey(key);
+    }
+
+    /**
+     * Gets the priority of a key.
+     *
+     * @param key the key
+     * @return the priority, or null if the key is not in the heap
+     */
+    @Nullable
+    /* default */ Long getPriority(final long key) {
+        final Integer position = positions.get(key);
+        return position == null ? null : priorities[position];
+    }
+
+    /**
+     * Inserts a key or changes its priority.
+     *
+     * @param key      the key
+     * @param priority the priority, smaller is first
+     */
+    /* default */ void put(final long key, final long priority) {
+        final Integer position = positions.get(key);
+        if (position != null) {
+            final long previous = priorities[position];
+            priorities[position] = priority;
+            if (priority < previous) {
+                siftUp(position);
+            } else {
+                siftDown(position);
+            }
+            return;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        keys[size] = key;
+        priorities[size] = priority;
+        positions.put(key, size);
+        siftUp(size++);
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key
+     */
+    /* default */ void remove(final long key) {
+        final Integer position = positions.remove(key);
+        if (position == null) {
+            return;
+        }
+        size--;
+        if (position == size) {
+            return;
+        }
+        keys[position] = keys[size];
+        priorities[position] = priorities[size];
+        positions.put(keys[position], position);
+        siftUp(position);
+        siftDown(positions.get(keys[position]));
+    }
+
+    /**
+     * Gets the number of keys.
+     *
+     * @return the number of keys
+     */
+    /* default */ int size() {
+        return size;
+    }
+
+    /**
+     * Gets the keys with the smallest priorities, without removing them.
+     *
+     * @param limit the maximum number of keys
+     * @return the keys and priorities, ordered by priority
+     */
+    /* default */ Entry[] smallest(final int limit) {
+        final Entry[] result = new Entry[Math.min(limit, size)];
+        final PriorityQueue<Integer> candidates = new PriorityQueue<>(
+                (first, second) -> Long.compare(priorities[first], priorities[second]));
+        if (size > 0) {
+            candidates.add(0);
+        }
+        for (int i = 0; i < result.length; i++) {
+            final int position = candidates.poll();
+            result[i] = new Entry(keys[position], priorities[position]);
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                candidates.add(child);
+            }
+        }
+        return result;
+    }
+
+    private void siftUp(final int start) {
+        int position = start;
+        while (position > 0) {
+            final int parent = (position - 1) / 2;
+            if (priorities[parent] <= priorities[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(final int start) {
+        int position = start;
+        while (true) {
+            final int left = 2 * position + 1;
+            if (left >= size) {
+                return;
+            }
+            final int right = left + 1;
+            final int smallest = right < size && priorities[right] < priorities[left] ? right : left;
+            if (priorities[position] <= priorities[smallest]) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(final int first, final int second) {
+        final long key = keys[first];
+        final long priority = priorities[first];
+        keys[first] = keys[second];
+        priorities[first] = priorities[second];
+        keys[second] = key;
+        priorities[second] = priority;
+        positions.put(keys[first], first);
+        positions.put(keys[second], second);
+    }
+
+    /**
+     * A key in the heap.
+     *
+     * @param key      the key
+     * @param priority the priority
+     */
+    /* default */ record Entry(long key, long priority) {
+    }
+}
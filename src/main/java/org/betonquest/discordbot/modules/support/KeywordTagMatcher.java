@@ -0,0 +1,178 @@
+package org.betonquest.discordbot.modules.support;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Matches keywords to forum tags with an Aho-Corasick automaton.
+ * <p>
+ * All keywords of all tags are compiled into one automaton, so a text is matched in a single pass,
+ * independent of the number of keywords. Keywords are matched case-insensitive and only as whole words.
+ * The automaton is immutable and built once from the rules.
+ */
+public class KeywordTagMatcher {
+    /**
+     * The characters of the transitions of each state, sorted.
+     */
+    private final char[][] transitionChars;
+
+    /**
+     * The target states of the transitions of each state, in the order of {@link #transitionChars}.
+     */
+    private final int[][] transitionTargets;
+
+    /**
+     * The failure state of each state, the state of the longest proper suffix that is also in the automaton.
+     */
+    private final int[] failures;
+
+    /**
+     * The keywords that end in each state, including those of the failure states.
+     */
+    private final int[][] outputs;
+
+    /**
+     * The length of each keyword.
+     */
+    private final int[] keywordLengths;
+
+    /**
+     * The tag ID of each keyword.
+     */
+    private final long[] keywordTags;
+
+    /**
+     * Builds the automaton for the given rules.
+     *
+     * @param rules the keywords of each tag ID
+     */
+    public KeywordTagMatcher(final Map<Long, ? extends Collection<String>> rules) {
+        final List<Map<Character, Integer>> children = new ArrayList<>();
+        final List<List<Integer>> endingKeywords = new ArrayList<>();
+        children.add(new TreeMap<>());
+        endingKeywords.add(new ArrayList<>());
+        final List<Integer> lengths = new ArrayList<>();
+        final List<Long> tags = new ArrayList<>();
+        for (final Map.Entry<Long, ? extends Collection<String>> rule : rules.entrySet()) {
+            for (final String keyword : rule.getValue()) {
+                final String normalized = keyword.strip();
+                if (normalized.isEmpty()) {
+                    continue;
+                }
+                int state = 0;
+                for (int i = 0; i < normalized.length(); i++) {
+                    final char character = Character.toLowerCase(normalized.charAt(i));
+                    Integer next = children.get(state).get(character);
+                    if (next == null) {
+                        next = children.size();
+                        children.add(new TreeMap<>());
+                        endingKeywords.add(new ArrayList<>());
+                        children.get(state).put(character, next);
+                    }
+                    state = next;
+                }
+                endingKeywords.get(state).add(tags.size());
+                lengths.add(normalized.length());
+                tags.add(rule.getKey());
+            }
+        }
+        final int states = children.size();
+        this.transitionChars = new char[states][];
+        this.transitionTargets = new int[states][];
+        for (int state = 0; state < states; state++) {
+            final Map<Character, Integer> transitions = children.get(state);
+            transitionChars[state] = new char[transitions.size()];
+            transitionTargets[state] = new int[transitions.size()];
+            int index = 0;
+            for (final Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                transitionChars[state][index] = transition.getKey();
+                transitionTargets[state][index] = transition.getValue();
+                index++;
+            }
+        }
+        this.failures = new int[states];
+        this.outputs = new int[states][];
+        outputs[0] = new int[0];
+        final Deque<Integer> queue = new ArrayDeque<>();
+        for (final int child : transitionTargets[0]) {
+            outputs[child] = toArray(endingKeywords.get(child));
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            for (int index = 0; index < transitionChars[state].length; index++) {
+                final char character = transitionChars[state][index];
+                final int child = transitionTargets[state][index];
+                int failure = failures[state];
+                while (failure != 0 && next(failure, character) < 0) {
+                    failure = failures[failure];
+                }
+                final int target = next(failure, character);
+                failures[child] = target < 0 ? 0 : target;
+                final int[] own = toArray(endingKeywords.get(child));
+                final int[] inherited = outputs[failures[child]];
+                outputs[child] = Arrays.copyOf(own, own.length + inherited.length);
+                System.arraycopy(inherited, 0, outputs[child], own.length, inherited.length);
+                queue.add(child);
+            }
+        }
+        this.keywordLengths = lengths.stream().mapToInt(Integer::intValue).toArray();
+        this.keywordTags = tags.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Checks if there are no keywords.
+     *
+     * @return true if no text can match
+     */
+    public boolean isEmpty() {
+        return keywordTags.length == 0;
+    }
+
+    /**
+     * Finds the tags whose keywords are contained in a text as whole words.
+     *
+     * @param text the text to match
+     * @return the matched tag IDs
+     */
+    public Set<Long> match(final CharSequence text) {
+        final Set<Long> matched = new HashSet<>();
+        int state = 0;
+        for (int position = 0; position < text.length(); position++) {
+            final char character = Character.toLowerCase(text.charAt(position));
+            int target = next(state, character);
+            while (target < 0 && state != 0) {
+                state = failures[state];
+                target = next(state, character);
+            }
+            state = target < 0 ? 0 : target;
+            for (final int keyword : outputs[state]) {
+                if (isBoundary(text, position - keywordLengths[keyword]) && isBoundary(text, position + 1)) {
+                    matched.add(keywordTags[keyword]);
+                }
+            }
+        }
+        return matched;
+    }
+
+    private int next(final int state, final char character) {
+        final int index = Arrays.binarySearch(transitionChars[state], character);
+        return index < 0 ? -1 : transitionTargets[state][index];
+    }
+
+    private static boolean isBoundary(final CharSequence text, final int position) {
+        return position < 0 || position >= text.length() || !Character.isLetterOrDigit(text.charAt(position));
+    }
+
+    private static int[] toArray(final List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
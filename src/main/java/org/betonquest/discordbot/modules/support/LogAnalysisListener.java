@@ -0,0 +1,203 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.threading.BotThreads;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Analyzes log files attached in Support Posts with the {@link LogAnalyzer} and answers with a summary.
+ * <p>
+ * The analysis runs on a bounded pool, further log files are skipped while the pool is busy. Results are cached by
+ * the ID of the attachment, so an attachment whose message is delivered again is answered without downloading and
+ * analyzing it again.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class LogAnalysisListener extends ListenerAdapter {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogAnalysisListener.class);
+
+    /**
+     * The number of cached results.
+     */
+    private static final int CACHE_SIZE = 256;
+
+    /**
+     * The maximum length of an embed variable, to stay below the field limit of Discord.
+     */
+    private static final int MAX_VARIABLE_LENGTH = 1000;
+
+    /**
+     * The file extensions of analyzed attachments.
+     */
+    private static final List<String> EXTENSIONS = List.of(".log", ".txt", ".log.gz");
+
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The analyzer of the log files.
+     */
+    private final LogAnalyzer analyzer;
+
+    /**
+     * The executor running the analysis.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * The permits for running and waiting analyses.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The results by the ID of the attachment.
+     */
+    private final Cache<Long, LogAnalyzer.Result> results;
+
+    /**
+     * Creates a new {@link LogAnalysisListener}, if enabled in the config.
+     *
+     * @param api     the {@link JDA} instance
+     * @param config  the {@link BetonBotConfig} instance
+     * @param threads the {@link BotThreads} to create the executor with
+     */
+    public LogAnalysisListener(final JDA api, final BetonBotConfig config, final BotThreads threads) {
+        super();
+        this.config = config;
+        this.analyzer = new LogAnalyzer(getMaxBytes());
+        final int poolSize = Math.max(1, config.supportLogAnalysisThreads);
+        this.executorService = threads.newFixedThreadPool("LogAnalyzer", poolSize);
+        this.permits = new Semaphore(2 * poolSize);
+        this.results = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+        if (config.supportLogAnalysisEnabled) {
+            api.addEventListener(this);
+        }
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull final MessageReceivedEvent event) {
+        if (!event.isFromThread() || event.getAuthor().isBot()) {
+            return;
+        }
+        final ThreadChannel channel = event.getChannel().asThreadChannel();
+        if (!config.supportChannelIDs.contains(channel.getParentChannel().getIdLong())) {
+            return;
+        }
+        for (final Message.Attachment attachment : event.getMessage().getAttachments()) {
+            if (!isLogFile(attachment)) {
+                continue;
+            }
+            if (!permits.tryAcquire()) {
+                LOGGER.debug("Skipped the log file {}, as the analysis is busy.", attachment.getId());
+                continue;
+            }
+            executorService.execute(() -> {
+                try {
+                    analyze(channel, attachment);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+    }
+
+    private boolean isLogFile(final Message.Attachment attachment) {
+        final String name = attachment.getFileName().toLowerCase(Locale.ROOT);
+        return EXTENSIONS.stream().anyMatch(name::endsWith)
+                && (name.endsWith(".gz") || attachment.getSize() <= getMaxBytes());
+    }
+
+    private long getMaxBytes() {
+        return config.supportLogAnalysisMaxSize * 1024L * 1024L;
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void analyze(final ThreadChannel channel, final Message.Attachment attachment) {
+        final LogAnalyzer.Result cached = results.getIfPresent(attachment.getIdLong());
+        if (cached != null) {
+            reply(channel, attachment, cached);
+            return;
+        }
+        final long timeout = TimeUnit.SECONDS.toNanos(config.supportLogAnalysisTimeout);
+        final long deadline = System.nanoTime() + timeout;
+        final CompletableFuture<InputStream> download = attachment.getProxy().download();
+        try (InputStream input = download.get(timeout, TimeUnit.NANOSECONDS)) {
+            final LogAnalyzer.Result result = analyzer.analyze(input,
+                    attachment.getFileName().toLowerCase(Locale.ROOT).endsWith(".gz"), deadline);
+            results.put(attachment.getIdLong(), result);
+            reply(channel, attachment, result);
+        } catch (final TimeoutException e) {
+            download.cancel(true);
+            LOGGER.info("The analysis of the log file {} timed out.", attachment.getId(), e);
+        } catch (final IOException | ExecutionException e) {
+            LOGGER.warn("Could not analyze the log file {}.", attachment.getId(), e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("The analysis of the log file {} was interrupted.", attachment.getId(), e);
+        } catch (final RuntimeException e) {
+            LOGGER.error("The analysis of the log file {} failed.", attachment.getId(), e);
+        }
+    }
+
+    private void reply(final ThreadChannel channel, final Message.Attachment attachment,
+                       final LogAnalyzer.Result result) {
+        Tracer.queue("sendMessageEmbeds", channel.sendMessageEmbeds(config.supportLogAnalysisEmbed
+                .variable("file", attachment.getFileName())
+                .variable("versions", limit(getVersions(result)))
+                .variable("exceptions", limit(getExceptions(result)))
+                .variable("betonquest", limit(String.join("\n", result.betonQuestLines())))
+                .variable("errors", String.valueOf(result.errors()))
+                .variable("warnings", String.valueOf(result.warnings()))
+                .variable("truncated", result.truncated() ? "yes" : "no")
+                .getEmbed()));
+    }
+
+    private String getVersions(final LogAnalyzer.Result result) {
+        final String server = result.serverVersion() == null ? "unknown" : result.serverVersion();
+        final String betonQuest = result.betonQuestVersion() == null ? "unknown" : result.betonQuestVersion();
+        return "Server: " + server + "\nBetonQuest: " + betonQuest + "\nPlugins: " + result.plugins().size();
+    }
+
+    private String getExceptions(final LogAnalyzer.Result result) {
+        if (result.stackTraces().isEmpty()) {
+            return "none";
+        }
+        return result.stackTraces().stream()
+                .map(trace -> trace.count() + "x `" + trace.header() + "`"
+                        + (trace.frames().isEmpty() ? "" : "\n" + trace.frames().get(0)))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private String limit(final String value) {
+        if (value.isEmpty()) {
+            return "none";
+        }
+        return value.length() <= MAX_VARIABLE_LENGTH ? value : value.substring(0, MAX_VARIABLE_LENGTH - 3) + "...";
+    }
+}
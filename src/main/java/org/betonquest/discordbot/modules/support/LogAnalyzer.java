@@ -0,0 +1,404 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Analyzes server and BetonQuest logs for the support.
+ * <p>
+ * A log is read as a stream line by line, so the memory is bounded by the maximum line length and the number of
+ * kept findings, independent of the size of the log. Only the configured number of bytes is read and the analysis
+ * is stopped at a deadline. The analyzer finds the server, BetonQuest and plugin versions, counts error and warning
+ * lines, keeps the first BetonQuest errors and warnings and groups the stack traces by exception and first frame.
+ * <p>
+ * The analyzer does not depend on Discord, sample logs can be analyzed offline with
+ * {@code java -cp DiscordBot.jar org.betonquest.discordbot.modules.support.LogAnalyzer <log files>}.
+ */
+public class LogAnalyzer {
+    /**
+     * The maximum number of characters of a line, the rest of a longer line is skipped.
+     */
+    public static final int MAX_LINE_LENGTH = 2000;
+
+    /**
+     * The maximum number of kept stack traces.
+     */
+    public static final int MAX_STACK_TRACES = 5;
+
+    /**
+     * The maximum number of kept frames of a stack trace and each of its causes.
+     */
+    public static final int MAX_FRAMES = 4;
+
+    /**
+     * The maximum number of kept causes of a stack trace.
+     */
+    public static final int MAX_CAUSES = 3;
+
+    /**
+     * The maximum number of kept BetonQuest error and warning lines.
+     */
+    public static final int MAX_BETONQUEST_LINES = 5;
+
+    /**
+     * The maximum number of kept plugins.
+     */
+    public static final int MAX_PLUGINS = 100;
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogAnalyzer.class);
+
+    /**
+     * The number of lines between two deadline checks.
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    /**
+     * The prefix of a log line with time, thread and level, like {@code [12:00:00] [Server thread/WARN]: } or
+     * {@code [12:00:00 WARN]: }.
+     */
+    private static final Pattern LINE_PREFIX = Pattern.compile(
+            "^\\[(?:[^\\]]*] \\[)?[^\\]]*?[ /](?<level>INFO|WARN|WARNING|ERROR|SEVERE|FATAL|DEBUG)]:? ?"
+                    + "(?:\\[[^\\]]*?] )?");
+
+    /**
+     * The version line of Paper and Spigot servers.
+     */
+    private static final Pattern SERVER_VERSION = Pattern.compile("This server is running (.+)$");
+
+    /**
+     * The version line of vanilla based servers.
+     */
+    private static final Pattern MINECRAFT_VERSION = Pattern.compile("Starting minecraft server version (\\S+)");
+
+    /**
+     * The line of a plugin that is loaded or enabled.
+     */
+    private static final Pattern PLUGIN = Pattern.compile("^(?:Loading|Enabling) (\\S+) v(\\S+)");
+
+    /**
+     * The first line of a stack trace.
+     */
+    private static final Pattern EXCEPTION = Pattern.compile(
+            "^(?:Caused by: )?(?:[a-zA-Z_$][\\w$]*\\.)+[\\w$]*(?:Exception|Error|Throwable)(?::.*)?$");
+
+    /**
+     * A frame of a stack trace.
+     */
+    private static final Pattern FRAME = Pattern.compile("^\\s+at \\S");
+
+    /**
+     * The maximum number of bytes read from a log.
+     */
+    private final long maxBytes;
+
+    /**
+     * Creates a new {@link LogAnalyzer}.
+     *
+     * @param maxBytes the maximum number of bytes read from a log, after decompression
+     */
+    public LogAnalyzer(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Analyzes log files offline and logs the results.
+     *
+     * @param args the log files, gzip compressed files must end with {@code .gz}
+     */
+    public static void main(final String[] args) {
+        final LogAnalyzer analyzer = new LogAnalyzer(Long.MAX_VALUE);
+        for (final String arg : args) {
+            final Path file = Paths.get(arg);
+            final long start = System.nanoTime();
+            try (InputStream input = Files.newInputStream(file)) {
+                final Result result = analyzer.analyze(input, arg.endsWith(".gz"), Long.MAX_VALUE);
+                LOGGER.info("{} analyzed in {} ms:\n{}", file, (System.nanoTime() - start) / 1_000_000, result);
+            } catch (final IOException | TimeoutException e) {
+                LOGGER.error("Could not analyze '{}'!", file, e);
+            }
+        }
+    }
+
+    /**
+     * Analyzes a log. The stream is not closed.
+     *
+     * @param input      the log
+     * @param compressed if the log is gzip compressed
+     * @param deadline   the {@link System#nanoTime()} at which the analysis is stopped
+     * @return the result
+     * @throws IOException      if the log could not be read
+     * @throws TimeoutException if the deadline passed
+     */
+    public Result analyze(final InputStream input, final boolean compressed, final long deadline)
+            throws IOException, TimeoutException {
+        final InputStream decoded = compressed ? new GZIPInputStream(input) : input;
+        final CountingInputStream counted = new CountingInputStream(
+                ByteStreams.limit(decoded, maxBytes == Long.MAX_VALUE ? maxBytes : maxBytes + 1));
+        final LineReader reader = new LineReader(new InputStreamReader(counted, StandardCharsets.UTF_8));
+        final Analysis analysis = new Analysis();
+        long lines = 0;
+        for (CharSequence line = reader.readLine(); line != null; line = reader.readLine()) {
+            analysis.accept(line);
+            if (++lines % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                throw new TimeoutException("The analysis did not finish in time after " + lines + " lines.");
+            }
+        }
+        analysis.finishTrace();
+        return analysis.toResult(counted.getCount() > maxBytes);
+    }
+
+    /**
+     * Reads lines of at most {@link #MAX_LINE_LENGTH} characters, the rest of a longer line is skipped.
+     */
+    private static final class LineReader {
+        /**
+         * The underlying reader.
+         */
+        private final Reader reader;
+
+        /**
+         * The read characters.
+         */
+        private final char[] buffer;
+
+        /**
+         * The current line.
+         */
+        private final StringBuilder line;
+
+        /**
+         * The position of the next character in the buffer.
+         */
+        private int position;
+
+        /**
+         * The number of characters in the buffer.
+         */
+        private int limit;
+
+        private LineReader(final Reader reader) {
+            this.reader = reader;
+            this.buffer = new char[8192];
+            this.line = new StringBuilder(MAX_LINE_LENGTH);
+        }
+
+        @Nullable
+        private CharSequence readLine() throws IOException {
+            line.setLength(0);
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return read ? line : null;
+                    }
+                }
+                read = true;
+                final int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                int end = position;
+                if (end > start && buffer[end - 1] == '\r') {
+                    end--;
+                }
+                line.append(buffer, start, Math.min(end - start, MAX_LINE_LENGTH - line.length()));
+                if (position < limit) {
+                    position++;
+                    return line;
+                }
+            }
+        }
+    }
+
+    /**
+     * The state of one analysis.
+     */
+    private static final class Analysis {
+        /**
+         * The stack traces by exception and first frame.
+         */
+        private final Map<String, StackTrace> traces = new LinkedHashMap<>();
+
+        /**
+         * The kept BetonQuest error and warning lines.
+         */
+        private final List<String> betonQuestLines = new ArrayList<>();
+
+        /**
+         * The loaded or enabled plugins with their version.
+         */
+        private final Map<String, String> plugins = new LinkedHashMap<>();
+
+        /**
+         * The server version.
+         */
+        @Nullable
+        private String serverVersion;
+
+        /**
+         * The header of the current stack trace, or null if no stack trace is read.
+         */
+        @Nullable
+        private String traceHeader;
+
+        /**
+         * The frames of the current stack trace.
+         */
+        private final List<String> traceFrames = new ArrayList<>();
+
+        /**
+         * The number of kept frames of the current stack trace or cause.
+         */
+        private int segmentFrames;
+
+        /**
+         * The number of kept causes of the current stack trace.
+         */
+        private int causes;
+
+        /**
+         * The number of error lines.
+         */
+        private int errors;
+
+        /**
+         * The number of warning lines.
+         */
+        private int warnings;
+
+        private void accept(final CharSequence rawLine) {
+            final Matcher prefix = LINE_PREFIX.matcher(rawLine);
+            final String level = prefix.lookingAt() ? prefix.group("level") : null;
+            final String message = (level == null ? rawLine : rawLine.subSequence(prefix.end(), rawLine.length()))
+                    .toString();
+            if (FRAME.matcher(message).lookingAt()) {
+                if (traceHeader != null && segmentFrames < MAX_FRAMES) {
+                    traceFrames.add(message.strip());
+                    segmentFrames++;
+                }
+                return;
+            }
+            if (EXCEPTION.matcher(message).matches()) {
+                if (!message.startsWith("Caused by: ")) {
+                    finishTrace();
+                    traceHeader = message;
+                } else if (traceHeader != null && causes < MAX_CAUSES) {
+                    traceFrames.add(message);
+                    causes++;
+                }
+                segmentFrames = 0;
+                return;
+            }
+            if (!message.startsWith("\t... ")) {
+                finishTrace();
+            }
+            if (level != null) {
+                acceptLine(rawLine, level, message);
+            }
+        }
+
+        private void acceptLine(final CharSequence rawLine, final String level, final String message) {
+            final boolean error = "ERROR".equals(level) || "SEVERE".equals(level) || "FATAL".equals(level);
+            final boolean warning = "WARN".equals(level) || "WARNING".equals(level);
+            if (error) {
+                errors++;
+            } else if (warning) {
+                warnings++;
+            }
+            if ((error || warning) && betonQuestLines.size() < MAX_BETONQUEST_LINES
+                    && rawLine.toString().contains("[BetonQuest]")) {
+                betonQuestLines.add(level + ": " + message);
+            }
+            final Matcher server = SERVER_VERSION.matcher(message);
+            if (server.find()) {
+                serverVersion = server.group(1);
+                return;
+            }
+            final Matcher minecraft = MINECRAFT_VERSION.matcher(message);
+            if (minecraft.find() && serverVersion == null) {
+                serverVersion = "Minecraft " + minecraft.group(1);
+                return;
+            }
+            final Matcher plugin = PLUGIN.matcher(message);
+            if (plugin.find() && (plugins.size() < MAX_PLUGINS || plugins.containsKey(plugin.group(1)))) {
+                plugins.put(plugin.group(1), plugin.group(2));
+            }
+        }
+
+        private void finishTrace() {
+            if (traceHeader == null) {
+                return;
+            }
+            final String exception = traceHeader.split(":", 2)[0];
+            final String key = exception + (traceFrames.isEmpty() ? "" : " " + traceFrames.get(0));
+            final StackTrace existing = traces.get(key);
+            if (existing != null) {
+                traces.put(key, new StackTrace(existing.header(), existing.frames(), existing.count() + 1));
+            } else if (traces.size() < MAX_STACK_TRACES) {
+                traces.put(key, new StackTrace(traceHeader, List.copyOf(traceFrames), 1));
+            }
+            traceHeader = null;
+            traceFrames.clear();
+            causes = 0;
+        }
+
+        private Result toResult(final boolean truncated) {
+            return new Result(serverVersion, plugins.get("BetonQuest"), Collections.unmodifiableMap(plugins),
+                    List.copyOf(traces.values()), List.copyOf(betonQuestLines), errors, warnings, truncated);
+        }
+    }
+
+    /**
+     * A group of equal stack traces.
+     *
+     * @param header the first line, with the exception and its message
+     * @param frames the first frames and causes
+     * @param count  the number of occurrences
+     */
+    public record StackTrace(String header, List<String> frames, int count) {
+    }
+
+    /**
+     * The result of an analysis.
+     *
+     * @param serverVersion     the server version, or null if not found
+     * @param betonQuestVersion the BetonQuest version, or null if not found
+     * @param plugins           the versions of the loaded plugins by their name
+     * @param stackTraces       the stack traces, in the order of their first occurrence
+     * @param betonQuestLines   the first BetonQuest error and warning lines
+     * @param errors            the number of error lines
+     * @param warnings          the number of warning lines
+     * @param truncated         if only the first part of the log was analyzed because of the size limit
+     */
+    public record Result(@Nullable String serverVersion, @Nullable String betonQuestVersion,
+                         Map<String, String> plugins, List<StackTrace> stackTraces, List<String> betonQuestLines,
+                         int errors, int warnings, boolean truncated) {
+    }
+}
@@ -2,16 +2,21 @@ package org.betonquest.discordbot.modules.support;
 
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.entities.channel.concrete.ForumChannel;
 import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
-import net.dv8tion.jda.api.entities.channel.forums.ForumTag;
 import net.dv8tion.jda.api.events.channel.ChannelCreateEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.betonquest.discordbot.config.BetonBotConfig;
 import org.betonquest.discordbot.modules.ForumTagHolder;
+import org.betonquest.discordbot.threading.StripedExecutor;
+import org.betonquest.discordbot.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This listener adds a reaction to discords welcome message.
@@ -27,15 +32,50 @@ public class NewThreadListener extends ListenerAdapter {
      */
     private final BetonBotConfig config;
 
+    /**
+     * The {@link SupportMetrics} to record events in.
+     */
+    private final SupportMetrics metrics;
+
+    /**
+     * The {@link SupportQueue} to add new Posts to.
+     */
+    private final SupportQueue queue;
+
+    /**
+     * The {@link KeywordTagMatcher} of the configured tag rules.
+     */
+    private final KeywordTagMatcher tagMatcher;
+
+    /**
+     * The {@link StripedExecutor} that runs the changes of each Post in order.
+     */
+    private final StripedExecutor postChanges;
+
+    /**
+     * The {@link PostTags} to read and apply the tags of Posts with.
+     */
+    private final PostTags postTags;
+
     /**
      * Create a new {@link NewThreadListener}
      *
-     * @param api    the {@link JDA} instance
-     * @param config the {@link BetonBotConfig} instance
+     * @param api         the {@link JDA} instance
+     * @param config      the {@link BetonBotConfig} instance
+     * @param metrics     the {@link SupportMetrics} to record events in
+     * @param queue       the {@link SupportQueue} to add new Posts to
+     * @param postChanges the {@link StripedExecutor} that runs the changes of each Post in order
+     * @param postTags    the {@link PostTags} to read and apply the tags of Posts with
      */
-    public NewThreadListener(final JDA api, final BetonBotConfig config) {
+    public NewThreadListener(final JDA api, final BetonBotConfig config, final SupportMetrics metrics,
+                             final SupportQueue queue, final StripedExecutor postChanges, final PostTags postTags) {
         super();
         this.config = config;
+        this.metrics = metrics;
+        this.queue = queue;
+        this.postChanges = postChanges;
+        this.postTags = postTags;
+        this.tagMatcher = new KeywordTagMatcher(getRules(config));
         if (config.supportChannelIDs.isEmpty()) {
             LOGGER.warn("No support channels where found or set!");
             return;
@@ -51,15 +91,48 @@ public class NewThreadListener extends ListenerAdapter {
             return;
         }
         final ThreadChannel channel = (ThreadChannel) event.getChannel();
+        metrics.recordCreated(channel);
+        queue.created(channel);
+
+        if (tagMatcher.isEmpty()) {
+            applyTags(channel, Set.of());
+            return;
+        }
+        Tracer.queue("retrieveStartMessage", channel.retrieveStartMessage(),
+                message -> applyTags(channel, tagMatcher.match(channel.getName() + "\n" + message.getContentRaw())),
+                failure -> applyTags(channel, tagMatcher.match(channel.getName())));
+    }
+
+    private void applyTags(final ThreadChannel channel, final Set<Long> matchedTags) {
+        postChanges.execute(channel.getIdLong(), () -> {
+            final List<Long> appliedTags = postTags.getTagIds(channel);
+            final ForumTagHolder forumTagHolder = new ForumTagHolder(channel, appliedTags);
+            if (appliedTags.size() == 1 && appliedTags.contains(config.supportTagsSolved)) {
+                forumTagHolder
+                        .add(config.supportTagsDefault);
+            }
+            if (channel.getParentChannel() instanceof final ForumChannel forum) {
+                matchedTags.stream()
+                        .filter(tagId -> forum.getAvailableTagById(tagId) != null)
+                        .forEach(forumTagHolder::add);
+            }
+            return postTags.apply(channel, forumTagHolder
+                    .remove(config.supportTagsSolved));
+        });
+    }
 
-        final ForumTagHolder forumTagHolder = new ForumTagHolder(channel);
-        final List<ForumTag> appliedTags = channel.getAppliedTags();
-        if (appliedTags.size() == 1 && ForumTagHolder.isSolved(appliedTags, config)) {
-            forumTagHolder
-                    .add(config.supportTagsDefault);
+    private static Map<Long, List<String>> getRules(final BetonBotConfig config) {
+        final Map<Long, List<String>> rules = new LinkedHashMap<>();
+        for (final Map.Entry<Object, List<String>> entry : config.supportTagsRules.entrySet()) {
+            final Object key = entry.getKey();
+            try {
+                final long tagId = key instanceof final Number number ? number.longValue()
+                        : Long.parseLong(String.valueOf(key));
+                rules.put(tagId, entry.getValue().stream().map(String::valueOf).toList());
+            } catch (final NumberFormatException | ClassCastException e) {
+                LOGGER.warn("Invalid tag rule in config: {} -> {}", key, entry.getValue(), e);
+            }
         }
-        forumTagHolder
-                .remove(config.supportTagsSolved)
-                .apply(config.supportTagsOrder);
+        return rules;
     }
 }
@@ -0,0 +1,121 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.entities.channel.forums.ForumTag;
+import org.betonquest.discordbot.ClockTicker;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.modules.ForumTagHolder;
+import org.betonquest.discordbot.threading.StripedExecutor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tracks the tags the Bot applied to Support Posts, until JDA received the update event of the change.
+ * <p>
+ * JDA updates its cached tags of a Post only when the update event arrives, which can be after the next change of the
+ * same Post in the {@link StripedExecutor} started. Changes read the tags of a Post from this class, so they build on
+ * the previous change instead of overwriting it with the outdated cached tags.
+ */
+public class PostTags {
+    /**
+     * The time after which applied tags are dropped, if their update event never arrived.
+     */
+    private static final Duration PENDING_TIMEOUT = Duration.ofMinutes(1);
+
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The IDs of the tags applied by the Bot, whose update event did not arrive yet, by the ID of the Post.
+     */
+    private final Cache<Long, List<Long>> pending;
+
+    /**
+     * Create a new {@link PostTags} instance.
+     *
+     * @param config the {@link BetonBotConfig} instance
+     * @param clock  the clock to read the current time from
+     */
+    public PostTags(final BetonBotConfig config, final Clock clock) {
+        this.config = config;
+        this.pending = CacheBuilder.newBuilder()
+                .ticker(new ClockTicker(clock))
+                .expireAfterWrite(PENDING_TIMEOUT)
+                .build();
+    }
+
+    /**
+     * Gets the IDs of the tags currently applied to a Post, including the changes of the Bot whose update event
+     * did not arrive yet.
+     *
+     * @param channel the Post
+     * @return the IDs of the applied tags
+     */
+    public List<Long> getTagIds(final ThreadChannel channel) {
+        final List<Long> cached = channel.getAppliedTags().stream()
+                .map(ForumTag::getIdLong)
+                .toList();
+        final List<Long> applied = pending.getIfPresent(channel.getIdLong());
+        if (applied == null || applied.equals(cached)) {
+            pending.invalidate(channel.getIdLong());
+            return cached;
+        }
+        return applied;
+    }
+
+    /**
+     * Creates a {@link ForumTagHolder} for a Post, that starts from the tags returned by {@link #getTagIds}.
+     *
+     * @param channel the Post
+     * @return the {@link ForumTagHolder}
+     */
+    public ForumTagHolder getHolder(final ThreadChannel channel) {
+        return new ForumTagHolder(channel, getTagIds(channel));
+    }
+
+    /**
+     * Checks if a Post is solved, including the changes of the Bot whose update event did not arrive yet.
+     *
+     * @param channel the Post
+     * @return true if the Post has the solved tag
+     */
+    public boolean isSolved(final ThreadChannel channel) {
+        return getTagIds(channel).contains(config.supportTagsSolved);
+    }
+
+    /**
+     * Applies the tags of a {@link ForumTagHolder} in the configured order, unless they are already applied.
+     *
+     * @param channel   the Post
+     * @param tagHolder the tags to apply, created by {@link #getHolder}
+     * @return the future that completes with true when the tags were changed,
+     * or with false if nothing had to be changed
+     */
+    public CompletableFuture<Boolean> apply(final ThreadChannel channel, final ForumTagHolder tagHolder) {
+        if (tagHolder.isApplied(config.supportTagsOrder)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return tagHolder.apply(config.supportTagsOrder).thenApply(nothing -> {
+            applied(channel, tagHolder);
+            return true;
+        });
+    }
+
+    /**
+     * Records the tags of a {@link ForumTagHolder} as applied,
+     * after they were applied with {@link ForumTagHolder#prepare(List)}.
+     *
+     * @param channel   the Post
+     * @param tagHolder the applied tags
+     */
+    public void applied(final ThreadChannel channel, final ForumTagHolder tagHolder) {
+        pending.put(channel.getIdLong(), tagHolder.getTagIdsToApply(config.supportTagsOrder));
+    }
+}
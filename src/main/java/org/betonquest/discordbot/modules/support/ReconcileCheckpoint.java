@@ -0,0 +1,148 @@
+package org.betonquest.discordbot.modules.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores the progress of the {@link ThreadReconciler} in a file, so a reconciliation can resume after a restart.
+ * The progress is only valid for the tag plan it was created with.
+ */
+public class ReconcileCheckpoint {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReconcileCheckpoint.class);
+
+    /**
+     * The marker for a forum whose archived Posts are all reconciled.
+     */
+    private static final long DONE = -1L;
+
+    /**
+     * The YAML parser instance used for reading and writing the checkpoint.
+     */
+    private final Yaml yaml;
+
+    /**
+     * The path to the checkpoint file.
+     */
+    private final Path checkpointPath;
+
+    /**
+     * The hash of the tag plan the progress belongs to.
+     */
+    private final int planHash;
+
+    /**
+     * The archive timestamp in epoch millis of the last reconciled Post for each forum.
+     */
+    private final Map<Long, Long> forums;
+
+    /**
+     * Loads the checkpoint from the given file.
+     * If the stored progress belongs to another tag plan, the progress is discarded.
+     *
+     * @param checkpointPath the path to the checkpoint file
+     * @param planHash       the hash of the current tag plan
+     * @throws IOException if an I/O error occurs while reading the checkpoint file
+     */
+    public ReconcileCheckpoint(final Path checkpointPath, final int planHash) throws IOException {
+        this.checkpointPath = checkpointPath;
+        this.yaml = getYaml();
+        this.forums = new LinkedHashMap<>();
+        final Map<Object, Object> data = getData(yaml, checkpointPath);
+        if (data.get("PlanHash") instanceof final Number storedHash && storedHash.intValue() == planHash
+                && data.get("Forums") instanceof final Map<?, ?> storedForums) {
+            for (final Map.Entry<?, ?> entry : storedForums.entrySet()) {
+                if (entry.getKey() instanceof final Number forum && entry.getValue() instanceof final Number time) {
+                    forums.put(forum.longValue(), time.longValue());
+                } else {
+                    LOGGER.warn("Invalid entry in reconcile checkpoint: {} -> {}", entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        this.planHash = planHash;
+    }
+
+    /**
+     * Checks if all archived Posts of a forum were reconciled.
+     *
+     * @param forumId the forum ID
+     * @return true if the forum is done
+     */
+    public boolean isDone(final long forumId) {
+        return forums.getOrDefault(forumId, 0L) == DONE;
+    }
+
+    /**
+     * Gets the archive timestamp of the last reconciled Post of a forum.
+     *
+     * @param forumId the forum ID
+     * @return the timestamp in epoch millis, or 0 if the forum was not started yet
+     */
+    public long getLastArchived(final long forumId) {
+        final long lastArchived = forums.getOrDefault(forumId, 0L);
+        return lastArchived == DONE ? 0L : lastArchived;
+    }
+
+    /**
+     * Records the archive timestamp of the last reconciled Post of a forum and saves the checkpoint.
+     *
+     * @param forumId      the forum ID
+     * @param lastArchived the timestamp in epoch millis
+     */
+    public void update(final long forumId, final long lastArchived) {
+        forums.put(forumId, lastArchived);
+        save();
+    }
+
+    /**
+     * Marks all archived Posts of a forum as reconciled and saves the checkpoint.
+     *
+     * @param forumId the forum ID
+     */
+    public void markDone(final long forumId) {
+        update(forumId, DONE);
+    }
+
+    private void save() {
+        final Map<String, Object> data = new LinkedHashMap<>();
+        data.put("PlanHash", planHash);
+        data.put("Forums", forums);
+        try (Writer writer = Files.newBufferedWriter(checkpointPath)) {
+            yaml.dump(data, writer);
+        } catch (final IOException e) {
+            LOGGER.warn("Error while writing reconcile checkpoint.", e);
+        }
+    }
+
+    private Yaml getYaml() {
+        final DumperOptions options = new DumperOptions();
+        options.setIndent(4);
+        options.setIndicatorIndent(2);
+        options.setWidth(120);
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        return new Yaml(options);
+    }
+
+    private Map<Object, Object> getData(final Yaml yaml, final Path checkpointPath) throws IOException {
+        if (Files.exists(checkpointPath)) {
+            try (InputStream input = Files.newInputStream(checkpointPath)) {
+                final Map<Object, Object> data = yaml.load(input);
+                return data == null ? new LinkedHashMap<>() : data;
+            }
+        } else {
+            return new LinkedHashMap<>();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.betonquest.discordbot.modules.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count-min sketch over a sliding time window, with a fixed memory size independent of the number of keys.
+ * <p>
+ * The window is split into buckets, each with its own sketch. Every counter holds the bucket epoch it was written in
+ * in the upper and the count in the lower half, so outdated counters are reset by the next update instead of
+ * a separate rotation. Updates are lock-free compare-and-set loops on an {@link AtomicLongArray}.
+ * An estimate may exceed the real count because of hash collisions, but never falls below it.
+ */
+public class SlidingCountMinSketch {
+    /**
+     * The number of hash functions.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * The mask of the count in a counter.
+     */
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    /**
+     * The seeds of the hash functions.
+     */
+    private static final long[] SEEDS = {0x9E37_79B9_7F4A_7C15L, 0xBF58_476D_1CE4_E5B9L,
+            0x94D0_49BB_1331_11EBL, 0xD6E8_FEB8_6659_FD93L};
+
+    /**
+     * The counters of all buckets and rows.
+     */
+    private final AtomicLongArray counters;
+
+    /**
+     * The number of counters per row, a power of two.
+     */
+    private final int width;
+
+    /**
+     * The number of buckets of the window.
+     */
+    private final int buckets;
+
+    /**
+     * The duration of a bucket in milliseconds.
+     */
+    private final long bucketMillis;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param width        the number of counters per row, rounded up to a power of two
+     * @param buckets      the number of buckets of the window
+     * @param windowMillis the duration of the window in milliseconds
+     */
+    public SlidingCountMinSketch(final int width, final int buckets, final long windowMillis) {
+        this.width = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.buckets = buckets;
+        this.bucketMillis = Math.max(1, windowMillis / buckets);
+        this.counters = new AtomicLongArray(buckets * DEPTH * this.width);
+    }
+
+    /**
+     * Counts an occurrence of a key.
+     *
+     * @param key        the key
+     * @param timeMillis the current time in milliseconds
+     * @return the estimated number of occurrences of the key in the window, including this one
+     */
+    public int add(final long key, final long timeMillis) {
+        final int epoch = (int) (timeMillis / bucketMillis);
+        final int bucket = Math.floorMod(epoch, buckets);
+        for (int row = 0; row < DEPTH; row++) {
+            final int index = index(bucket, row, key);
+            long current;
+            long updated;
+            do {
+                current = counters.get(index);
+                updated = (int) (current >>> Integer.SIZE) == epoch ? current + 1 : (long) epoch << Integer.SIZE | 1;
+            } while (!counters.compareAndSet(index, current, updated));
+        }
+        return estimate(key, timeMillis);
+    }
+
+    /**
+     * Estimates the number of occurrences of a key in the window.
+     *
+     * @param key        the key
+     * @param timeMillis the current time in milliseconds
+     * @return the estimated number of occurrences
+     */
+    public int estimate(final long key, final long timeMillis) {
+        final int epoch = (int) (timeMillis / bucketMillis);
+        long minimum = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            long sum = 0;
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                final long counter = counters.get(index(bucket, row, key));
+                final int age = epoch - (int) (counter >>> Integer.SIZE);
+                if (age >= 0 && age < buckets) {
+                    sum += counter & COUNT_MASK;
+                }
+            }
+            minimum = Math.min(minimum, sum);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, minimum);
+    }
+
+    private int index(final int bucket, final int row, final long key) {
+        return (bucket * DEPTH + row) * width + (int) (mix(key ^ SEEDS[row]) & width - 1);
+    }
+
+    private static long mix(final long value) {
+        long mixed = (value ^ value >>> 33) * 0xFF51_AFD7_ED55_8CCDL;
+        mixed = (mixed ^ mixed >>> 33) * 0xC4CE_B9FE_1A85_EC53L;
+        return mixed ^ mixed >>> 33;
+    }
+}
@@ -11,7 +11,8 @@ import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
 import org.betonquest.discordbot.config.BetonBotConfig;
 import org.betonquest.discordbot.config.ConfigEmbedBuilder;
-import org.betonquest.discordbot.modules.ForumTagHolder;
+import org.betonquest.discordbot.threading.StripedExecutor;
+import org.betonquest.discordbot.tracing.Tracer;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +48,31 @@ public class SolveCommand extends ListenerAdapter {
      */
     private final BetonBotConfig config;
 
+    /**
+     * The {@link SupportMetrics} to record events in.
+     */
+    private final SupportMetrics metrics;
+
+    /**
+     * The {@link SolvedPosts} to notify about solved and reopened Posts.
+     */
+    private final SolvedPosts solvedPosts;
+
+    /**
+     * The {@link SupportQueue} to remove solved Posts from.
+     */
+    private final SupportQueue queue;
+
+    /**
+     * The {@link StripedExecutor} that runs the changes of each Post in order.
+     */
+    private final StripedExecutor postChanges;
+
+    /**
+     * The {@link PostTags} to read and apply the tags of Posts with.
+     */
+    private final PostTags postTags;
+
     /**
      * Create a new `solve` command instance.
      *
@@ -55,11 +81,23 @@ public class SolveCommand extends ListenerAdapter {
      * @param command            The command name
      * @param description        The command description
      * @param solveEmbedSupplier The embed supplier
+     * @param metrics            The {@link SupportMetrics} to record events in
+     * @param solvedPosts        The {@link SolvedPosts} to notify about solved Posts
+     * @param queue              The {@link SupportQueue} to remove solved Posts from
+     * @param postChanges        The {@link StripedExecutor} that runs the changes of each Post in order
+     * @param postTags           The {@link PostTags} to read and apply the tags of Posts with
      */
     public SolveCommand(final JDA api, final BetonBotConfig config, final String command, final String description,
-                        final Supplier<ConfigEmbedBuilder> solveEmbedSupplier) {
+                        final Supplier<ConfigEmbedBuilder> solveEmbedSupplier, final SupportMetrics metrics,
+                        final SolvedPosts solvedPosts, final SupportQueue queue, final StripedExecutor postChanges,
+                        final PostTags postTags) {
         super();
         this.config = config;
+        this.metrics = metrics;
+        this.solvedPosts = solvedPosts;
+        this.queue = queue;
+        this.postChanges = postChanges;
+        this.postTags = postTags;
         this.command = command;
         this.description = description;
         this.solveEmbedSupplier = solveEmbedSupplier;
@@ -90,9 +128,9 @@ public class SolveCommand extends ListenerAdapter {
         }
         if (!(event.getChannelType() == ChannelType.GUILD_PUBLIC_THREAD || event.getChannelType() == ChannelType.GUILD_PRIVATE_THREAD)
                 || !config.supportChannelIDs.contains(((ThreadChannel) event.getChannel()).getParentChannel().getIdLong())) {
-            event.reply("This command is only supported in threads in a channel that is a support channel!")
-                    .setEphemeral(true)
-                    .queue();
+            Tracer.queue("reply", event
+                    .reply("This command is only supported in threads in a channel that is a support channel!")
+                    .setEphemeral(true));
             return;
         }
         close(event);
@@ -101,13 +139,15 @@ public class SolveCommand extends ListenerAdapter {
     private void close(final SlashCommandInteractionEvent event) {
         final ThreadChannel channel = (ThreadChannel) event.getChannel();
         if (solveEmbedSupplier.get() == null) {
-            event.reply("Post solved.").setEphemeral(true).queue();
+            Tracer.queue("reply", event.reply("Post solved.").setEphemeral(true));
         } else {
-            event.replyEmbeds(solveEmbedSupplier.get().getEmbed()).queue();
+            Tracer.queue("reply", event.replyEmbeds(solveEmbedSupplier.get().getEmbed()));
         }
 
-        new ForumTagHolder(channel)
-                .add(config.supportTagsSolved)
-                .apply(config.supportTagsOrder);
+        metrics.recordSolved(channel);
+        solvedPosts.solved(channel);
+        queue.solved(channel);
+        postChanges.execute(channel.getIdLong(), () -> postTags.apply(channel, postTags.getHolder(channel)
+                .add(config.supportTagsSolved)));
     }
 }
@@ -0,0 +1,107 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import org.betonquest.discordbot.ClockTicker;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Notifies {@link Listener}s about solved and reopened Support Posts.
+ * <p>
+ * The first message of a solved Post is retrieved once and passed to all listeners.
+ * A Post that is solved by the `solve` command and by the solved tag at the same time is only notified once.
+ */
+public class SolvedPosts {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SolvedPosts.class);
+
+    /**
+     * The registered listeners.
+     */
+    private final List<Listener> listeners;
+
+    /**
+     * The IDs of Posts that were solved recently.
+     */
+    private final Cache<Long, Boolean> recentlySolved;
+
+    /**
+     * Create a new {@link SolvedPosts} instance.
+     *
+     * @param clock the clock to read the current time from
+     */
+    public SolvedPosts(final Clock clock) {
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.recentlySolved = CacheBuilder.newBuilder()
+                .ticker(new ClockTicker(clock))
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .build();
+    }
+
+    /**
+     * Registers a listener.
+     *
+     * @param listener the listener
+     */
+    public void addListener(final Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Notifies the listeners about a solved Post.
+     *
+     * @param channel the solved Post
+     */
+    public void solved(final ThreadChannel channel) {
+        if (listeners.isEmpty() || recentlySolved.asMap().putIfAbsent(channel.getIdLong(), true) != null) {
+            return;
+        }
+        Tracer.queue("retrieveStartMessage", channel.retrieveStartMessage(),
+                message -> listeners.forEach(listener -> listener.onSolved(channel, message)),
+                failure -> LOGGER.debug("Could not retrieve the first message of the solved Post {}.",
+                        channel.getIdLong(), failure));
+    }
+
+    /**
+     * Notifies the listeners about a reopened Post.
+     *
+     * @param channel the reopened Post
+     */
+    public void reopened(final ThreadChannel channel) {
+        recentlySolved.invalidate(channel.getIdLong());
+        listeners.forEach(listener -> listener.onReopened(channel));
+    }
+
+    /**
+     * A listener for solved and reopened Support Posts.
+     */
+    public interface Listener {
+        /**
+         * Called when a Post was solved.
+         *
+         * @param channel the solved Post
+         * @param message the first message of the Post
+         */
+        void onSolved(ThreadChannel channel, Message message);
+
+        /**
+         * Called when a Post was reopened.
+         *
+         * @param channel the reopened Post
+         */
+        default void onReopened(final ThreadChannel channel) {
+            // Empty
+        }
+    }
+}
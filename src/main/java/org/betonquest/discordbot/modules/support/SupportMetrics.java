@@ -0,0 +1,332 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.betonquest.discordbot.ClockTicker;
+import org.betonquest.discordbot.metrics.LogHistogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates support metrics per support forum while the events happen, without reading the message history.
+ * <p>
+ * The time to the first response and the time to solved are recorded in {@link LogHistogram}s, one per day,
+ * in a fixed ring of days. A window of days is answered by merging the daily histograms.
+ * The auto close rate is the share of solved Posts that were archived by the {@link ThreadAutoCloseScheduler}.
+ * <p>
+ * The metrics can be shown with the `support-metrics` command.
+ */
+public class SupportMetrics extends ListenerAdapter {
+    /**
+     * The command name.
+     */
+    public static final String COMMAND = "support-metrics";
+
+    /**
+     * The command option days.
+     */
+    public static final String DAYS_OPTION_NAME = "days";
+
+    /**
+     * The number of days kept in the ring of daily metrics.
+     */
+    public static final int WINDOW_DAYS = 30;
+
+    /**
+     * The default number of days shown by the command.
+     */
+    private static final int DEFAULT_DAYS = 7;
+
+    /**
+     * The maximum number of Posts waiting for their first response.
+     */
+    private static final int MAX_OPEN_THREADS = 10_000;
+
+    /**
+     * The percentiles shown by the command.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    /**
+     * The metrics of each forum.
+     */
+    private final Map<Long, ForumMetrics> forums;
+
+    /**
+     * The Posts waiting for their first response.
+     */
+    private final Cache<Long, OpenThread> openThreads;
+
+    /**
+     * The IDs of Posts that are already counted as solved.
+     */
+    private final Cache<Long, Boolean> solvedThreads;
+
+    /**
+     * The clock to read the current time from.
+     */
+    private final Clock clock;
+
+    /**
+     * Create a new {@link SupportMetrics} instance.
+     *
+     * @param api   the {@link JDA} instance
+     * @param clock the clock to read the current time from
+     */
+    public SupportMetrics(final JDA api, final Clock clock) {
+        super();
+        this.clock = clock;
+        this.forums = new ConcurrentHashMap<>();
+        this.openThreads = CacheBuilder.newBuilder()
+                .ticker(new ClockTicker(clock))
+                .maximumSize(MAX_OPEN_THREADS)
+                .expireAfterWrite(Duration.ofDays(WINDOW_DAYS))
+                .build();
+        this.solvedThreads = CacheBuilder.newBuilder()
+                .ticker(new ClockTicker(clock))
+                .maximumSize(MAX_OPEN_THREADS)
+                .expireAfterWrite(Duration.ofDays(WINDOW_DAYS))
+                .build();
+        api.addEventListener(this);
+    }
+
+    /**
+     * Get the slash command data for this command.
+     *
+     * @return The slash command data
+     */
+    public @NotNull SlashCommandData getSlashCommandData() {
+        return Commands.slash(COMMAND, "Show metrics of the support forums.")
+                .setDefaultPermissions(DefaultMemberPermissions.enabledFor(Permission.ADMINISTRATOR))
+                .addOptions(new OptionData(OptionType.INTEGER, DAYS_OPTION_NAME, "The number of days to show", false)
+                        .setRequiredRange(1, WINDOW_DAYS));
+    }
+
+    /**
+     * Records a new Post.
+     *
+     * @param channel the Post
+     */
+    public void recordCreated(final ThreadChannel channel) {
+        forum(channel).recordCreated(today());
+        openThreads.put(channel.getIdLong(), new OpenThread(channel.getParentChannel().getIdLong(),
+                channel.getOwnerIdLong(), channel.getTimeCreated()));
+    }
+
+    /**
+     * Records a solved Post. A Post is only counted once until it is reopened.
+     *
+     * @param channel the Post
+     */
+    public void recordSolved(final ThreadChannel channel) {
+        if (solvedThreads.asMap().putIfAbsent(channel.getIdLong(), true) != null) {
+            return;
+        }
+        final long seconds = Duration.between(channel.getTimeCreated(), OffsetDateTime.now(clock)).toSeconds();
+        forum(channel).recordSolved(today(), seconds);
+    }
+
+    /**
+     * Records a reopened Post, so it can be counted as solved again.
+     *
+     * @param channel the Post
+     */
+    public void recordReopened(final ThreadChannel channel) {
+        solvedThreads.invalidate(channel.getIdLong());
+    }
+
+    /**
+     * Records a Post that was archived by the {@link ThreadAutoCloseScheduler}.
+     *
+     * @param channel the Post
+     */
+    public void recordAutoClosed(final ThreadChannel channel) {
+        forum(channel).recordAutoClosed(today());
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull final MessageReceivedEvent event) {
+        if (!event.isFromThread() || event.getAuthor().isBot()) {
+            return;
+        }
+        final long threadId = event.getChannel().getIdLong();
+        final OpenThread openThread = openThreads.getIfPresent(threadId);
+        if (openThread == null || openThread.ownerId() == event.getAuthor().getIdLong()) {
+            return;
+        }
+        openThreads.invalidate(threadId);
+        final long seconds = Duration.between(openThread.created(), event.getMessage().getTimeCreated()).toSeconds();
+        forums.computeIfAbsent(openThread.forumId(), id -> new ForumMetrics()).recordFirstResponse(today(), seconds);
+    }
+
+    @Override
+    public void onSlashCommandInteraction(@NotNull final SlashCommandInteractionEvent event) {
+        if (!COMMAND.equals(event.getName())) {
+            return;
+        }
+        final int days = event.getOption(DAYS_OPTION_NAME, DEFAULT_DAYS, mapping -> (int) mapping.getAsLong());
+        final long today = today();
+        final StringBuilder message = new StringBuilder(256)
+                .append("Support metrics of the last ").append(days).append(" days:");
+        if (forums.isEmpty()) {
+            message.append("\nNothing was recorded yet.");
+        }
+        for (final Map.Entry<Long, ForumMetrics> entry : forums.entrySet()) {
+            message.append("\n\n<#").append(entry.getKey()).append(">\n");
+            entry.getValue().summarize(today, days, message);
+        }
+        event.reply(message.toString()).setEphemeral(true).queue();
+    }
+
+    private ForumMetrics forum(final ThreadChannel channel) {
+        return forums.computeIfAbsent(channel.getParentChannel().getIdLong(), id -> new ForumMetrics());
+    }
+
+    private long today() {
+        return clock.instant().getEpochSecond() / Duration.ofDays(1).toSeconds();
+    }
+
+    private static String formatDuration(final long seconds) {
+        final Duration duration = Duration.ofSeconds(seconds);
+        if (duration.toDays() > 0) {
+            return duration.toDays() + "d " + duration.toHoursPart() + "h";
+        }
+        if (duration.toHours() > 0) {
+            return duration.toHours() + "h " + duration.toMinutesPart() + "m";
+        }
+        return duration.toMinutes() + "m " + duration.toSecondsPart() + "s";
+    }
+
+    /**
+     * A Post waiting for its first response.
+     *
+     * @param forumId the ID of the forum
+     * @param ownerId the ID of the user who created the Post
+     * @param created the creation time of the Post
+     */
+    private record OpenThread(long forumId, long ownerId, OffsetDateTime created) {
+    }
+
+    /**
+     * The daily metrics of one forum.
+     */
+    private static final class ForumMetrics {
+        /**
+         * The day each slot belongs to.
+         */
+        private final long[] slotDays;
+
+        /**
+         * The daily time to the first response in seconds.
+         */
+        private final LogHistogram[] firstResponse;
+
+        /**
+         * The daily time to solved in seconds.
+         */
+        private final LogHistogram[] solved;
+
+        /**
+         * The daily number of created Posts.
+         */
+        private final long[] created;
+
+        /**
+         * The daily number of automatically closed Posts.
+         */
+        private final long[] autoClosed;
+
+        private ForumMetrics() {
+            slotDays = new long[WINDOW_DAYS];
+            firstResponse = new LogHistogram[WINDOW_DAYS];
+            solved = new LogHistogram[WINDOW_DAYS];
+            created = new long[WINDOW_DAYS];
+            autoClosed = new long[WINDOW_DAYS];
+            for (int i = 0; i < WINDOW_DAYS; i++) {
+                firstResponse[i] = new LogHistogram();
+                solved[i] = new LogHistogram();
+            }
+        }
+
+        private synchronized void recordCreated(final long day) {
+            created[slot(day)]++;
+        }
+
+        private synchronized void recordFirstResponse(final long day, final long seconds) {
+            firstResponse[slot(day)].record(seconds);
+        }
+
+        private synchronized void recordSolved(final long day, final long seconds) {
+            solved[slot(day)].record(seconds);
+        }
+
+        private synchronized void recordAutoClosed(final long day) {
+            autoClosed[slot(day)]++;
+        }
+
+        private int slot(final long day) {
+            final int slot = (int) (day % WINDOW_DAYS);
+            if (slotDays[slot] != day) {
+                slotDays[slot] = day;
+                firstResponse[slot].reset();
+                solved[slot].reset();
+                created[slot] = 0;
+                autoClosed[slot] = 0;
+            }
+            return slot;
+        }
+
+        private synchronized void summarize(final long today, final int days, final StringBuilder message) {
+            final LogHistogram windowFirstResponse = new LogHistogram();
+            final LogHistogram windowSolved = new LogHistogram();
+            long windowCreated = 0;
+            long windowAutoClosed = 0;
+            for (long day = today - days + 1; day <= today; day++) {
+                final int slot = (int) (day % WINDOW_DAYS);
+                if (slotDays[slot] == day) {
+                    windowFirstResponse.merge(firstResponse[slot]);
+                    windowSolved.merge(solved[slot]);
+                    windowCreated += created[slot];
+                    windowAutoClosed += autoClosed[slot];
+                }
+            }
+            final long solvedCount = windowSolved.getTotalCount();
+            message.append("Posts: ").append(windowCreated)
+                    .append(", Solved: ").append(solvedCount)
+                    .append(", Auto closed: ").append(windowAutoClosed);
+            if (solvedCount > 0) {
+                message.append(" (").append(Math.min(100, windowAutoClosed * 100 / solvedCount)).append("%)");
+            }
+            appendPercentiles("First response", windowFirstResponse, message);
+            appendPercentiles("Solved", windowSolved, message);
+        }
+
+        private void appendPercentiles(final String name, final LogHistogram histogram, final StringBuilder message) {
+            message.append('\n').append(name).append(':');
+            if (histogram.getTotalCount() == 0) {
+                message.append(" -");
+                return;
+            }
+            for (final double percentile : PERCENTILES) {
+                message.append(" p").append((int) percentile).append(' ')
+                        .append(formatDuration(histogram.getValueAtPercentile(percentile)));
+            }
+        }
+    }
+}
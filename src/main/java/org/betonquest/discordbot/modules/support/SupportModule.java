@@ -0,0 +1,104 @@
+package org.betonquest.discordbot.modules.support;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.channel.ChannelCreateEvent;
+import net.dv8tion.jda.api.events.channel.update.ChannelUpdateAppliedTagsEvent;
+import net.dv8tion.jda.api.events.channel.update.ChannelUpdateArchivedEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.modules.BotModule;
+import org.betonquest.discordbot.modules.ModuleContext;
+import org.betonquest.discordbot.modules.search.SearchCommand;
+import org.betonquest.discordbot.modules.search.SearchIndex;
+import org.betonquest.discordbot.threading.StripedExecutor;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The support module, that manages the Support Posts in the support forums.
+ * It reads the content of messages for duplicates, search and tagging.
+ */
+public class SupportModule implements BotModule {
+    /**
+     * The number of stripes of the executor that runs the changes of each Post in order.
+     */
+    private static final int POST_CHANGE_STRIPES = 64;
+
+    /**
+     * Create a new {@link SupportModule}.
+     */
+    public SupportModule() {
+        // Empty
+    }
+
+    @Override
+    public boolean isEnabled(final BetonBotConfig config) {
+        return config.supportEnabled;
+    }
+
+    @Override
+    public Set<GatewayIntent> getIntents() {
+        return Set.of(GatewayIntent.GUILD_MESSAGES, GatewayIntent.MESSAGE_CONTENT);
+    }
+
+    @Override
+    public Set<CacheFlag> getCacheFlags() {
+        return Set.of(CacheFlag.FORUM_TAGS, CacheFlag.MEMBER_OVERRIDES);
+    }
+
+    @Override
+    public Map<Class<?>, Set<Class<? extends GenericEvent>>> getTracedEvents() {
+        return Map.of(
+                SolveCommand.class, Set.of(SlashCommandInteractionEvent.class),
+                ThreadUpdateListener.class,
+                Set.of(ChannelUpdateAppliedTagsEvent.class, ChannelUpdateArchivedEvent.class),
+                NewThreadListener.class, Set.of(ChannelCreateEvent.class)
+        );
+    }
+
+    @Override
+    public List<SlashCommandData> start(final ModuleContext context) throws IOException {
+        final BetonBotConfig config = context.config();
+        final SupportMetrics supportMetrics = new SupportMetrics(context.api(), context.clock());
+        final SolvedPosts solvedPosts = new SolvedPosts(context.clock());
+        final SupportQueue queue = new SupportQueue(context.api(), config, context.guild(), context.clock());
+        final StripedExecutor postChanges = context.threads().newStripedExecutor("PostChanges", POST_CHANGE_STRIPES);
+        final PostTags postTags = new PostTags(config, context.clock());
+        new DuplicateDetector(context.api(), config, new DuplicateIndex(Paths.get("duplicateIndex.dat")),
+                solvedPosts);
+        final SearchCommand searchCommand = new SearchCommand(context.api(), config,
+                new SearchIndex(Paths.get("searchIndex"), context.threads().newSingleThreadExecutor("SearchIndex")),
+                solvedPosts);
+        final SolveCommand solveCommand = new SolveCommand(context.api(), config, "solve",
+                "Mark a support thread as solved.", () -> config.supportSolvedEmbed, supportMetrics, solvedPosts,
+                queue, postChanges, postTags);
+        final SolveCommand closeCommand = new SolveCommand(context.api(), config, "close",
+                "Mark a support thread as closed.", () -> config.supportClosedEmbed, supportMetrics, solvedPosts,
+                queue, postChanges, postTags);
+        new NewThreadListener(context.api(), config, supportMetrics, queue, postChanges, postTags);
+        new FloodDetector(context.api(), config, context.clock());
+        final ThreadReconciler reconciler = new ThreadReconciler(context.api(), config, context.guild(),
+                Paths.get("reconcileCheckpoint.yml"), context.threads(), postChanges, postTags, context.clock());
+        new ThreadUpdateListener(context.api(), config, reconciler, supportMetrics, solvedPosts, queue,
+                postChanges, postTags);
+        new ThreadAutoCloseScheduler(context.api(), config, context.guild(), supportMetrics, postChanges,
+                postTags, context.threads(), context.clock());
+        new LogAnalysisListener(context.api(), config, context.threads());
+        new YamlSnippetListener(context.api(), config, context.threads());
+        new TranscriptExporter(context.api(), config, Paths.get("transcripts"), context.threads(), context.clock());
+        return List.of(
+                solveCommand.getSlashCommandData(),
+                closeCommand.getSlashCommandData(),
+                supportMetrics.getSlashCommandData(),
+                searchCommand.getSlashCommandData(),
+                queue.getSlashCommandData()
+        );
+    }
+}
@@ -0,0 +1,201 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.channel.concrete.ForumChannel;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.events.channel.ChannelDeleteEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.utils.TimeFormat;
+import org.betonquest.discordbot.ClockTicker;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.modules.ForumTagHolder;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * The queue of unsolved Support Posts that wait for an answer, shown by the `queue` command.
+ * <p>
+ * A Post waits from the first message of its owner that was not answered by someone else.
+ * The Posts are kept in an {@link IndexedHeap} by that time, which is updated on each message, solve, reopen and
+ * archive, so the command is answered from memory without reading the message history.
+ * A Post that is solved while it waits keeps its waiting time, and waits since that time again when it is reopened.
+ * A reopened Post that was already answered only waits again from the next message of its owner.
+ * On startup, the active Posts without any answer are added.
+ */
+public class SupportQueue extends ListenerAdapter {
+    /**
+     * The command name.
+     */
+    public static final String COMMAND = "queue";
+
+    /**
+     * The maximum number of Posts shown by the command.
+     */
+    private static final int MAX_ENTRIES = 20;
+
+    /**
+     * The maximum number of remembered waiting times of solved Posts.
+     */
+    private static final int MAX_SOLVED_WAITING = 10_000;
+
+    /**
+     * The time in days the waiting time of a solved Post is remembered.
+     */
+    private static final int SOLVED_WAITING_DAYS = 30;
+
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The waiting Posts by the time they wait since in epoch millis.
+     */
+    private final IndexedHeap waiting;
+
+    /**
+     * The waiting times in epoch millis of Posts that were solved while they waited.
+     */
+    private final Cache<Long, Long> solvedWaiting;
+
+    /**
+     * Create a new {@link SupportQueue} and add the active Posts without an answer.
+     *
+     * @param api    the {@link JDA} instance
+     * @param config the {@link BetonBotConfig} instance
+     * @param guild  the {@link Guild} in which the support channels are located
+     * @param clock  the clock to read the current time from
+     */
+    public SupportQueue(final JDA api, final BetonBotConfig config, final Guild guild, final Clock clock) {
+        super();
+        this.config = config;
+        this.waiting = new IndexedHeap();
+        this.solvedWaiting = CacheBuilder.newBuilder()
+                .ticker(new ClockTicker(clock))
+                .maximumSize(MAX_SOLVED_WAITING)
+                .expireAfterWrite(Duration.ofDays(SOLVED_WAITING_DAYS))
+                .build();
+        for (final Long forumId : config.supportChannelIDs) {
+            final ForumChannel forum = guild.getChannelById(ForumChannel.class, forumId);
+            if (forum == null) {
+                continue;
+            }
+            for (final ThreadChannel channel : forum.getThreadChannels()) {
+                if (!channel.isArchived() && channel.getLatestMessageIdLong() == channel.getIdLong()
+                        && !ForumTagHolder.isSolved(channel.getAppliedTags(), config)) {
+                    waiting.put(channel.getIdLong(), channel.getTimeCreated().toInstant().toEpochMilli());
+                }
+            }
+        }
+        api.addEventListener(this);
+    }
+
+    /**
+     * Get the slash command data for this command.
+     *
+     * @return The slash command data
+     */
+    public @NotNull SlashCommandData getSlashCommandData() {
+        return Commands.slash(COMMAND, "Show the unsolved support posts that waited the longest for an answer.")
+                .setDefaultPermissions(DefaultMemberPermissions.enabledFor(Permission.ADMINISTRATOR));
+    }
+
+    /**
+     * Adds a new Post, that waits since it was created.
+     *
+     * @param channel the new Post
+     */
+    public synchronized void created(final ThreadChannel channel) {
+        waiting.put(channel.getIdLong(), channel.getTimeCreated().toInstant().toEpochMilli());
+    }
+
+    /**
+     * Removes a solved or archived Post, and remembers its waiting time if it was still waiting.
+     *
+     * @param channel the Post
+     */
+    public synchronized void solved(final ThreadChannel channel) {
+        final Long waitingSince = waiting.getPriority(channel.getIdLong());
+        if (waitingSince != null) {
+            solvedWaiting.put(channel.getIdLong(), waitingSince);
+            waiting.remove(channel.getIdLong());
+        }
+    }
+
+    /**
+     * Adds a reopened Post again, that waits since the time it waited before it was solved.
+     * A Post that was already answered before it was solved is not added.
+     *
+     * @param channel the reopened Post
+     */
+    public synchronized void reopened(final ThreadChannel channel) {
+        final Long waitingSince = solvedWaiting.getIfPresent(channel.getIdLong());
+        if (waitingSince != null && !waiting.contains(channel.getIdLong())) {
+            waiting.put(channel.getIdLong(), waitingSince);
+        }
+        solvedWaiting.invalidate(channel.getIdLong());
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull final MessageReceivedEvent event) {
+        if (!event.isFromThread() || event.getAuthor().isBot()) {
+            return;
+        }
+        final ThreadChannel channel = event.getChannel().asThreadChannel();
+        if (!config.supportChannelIDs.contains(channel.getParentChannel().getIdLong())) {
+            return;
+        }
+        synchronized (this) {
+            if (event.getAuthor().getIdLong() != channel.getOwnerIdLong()) {
+                waiting.remove(channel.getIdLong());
+            } else if (!waiting.contains(channel.getIdLong())
+                    && !ForumTagHolder.isSolved(channel.getAppliedTags(), config)) {
+                waiting.put(channel.getIdLong(), event.getMessage().getTimeCreated().toInstant().toEpochMilli());
+            }
+        }
+    }
+
+    @Override
+    public void onChannelDelete(@NotNull final ChannelDeleteEvent event) {
+        synchronized (this) {
+            waiting.remove(event.getChannel().getIdLong());
+            solvedWaiting.invalidate(event.getChannel().getIdLong());
+        }
+    }
+
+    @Override
+    public void onSlashCommandInteraction(@NotNull final SlashCommandInteractionEvent event) {
+        if (!COMMAND.equals(event.getName())) {
+            return;
+        }
+        final IndexedHeap.Entry[] entries;
+        final int total;
+        synchronized (this) {
+            entries = waiting.smallest(MAX_ENTRIES);
+            total = waiting.size();
+        }
+        if (entries.length == 0) {
+            Tracer.queue("reply", event.reply("No support post is waiting for an answer.").setEphemeral(true));
+            return;
+        }
+        final StringBuilder message = new StringBuilder(64 * entries.length)
+                .append(total).append(" support posts wait for an answer:");
+        for (final IndexedHeap.Entry entry : entries) {
+            message.append("\n<#").append(entry.key()).append("> waiting since ")
+                    .append(TimeFormat.RELATIVE.format(entry.priority()));
+        }
+        Tracer.queue("reply", event.reply(message.toString()).setEphemeral(true));
+    }
+}
@@ -3,24 +3,28 @@ package org.betonquest.discordbot.modules.support;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Message;
-import net.dv8tion.jda.api.entities.channel.attribute.IThreadContainer;
 import net.dv8tion.jda.api.entities.channel.concrete.ForumChannel;
 import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
 import net.dv8tion.jda.api.events.session.ShutdownEvent;
 import net.dv8tion.jda.api.exceptions.ErrorResponseException;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.betonquest.discordbot.config.BetonBotConfig;
-import org.betonquest.discordbot.modules.ForumTagHolder;
+import org.betonquest.discordbot.profiling.AutoCloseSweepEvent;
+import org.betonquest.discordbot.threading.BotThreads;
+import org.betonquest.discordbot.threading.StripedExecutor;
+import org.betonquest.discordbot.tracing.Tracer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.time.Clock;
 import java.time.OffsetDateTime;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This Class will check for inactive Support Posts and close them after a configured delay.
@@ -43,17 +47,48 @@ public class ThreadAutoCloseScheduler extends ListenerAdapter implements Runnabl
      */
     private final List<ForumChannel> supportForums;
 
+    /**
+     * The {@link SupportMetrics} to record events in.
+     */
+    private final SupportMetrics metrics;
+
+    /**
+     * The {@link StripedExecutor} that runs the changes of each Post in order.
+     */
+    private final StripedExecutor postChanges;
+
+    /**
+     * The {@link PostTags} to read the tags of Posts with.
+     */
+    private final PostTags postTags;
+
+    /**
+     * The clock to read the current time from.
+     */
+    private final Clock clock;
+
     /**
      * Creates and starts a new {@link ThreadAutoCloseScheduler}
      *
-     * @param api    the {@link JDA} instance
-     * @param config the {@link BetonBotConfig} instance
-     * @param guild  the {@link Guild} in which the support channels are located
+     * @param api         the {@link JDA} instance
+     * @param config      the {@link BetonBotConfig} instance
+     * @param guild       the {@link Guild} in which the support channels are located
+     * @param metrics     the {@link SupportMetrics} to record events in
+     * @param postChanges the {@link StripedExecutor} that runs the changes of each Post in order
+     * @param postTags    the {@link PostTags} to read the tags of Posts with
+     * @param threads     the {@link BotThreads} to create the scheduler with
+     * @param clock       the clock to read the current time from
      */
-    public ThreadAutoCloseScheduler(final JDA api, final BetonBotConfig config, final Guild guild) {
+    public ThreadAutoCloseScheduler(final JDA api, final BetonBotConfig config, final Guild guild,
+                                    final SupportMetrics metrics, final StripedExecutor postChanges,
+                                    final PostTags postTags, final BotThreads threads, final Clock clock) {
         super();
-        this.executorService = Executors.newScheduledThreadPool(1);
+        this.executorService = threads.newScheduler("AutoClose");
         this.config = config;
+        this.metrics = metrics;
+        this.postChanges = postChanges;
+        this.postTags = postTags;
+        this.clock = clock;
 
         supportForums = config.supportChannelIDs.stream()
                 .map(id -> guild.getChannelById(ForumChannel.class, id))
@@ -83,14 +118,44 @@ public class ThreadAutoCloseScheduler extends ListenerAdapter implements Runnabl
      */
     @Override
     public void run() {
-        final OffsetDateTime timeout = OffsetDateTime.now().minusMinutes(config.supportAutoCloseTimeout);
-        supportForums.stream()
-                .map(IThreadContainer::getThreadChannels)
-                .flatMap(Collection::stream)
-                .filter(channel -> !channel.isArchived()
-                        && ForumTagHolder.isSolved(channel.getAppliedTags(), config)
-                        && isLastForeignMessageTimedOut(channel, timeout)
-                ).forEach(channel -> channel.getManager().setArchived(true).queue());
+        final AutoCloseSweepEvent sweep = new AutoCloseSweepEvent();
+        sweep.begin();
+        final OffsetDateTime timeout = OffsetDateTime.now(clock).minusMinutes(config.supportAutoCloseTimeout);
+        final AtomicInteger closed = new AtomicInteger();
+        final List<CompletableFuture<Void>> closes = new ArrayList<>();
+        for (final ForumChannel forum : supportForums) {
+            for (final ThreadChannel channel : forum.getThreadChannels()) {
+                sweep.threadsChecked++;
+                sweep.lastThreadId = channel.getIdLong();
+                if (!channel.isArchived() && postTags.isSolved(channel)
+                        && isLastForeignMessageTimedOut(channel, timeout, sweep)) {
+                    sweep.restCalls++;
+                    closes.add(postChanges.execute(channel.getIdLong(), () -> close(channel, closed)));
+                }
+            }
+        }
+        sweep.end();
+        CompletableFuture.allOf(closes.toArray(new CompletableFuture<?>[0])).whenComplete((nothing, failure) -> {
+            sweep.threadsClosed = closed.get();
+            sweep.commit();
+        });
+    }
+
+    /**
+     * Closes a Post, unless it was archived or reopened since the check.
+     *
+     * @param channel the Post to close
+     * @param closed  the number of closed Posts of the sweep, that is incremented when the Post was closed
+     * @return the future that completes when the Post was closed
+     */
+    private CompletableFuture<Void> close(final ThreadChannel channel, final AtomicInteger closed) {
+        if (channel.isArchived() || !postTags.isSolved(channel)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return Tracer.submit("setArchived", channel.getManager().setArchived(true)).thenRun(() -> {
+            metrics.recordAutoClosed(channel);
+            closed.incrementAndGet();
+        });
     }
 
     /**
@@ -99,12 +164,15 @@ public class ThreadAutoCloseScheduler extends ListenerAdapter implements Runnabl
      *
      * @param channel the {@link ThreadChannel} to check
      * @param timeout the timeout
+     * @param sweep   the {@link AutoCloseSweepEvent} to count the REST calls in
      * @return true if the last foreign message was sent before the timeout
      */
-    private boolean isLastForeignMessageTimedOut(final ThreadChannel channel, final OffsetDateTime timeout) {
+    private boolean isLastForeignMessageTimedOut(final ThreadChannel channel, final OffsetDateTime timeout,
+                                                 final AutoCloseSweepEvent sweep) {
         try {
+            sweep.restCalls++;
             final Message lastMessage = channel.retrieveMessageById(channel.getLatestMessageId()).complete();
-            final Message lastForeignMessage = getLastForeignMessage(channel, lastMessage);
+            final Message lastForeignMessage = getLastForeignMessage(channel, lastMessage, sweep);
             return Objects.isNull(lastForeignMessage) || lastForeignMessage.getTimeCreated().isBefore(timeout);
         } catch (final ErrorResponseException e) {
             return true;
@@ -117,10 +185,12 @@ public class ThreadAutoCloseScheduler extends ListenerAdapter implements Runnabl
      *
      * @param channel the channel whose messages will be loaded
      * @param message the last message
+     * @param sweep   the {@link AutoCloseSweepEvent} to count the REST calls in
      * @return the last message not sent from the bot itself
      */
     @Nullable
-    private Message getLastForeignMessage(final ThreadChannel channel, @Nullable final Message message) {
+    private Message getLastForeignMessage(final ThreadChannel channel, @Nullable final Message message,
+                                          final AutoCloseSweepEvent sweep) {
         if (Objects.isNull(message)) {
             return null;
         }
@@ -129,12 +199,13 @@ public class ThreadAutoCloseScheduler extends ListenerAdapter implements Runnabl
             return message;
         }
 
+        sweep.restCalls++;
         final Message messageBefore = channel.getHistoryBefore(message, 1)
                 .complete()
                 .getRetrievedHistory()
                 .stream()
                 .findAny()
                 .orElse(null);
-        return getLastForeignMessage(channel, messageBefore);
+        return getLastForeignMessage(channel, messageBefore, sweep);
     }
 }
@@ -0,0 +1,439 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.RateLimiter;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.channel.concrete.ForumChannel;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.entities.channel.forums.ForumTag;
+import net.dv8tion.jda.api.events.session.ShutdownEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.betonquest.discordbot.ClockTicker;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.modules.ForumTagHolder;
+import org.betonquest.discordbot.threading.BotThreads;
+import org.betonquest.discordbot.threading.StripedExecutor;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This Class reconciles all Support Posts, including archived ones, with the current tag configuration.
+ * It covers Posts that changed while the Bot was offline and Posts affected by a changed tag configuration.
+ * <p>
+ * Active Posts are reconciled on every start. Archived Posts are paged through once per tag configuration,
+ * the progress is saved in a {@link ReconcileCheckpoint} so the reconciliation resumes after a restart.
+ * All REST requests are limited by a configurable budget and a maximum number of concurrent requests.
+ * Archived Posts that could not be archived again after their tags were changed are retried before the next
+ * checkpoint and at the end, so a Post is not left open by a single failed request.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class ThreadReconciler extends ListenerAdapter implements Runnable {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThreadReconciler.class);
+
+    /**
+     * The number of archived Posts requested per page.
+     */
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * The time after which events of a reconciled Post are handled again by the {@link ThreadUpdateListener},
+     * if the update event of the reconciliation never arrived.
+     */
+    private static final Duration TOUCH_GRACE_PERIOD = Duration.ofMinutes(1);
+
+    /**
+     * The number of attempts to archive a reconciled Post again, after the first request failed.
+     */
+    private static final int ARCHIVE_RETRIES = 3;
+
+    /**
+     * The Executor running the reconciliation.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The {@link ForumChannel}s whose Posts should be reconciled.
+     */
+    private final List<ForumChannel> supportForums;
+
+    /**
+     * The path to the checkpoint file.
+     */
+    private final Path checkpointPath;
+
+    /**
+     * The REST budget of the reconciliation.
+     */
+    private final RateLimiter restBudget;
+
+    /**
+     * Limits the number of concurrent REST requests.
+     */
+    private final Semaphore inFlight;
+
+    /**
+     * The maximum number of concurrent REST requests.
+     */
+    private final int concurrency;
+
+    /**
+     * The {@link StripedExecutor} that runs the changes of each Post in order.
+     */
+    private final StripedExecutor postChanges;
+
+    /**
+     * The {@link PostTags} to read and apply the tags of Posts with.
+     */
+    private final PostTags postTags;
+
+    /**
+     * The state of Posts changed by the reconciliation after the change, by their ID,
+     * until the update event of this state arrived.
+     */
+    private final Cache<Long, Touch> touchedThreads;
+
+    /**
+     * The archived Posts whose tags were changed, but that could not be archived again yet.
+     */
+    private final Set<ThreadChannel> unarchived;
+
+    /**
+     * The tags to keep on solved Posts, or an empty list to keep all tags.
+     */
+    private final List<Long> solvedTagsToKeep;
+
+    /**
+     * The number of checked Posts.
+     */
+    private final AtomicInteger checked;
+
+    /**
+     * The number of changed Posts.
+     */
+    private final AtomicInteger changed;
+
+    /**
+     * Creates and starts a new {@link ThreadReconciler}, if enabled in the config.
+     *
+     * @param api            the {@link JDA} instance
+     * @param config         the {@link BetonBotConfig} instance
+     * @param guild          the {@link Guild} in which the support channels are located
+     * @param checkpointPath the path to the checkpoint file
+     * @param threads        the {@link BotThreads} to create the executor with
+     * @param postChanges    the {@link StripedExecutor} that runs the changes of each Post in order
+     * @param postTags       the {@link PostTags} to read and apply the tags of Posts with
+     * @param clock          the clock to read the current time from
+     */
+    public ThreadReconciler(final JDA api, final BetonBotConfig config, final Guild guild, final Path checkpointPath,
+                            final BotThreads threads, final StripedExecutor postChanges, final PostTags postTags,
+                            final Clock clock) {
+        super();
+        this.executorService = threads.newSingleThreadExecutor("Reconciler");
+        this.config = config;
+        this.checkpointPath = checkpointPath;
+        this.restBudget = RateLimiter.create(Math.max(1, config.supportReconcileRequestsPerMinute) / 60.0);
+        this.concurrency = Math.max(1, config.supportReconcileConcurrency);
+        this.inFlight = new Semaphore(concurrency);
+        this.postChanges = postChanges;
+        this.postTags = postTags;
+        this.touchedThreads = CacheBuilder.newBuilder()
+                .ticker(new ClockTicker(clock))
+                .expireAfterWrite(TOUCH_GRACE_PERIOD)
+                .build();
+        this.unarchived = ConcurrentHashMap.newKeySet();
+        this.solvedTagsToKeep = getSolvedTagsToKeep(config);
+        this.checked = new AtomicInteger();
+        this.changed = new AtomicInteger();
+
+        supportForums = config.supportChannelIDs.stream()
+                .map(id -> guild.getChannelById(ForumChannel.class, id))
+                .filter(Objects::nonNull)
+                .toList();
+
+        if (config.supportReconcileEnabled) {
+            executorService.execute(this);
+            api.addEventListener(this);
+        }
+    }
+
+    private static List<Long> getSolvedTagsToKeep(final BetonBotConfig config) {
+        final List<Long> keep = new ArrayList<>();
+        for (final Object id : (List<?>) config.supportTagsToKeep) {
+            if (id instanceof final Number number && number.longValue() > 0) {
+                keep.add(number.longValue());
+            }
+        }
+        if (!keep.isEmpty()) {
+            keep.add(config.supportTagsSolved);
+        }
+        return keep;
+    }
+
+    @Override
+    public void onShutdown(@NotNull final ShutdownEvent event) {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Checks if an update event of the given Post is caused by the reconciliation.
+     * Such events should not be handled again. The Post is handled normally again once its update event shows
+     * the state the reconciliation changed it to.
+     *
+     * @param thread the Post, with the state of the update event
+     * @return true if the Post is changed by the reconciliation
+     */
+    public boolean isReconciling(final ThreadChannel thread) {
+        final Touch touch = touchedThreads.getIfPresent(thread.getIdLong());
+        if (touch == null) {
+            return false;
+        }
+        if (touch.archived() == thread.isArchived() && touch.tags().equals(thread.getAppliedTags().stream()
+                .map(ForumTag::getIdLong)
+                .toList())) {
+            touchedThreads.invalidate(thread.getIdLong());
+        }
+        return true;
+    }
+
+    /**
+     * Reconciles all active Posts and the archived Posts that were not reconciled with the current tag plan yet.
+     */
+    @Override
+    public void run() {
+        LOGGER.info("Reconciling support posts ...");
+        try {
+            final ReconcileCheckpoint checkpoint = new ReconcileCheckpoint(checkpointPath, getPlanHash());
+            for (final ForumChannel forum : supportForums) {
+                for (final ThreadChannel thread : forum.getThreadChannels()) {
+                    reconcile(thread);
+                }
+            }
+            for (final ForumChannel forum : supportForums) {
+                if (!checkpoint.isDone(forum.getIdLong())) {
+                    reconcileArchived(forum, checkpoint);
+                }
+            }
+            awaitInFlight();
+            archiveUnarchived();
+            LOGGER.info("Reconciled support posts. Checked: {}, Changed: {}", checked.get(), changed.get());
+        } catch (final IOException e) {
+            LOGGER.error("Could not read the reconcile checkpoint file '{}'! Reason: ", checkpointPath, e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Reconciliation of support posts was interrupted. Checked: {}, Changed: {}",
+                    checked.get(), changed.get());
+        }
+    }
+
+    /**
+     * Pages through the archived Posts of a forum, newest first, skipping those already covered by the checkpoint.
+     *
+     * @param forum      the forum
+     * @param checkpoint the checkpoint
+     * @throws InterruptedException if interrupted while waiting for the REST budget
+     */
+    private void reconcileArchived(final ForumChannel forum, final ReconcileCheckpoint checkpoint)
+            throws InterruptedException {
+        final long forumId = forum.getIdLong();
+        final long lastArchived = checkpoint.getLastArchived(forumId);
+        int fetched = 0;
+        int sinceCheckpoint = 0;
+        restBudget.acquire();
+        for (final ThreadChannel thread : forum.retrieveArchivedPublicThreadChannels().setLimit(PAGE_SIZE)) {
+            if (++fetched % PAGE_SIZE == 0) {
+                restBudget.acquire();
+            }
+            final long archivedAt = thread.getTimeArchiveInfoLastModified().toInstant().toEpochMilli();
+            if (lastArchived != 0 && archivedAt >= lastArchived) {
+                continue;
+            }
+            reconcile(thread);
+            if (++sinceCheckpoint >= config.supportReconcileCheckpointInterval) {
+                awaitInFlight();
+                archiveUnarchived();
+                checkpoint.update(forumId, archivedAt);
+                sinceCheckpoint = 0;
+            }
+        }
+        awaitInFlight();
+        checkpoint.markDone(forumId);
+        LOGGER.info("Reconciled archived support posts of forum '{}'.", forum.getName());
+    }
+
+    /**
+     * Applies the current tag plan to a Post, if its tags differ from the plan.
+     * The change runs with the other changes of the Post in order.
+     *
+     * @param thread the Post
+     * @throws InterruptedException if interrupted while waiting for the REST budget
+     */
+    private void reconcile(final ThreadChannel thread) throws InterruptedException {
+        checked.incrementAndGet();
+        if (plan(thread) == null) {
+            return;
+        }
+
+        changed.incrementAndGet();
+        inFlight.acquire();
+        restBudget.acquire(thread.isArchived() ? 2 : 1);
+        postChanges.execute(thread.getIdLong(), () -> change(thread)).whenComplete((nothing, failure) -> {
+            if (failure != null) {
+                touchedThreads.invalidate(thread.getIdLong());
+                onFailure(thread, failure);
+            }
+            inFlight.release();
+        });
+    }
+
+    /**
+     * Creates the tags of a Post according to the current tag plan.
+     *
+     * @param thread the Post
+     * @return the tags to apply, or null if the Post already matches the plan
+     */
+    @Nullable
+    private ForumTagHolder plan(final ThreadChannel thread) {
+        final List<Long> appliedTags = postTags.getTagIds(thread);
+        final boolean solved = appliedTags.contains(config.supportTagsSolved);
+        if (thread.isArchived() && !solved) {
+            return null;
+        }
+        final ForumTagHolder tagHolder = new ForumTagHolder(thread, appliedTags);
+        if (solved && !solvedTagsToKeep.isEmpty()) {
+            tagHolder.keepTags(solvedTagsToKeep);
+        } else if (!solved && appliedTags.isEmpty()) {
+            tagHolder.add(config.supportTagsDefault);
+        }
+        return tagHolder.isApplied(config.supportTagsOrder) ? null : tagHolder;
+    }
+
+    /**
+     * Applies the tag plan to a Post, unless it already matches the plan since the check.
+     * Archived Posts are reopened to change the tags and archived again afterwards.
+     *
+     * @param thread the Post
+     * @return the future that completes when the Post was changed
+     */
+    private CompletableFuture<Void> change(final ThreadChannel thread) {
+        final ForumTagHolder tagHolder = plan(thread);
+        if (tagHolder == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        touchedThreads.put(thread.getIdLong(),
+                new Touch(tagHolder.getTagIdsToApply(config.supportTagsOrder), thread.isArchived()));
+        if (!thread.isArchived()) {
+            return Tracer.submit("setAppliedTags", tagHolder.prepare(config.supportTagsOrder))
+                    .thenRun(() -> postTags.applied(thread, tagHolder));
+        }
+        return Tracer.submit("setAppliedTags", tagHolder.prepare(config.supportTagsOrder).setArchived(false))
+                .thenCompose(nothing -> {
+                    postTags.applied(thread, tagHolder);
+                    return Tracer.submit("setArchived", thread.getManager().setArchived(true))
+                            .exceptionally(failure -> {
+                                onArchiveFailure(thread, failure);
+                                return null;
+                            });
+                });
+    }
+
+    private void onFailure(final ThreadChannel thread, final Throwable failure) {
+        LOGGER.atWarn().addKeyValue("event", "reconcile").addKeyValue("guild", thread.getGuild().getIdLong())
+                .addKeyValue("channel", thread.getIdLong())
+                .log("Could not reconcile support post '{}'. Reason: {}", thread.getId(), failure.getMessage());
+    }
+
+    private void onArchiveFailure(final ThreadChannel thread, final Throwable failure) {
+        LOGGER.atWarn().addKeyValue("event", "reconcile").addKeyValue("guild", thread.getGuild().getIdLong())
+                .addKeyValue("channel", thread.getIdLong())
+                .log("The support post '{}' was reconciled but is unarchived, as it could not be archived again. "
+                        + "It is retried later. Reason: {}", thread.getId(), failure.getMessage());
+        unarchived.add(thread);
+    }
+
+    /**
+     * Archives the reconciled Posts again, whose first request to archive them failed.
+     * Posts that still fail are logged and left to the listeners, as they stay open.
+     *
+     * @throws InterruptedException if interrupted while waiting for the REST budget or a request
+     */
+    private void archiveUnarchived() throws InterruptedException {
+        for (final ThreadChannel thread : List.copyOf(unarchived)) {
+            unarchived.remove(thread);
+            if (!archiveAgain(thread)) {
+                touchedThreads.invalidate(thread.getIdLong());
+                LOGGER.atError().addKeyValue("event", "reconcile").addKeyValue("guild", thread.getGuild().getIdLong())
+                        .addKeyValue("channel", thread.getIdLong())
+                        .log("The support post '{}' is still unarchived after {} attempts to archive it again!",
+                                thread.getId(), ARCHIVE_RETRIES + 1);
+            }
+        }
+    }
+
+    private boolean archiveAgain(final ThreadChannel thread) throws InterruptedException {
+        for (int attempt = 1; attempt <= ARCHIVE_RETRIES; attempt++) {
+            touchedThreads.put(thread.getIdLong(), new Touch(postTags.getTagIds(thread), true));
+            restBudget.acquire();
+            try {
+                postChanges.execute(thread.getIdLong(),
+                        () -> Tracer.submit("setArchived", thread.getManager().setArchived(true))).get();
+                return true;
+            } catch (final ExecutionException e) {
+                LOGGER.debug("Attempt {} to archive the support post '{}' again failed.", attempt, thread.getId(),
+                        e.getCause());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits until all queued REST requests are completed.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void awaitInFlight() throws InterruptedException {
+        inFlight.acquire(concurrency);
+        inFlight.release(concurrency);
+    }
+
+    private int getPlanHash() {
+        return Objects.hash(config.supportTagsSolved, config.supportTagsDefault,
+                config.supportTagsOrder, config.supportTagsToKeep);
+    }
+
+    /**
+     * The state of a Post after a change of the reconciliation.
+     *
+     * @param tags     the IDs of the applied tags
+     * @param archived if the Post is archived
+     */
+    private record Touch(List<Long> tags, boolean archived) {
+    }
+}
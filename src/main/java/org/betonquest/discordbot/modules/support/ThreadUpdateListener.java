@@ -7,8 +7,14 @@ import net.dv8tion.jda.api.events.channel.update.ChannelUpdateArchivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.betonquest.discordbot.config.BetonBotConfig;
 import org.betonquest.discordbot.modules.ForumTagHolder;
+import org.betonquest.discordbot.threading.StripedExecutor;
+import org.betonquest.discordbot.tracing.Tracer;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * This listener sorts and adds tags when Users change them.
  * It also closes Forum Posts when they are solved and inactive.
@@ -20,15 +26,67 @@ public class ThreadUpdateListener extends ListenerAdapter {
      */
     private final BetonBotConfig config;
 
+    /**
+     * The {@link ThreadReconciler} whose own changes should be ignored.
+     */
+    private final ThreadReconciler reconciler;
+
+    /**
+     * The {@link SupportMetrics} to record events in.
+     */
+    private final SupportMetrics metrics;
+
+    /**
+     * The {@link SolvedPosts} to notify about solved and reopened Posts.
+     */
+    private final SolvedPosts solvedPosts;
+
+    /**
+     * The {@link SupportQueue} to update with solved and reopened Posts.
+     */
+    private final SupportQueue queue;
+
+    /**
+     * The {@link StripedExecutor} that runs the changes of each Post in order.
+     */
+    private final StripedExecutor postChanges;
+
+    /**
+     * The {@link PostTags} to read and apply the tags of Posts with.
+     */
+    private final PostTags postTags;
+
+    /**
+     * The Posts whose solved tag is removed by the bot after they were reopened by unarchiving them.
+     * A Post is removed when the tag update event of the bot arrives, or when the bot did not change the tags.
+     */
+    private final Set<Long> removingSolvedTag;
+
     /**
      * Create a new {@link ThreadUpdateListener}
      *
-     * @param api    the {@link JDA} instance
-     * @param config the {@link BetonBotConfig} instance
+     * @param api         the {@link JDA} instance
+     * @param config      the {@link BetonBotConfig} instance
+     * @param reconciler  the {@link ThreadReconciler} whose own changes should be ignored
+     * @param metrics     the {@link SupportMetrics} to record events in
+     * @param solvedPosts the {@link SolvedPosts} to notify about solved and reopened Posts
+     * @param queue       the {@link SupportQueue} to update with solved and reopened Posts
+     * @param postChanges the {@link StripedExecutor} that runs the changes of each Post in order
+     * @param postTags    the {@link PostTags} to read and apply the tags of Posts with
      */
-    public ThreadUpdateListener(final JDA api, final BetonBotConfig config) {
+    public ThreadUpdateListener(final JDA api, final BetonBotConfig config, final ThreadReconciler reconciler,
+                                final SupportMetrics metrics, final SolvedPosts solvedPosts,
+                                final SupportQueue queue, final StripedExecutor postChanges,
+                                final PostTags postTags) {
         super();
         this.config = config;
+        this.reconciler = reconciler;
+        this.metrics = metrics;
+        this.solvedPosts = solvedPosts;
+        this.queue = queue;
+        this.postChanges = postChanges;
+        this.postTags = postTags;
+        this.removingSolvedTag = ConcurrentHashMap.newKeySet();
         api.addEventListener(this);
     }
 
@@ -41,9 +99,15 @@ public class ThreadUpdateListener extends ListenerAdapter {
         if (channel.isArchived()) {
             return;
         }
-        final ForumTagHolder tagHolder = new ForumTagHolder(channel);
-
-        tagHolder.apply(config.supportTagsOrder);
+        if (ForumTagHolder.isSolved(event.getAddedTags(), config)) {
+            metrics.recordSolved(channel);
+            solvedPosts.solved(channel);
+            queue.solved(channel);
+        } else if (ForumTagHolder.isSolved(event.getRemovedTags(), config)
+                && !removingSolvedTag.remove(channel.getIdLong())) {
+            reopened(channel);
+        }
+        postChanges.execute(channel.getIdLong(), () -> applyTags(channel, postTags.getHolder(channel)));
     }
 
     @Override
@@ -54,21 +118,70 @@ public class ThreadUpdateListener extends ListenerAdapter {
         final ThreadChannel channel = event.getChannel().asThreadChannel();
 
         if (channel.isArchived() && !ForumTagHolder.isSolved(channel.getAppliedTags(), config)) {
-            channel.getManager().setArchived(false).queue();
-        } else if (!channel.isArchived()) {
-            new ForumTagHolder(channel)
-                    .remove(config.supportTagsSolved)
-                    .apply(config.supportTagsOrder);
+            postChanges.execute(channel.getIdLong(), () -> {
+                if (channel.isArchived() && !postTags.isSolved(channel)) {
+                    return Tracer.submit("setArchived", channel.getManager().setArchived(false));
+                }
+                return CompletableFuture.completedFuture(null);
+            });
+        } else if (channel.isArchived()) {
+            queue.solved(channel);
+        } else if (ForumTagHolder.isSolved(channel.getAppliedTags(), config)) {
+            reopened(channel);
+            removingSolvedTag.add(channel.getIdLong());
+            postChanges.execute(channel.getIdLong(), () -> applyTags(channel, postTags.getHolder(channel)
+                            .remove(config.supportTagsSolved))
+                            .thenApply(changed -> {
+                                if (!changed) {
+                                    removingSolvedTag.remove(channel.getIdLong());
+                                }
+                                return changed;
+                            }))
+                    .whenComplete((nothing, error) -> {
+                        if (error != null) {
+                            removingSolvedTag.remove(channel.getIdLong());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Records a solved Post that was reopened by a user, either by removing the solved tag or by unarchiving it.
+     * Unarchiving an unsolved Post, like the bot does, and the removal of the solved tag by the bot are no reopens.
+     *
+     * @param channel the reopened Post
+     */
+    private void reopened(final ThreadChannel channel) {
+        metrics.recordReopened(channel);
+        solvedPosts.reopened(channel);
+        queue.reopened(channel);
+    }
+
+    /**
+     * Applies the tags in the configured order, unless the Post was archived in the meantime
+     * or the tags are already applied.
+     *
+     * @param channel   the Post
+     * @param tagHolder the tags to apply
+     * @return the future that completes with true when the tags were changed,
+     * or with false if nothing had to be changed
+     */
+    private CompletableFuture<Boolean> applyTags(final ThreadChannel channel, final ForumTagHolder tagHolder) {
+        if (channel.isArchived()) {
+            return CompletableFuture.completedFuture(false);
         }
+        return postTags.apply(channel, tagHolder);
     }
 
     /**
      * Checks if the given Threads Parent Channel is <b>not</b> a SupportChannel.
+     * Threads that are currently changed by the {@link ThreadReconciler} are treated as not being a SupportChannel.
      *
      * @param channel The Thread to check
      * @return true if not a support channel, otherwise false.
      */
     private boolean isNotSupportChannel(final ThreadChannel channel) {
-        return !config.supportChannelIDs.contains(channel.getParentChannel().getIdLong());
+        return !config.supportChannelIDs.contains(channel.getParentChannel().getIdLong())
+                || reconciler.isReconciling(channel);
     }
 }
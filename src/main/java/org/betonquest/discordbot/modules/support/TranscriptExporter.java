@@ -0,0 +1,239 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.util.concurrent.RateLimiter;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageHistory;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.events.channel.update.ChannelUpdateArchivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.modules.ForumTagHolder;
+import org.betonquest.discordbot.threading.BotThreads;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the messages of archived solved Support Posts as transcripts for the knowledge base.
+ * <p>
+ * The history of a Post is paged through from the first message, one page at a time, and each message is streamed
+ * as a JSON line into a gzip file. Only one page is held in memory. A completed export is appended to the manifest
+ * {@value #MANIFEST}, which is also used to export each Post only once.
+ * Several Posts are exported at the same time, all REST requests are limited by a configurable budget.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class TranscriptExporter extends ListenerAdapter {
+    /**
+     * The file name of the manifest.
+     */
+    public static final String MANIFEST = "manifest.jsonl";
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(TranscriptExporter.class);
+
+    /**
+     * The number of messages requested per page, the maximum allowed by Discord.
+     */
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * The buffer size of the compressed output in bytes.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The directory the transcripts and the manifest are written to.
+     */
+    private final Path directory;
+
+    /**
+     * The executor running the exports.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * The REST budget of the export.
+     */
+    private final RateLimiter restBudget;
+
+    /**
+     * The clock to read the current time from.
+     */
+    private final Clock clock;
+
+    /**
+     * The IDs of the Posts that were exported or are being exported.
+     */
+    private final Set<Long> exported;
+
+    /**
+     * Creates a new {@link TranscriptExporter}, if enabled in the config.
+     *
+     * @param api       the {@link JDA} instance
+     * @param config    the {@link BetonBotConfig} instance
+     * @param directory the directory the transcripts and the manifest are written to
+     * @param threads   the {@link BotThreads} to create the executor with
+     * @param clock     the clock to read the current time from
+     * @throws IOException if the manifest could not be read
+     */
+    public TranscriptExporter(final JDA api, final BetonBotConfig config, final Path directory,
+                              final BotThreads threads, final Clock clock) throws IOException {
+        super();
+        this.config = config;
+        this.directory = directory;
+        this.clock = clock;
+        this.exported = ConcurrentHashMap.newKeySet();
+        this.restBudget = RateLimiter.create(Math.max(1, config.supportTranscriptsRequestsPerMinute) / 60.0);
+        this.executorService = threads.newFixedThreadPool("Transcripts",
+                Math.max(1, config.supportTranscriptsConcurrency));
+        if (!config.supportTranscriptsEnabled) {
+            return;
+        }
+        loadManifest();
+        api.addEventListener(this);
+    }
+
+    @Override
+    public void onChannelUpdateArchived(@NotNull final ChannelUpdateArchivedEvent event) {
+        if (!(event.getChannel() instanceof final ThreadChannel channel) || !channel.isArchived()
+                || !config.supportChannelIDs.contains(channel.getParentChannel().getIdLong())
+                || !ForumTagHolder.isSolved(channel.getAppliedTags(), config)) {
+            return;
+        }
+        export(channel);
+    }
+
+    /**
+     * Exports the transcript of a Post in the background, if it was not exported yet.
+     *
+     * @param channel the Post
+     */
+    public void export(final ThreadChannel channel) {
+        if (exported.add(channel.getIdLong())) {
+            executorService.execute(() -> run(channel));
+        }
+    }
+
+    private void loadManifest() throws IOException {
+        final Path manifest = directory.resolve(MANIFEST);
+        Files.createDirectories(directory);
+        if (!Files.exists(manifest)) {
+            return;
+        }
+        try (Stream<String> lines = Files.lines(manifest, StandardCharsets.UTF_8)) {
+            lines.filter(line -> !line.isBlank())
+                    .forEach(line -> exported.add(DataObject.fromJson(line).getLong("thread")));
+        }
+        LOGGER.info("Loaded {} exported transcripts.", exported.size());
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void run(final ThreadChannel channel) {
+        final long threadId = channel.getIdLong();
+        final Path forumDirectory = directory.resolve(channel.getParentChannel().getId());
+        final Path file = forumDirectory.resolve(threadId + ".jsonl.gz");
+        final Path temp = forumDirectory.resolve(threadId + ".jsonl.gz.tmp");
+        try {
+            Files.createDirectories(forumDirectory);
+            final int messages = write(channel, temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            appendManifest(DataObject.empty()
+                    .put("thread", threadId)
+                    .put("forum", channel.getParentChannel().getIdLong())
+                    .put("name", channel.getName())
+                    .put("owner", channel.getOwnerIdLong())
+                    .put("messages", messages)
+                    .put("bytes", Files.size(file))
+                    .put("file", directory.relativize(file).toString())
+                    .put("exported", clock.millis()));
+            LOGGER.debug("Exported {} messages of the Post {}.", messages, threadId);
+        } catch (final IOException | RuntimeException e) {
+            exported.remove(threadId);
+            LOGGER.warn("Could not export the transcript of the Post {}.", threadId, e);
+        } finally {
+            deleteTemp(temp, threadId);
+        }
+    }
+
+    private void deleteTemp(final Path temp, final long threadId) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (final IOException e) {
+            LOGGER.warn("Could not delete the temporary transcript of the Post {}.", threadId, e);
+        }
+    }
+
+    private int write(final ThreadChannel channel, final Path file) throws IOException {
+        int messages = 0;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                     Channels.newOutputStream(fileChannel), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            restBudget.acquire();
+            List<Message> page = MessageHistory.getHistoryFromBeginning(channel).limit(PAGE_SIZE).complete()
+                    .getRetrievedHistory();
+            while (!page.isEmpty()) {
+                for (int i = page.size() - 1; i >= 0; i--) {
+                    writer.write(toJson(page.get(i)).toString());
+                    writer.write('\n');
+                    messages++;
+                }
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                restBudget.acquire();
+                page = MessageHistory.getHistoryAfter(channel, page.get(0).getId()).limit(PAGE_SIZE).complete()
+                        .getRetrievedHistory();
+            }
+        }
+        return messages;
+    }
+
+    private DataObject toJson(final Message message) {
+        final DataArray attachments = DataArray.empty();
+        message.getAttachments().forEach(attachment -> attachments.add(attachment.getUrl()));
+        return DataObject.empty()
+                .put("id", message.getIdLong())
+                .put("author", message.getAuthor().getIdLong())
+                .put("authorName", message.getAuthor().getName())
+                .put("bot", message.getAuthor().isBot())
+                .put("created", message.getTimeCreated().toString())
+                .put("edited", message.getTimeEdited() == null ? null : message.getTimeEdited().toString())
+                .put("content", message.getContentRaw())
+                .put("attachments", attachments);
+    }
+
+    private synchronized void appendManifest(final DataObject entry) throws IOException {
+        Files.writeString(directory.resolve(MANIFEST), entry.toString() + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
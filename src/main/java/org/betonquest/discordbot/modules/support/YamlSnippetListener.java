@@ -0,0 +1,180 @@
+package org.betonquest.discordbot.modules.support;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.threading.BotThreads;
+import org.betonquest.discordbot.tracing.Tracer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates the YAML code blocks of messages in Support Posts with the {@link YamlSnippetValidator}
+ * and answers with the first error.
+ * <p>
+ * The validation runs on a bounded pool with a timeout, further code blocks are skipped while the pool is busy.
+ * Results are cached by the hash of the code block, and a code block that is posted several times at once is only
+ * validated once.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class YamlSnippetListener extends ListenerAdapter {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(YamlSnippetListener.class);
+
+    /**
+     * The maximum number of validated code blocks per message.
+     */
+    private static final int MAX_SNIPPETS_PER_MESSAGE = 5;
+
+    /**
+     * The number of cached results.
+     */
+    private static final int CACHE_SIZE = 512;
+
+    /**
+     * The {@link BetonBotConfig} instance.
+     */
+    private final BetonBotConfig config;
+
+    /**
+     * The validator of the code blocks.
+     */
+    private final YamlSnippetValidator validator;
+
+    /**
+     * The executor running the validation.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * The permits for running and waiting validations.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The running and completed validations by the hash of the code block.
+     */
+    private final Cache<String, CompletableFuture<Optional<YamlSnippetValidator.Problem>>> results;
+
+    /**
+     * Creates a new {@link YamlSnippetListener}, if enabled in the config.
+     *
+     * @param api     the {@link JDA} instance
+     * @param config  the {@link BetonBotConfig} instance
+     * @param threads the {@link BotThreads} to create the executor with
+     */
+    public YamlSnippetListener(final JDA api, final BetonBotConfig config, final BotThreads threads) {
+        super();
+        this.config = config;
+        this.validator = new YamlSnippetValidator(config.supportYamlValidationMaxSize,
+                config.supportYamlValidationMaxDepth, config.supportYamlValidationMaxAliases);
+        final int poolSize = Math.max(1, config.supportYamlValidationThreads);
+        this.executorService = threads.newFixedThreadPool("YamlValidation", poolSize);
+        this.permits = new Semaphore(4 * poolSize);
+        this.results = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+        if (config.supportYamlValidationEnabled) {
+            api.addEventListener(this);
+        }
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull final MessageReceivedEvent event) {
+        if (!event.isFromThread() || event.getAuthor().isBot()) {
+            return;
+        }
+        final ThreadChannel channel = event.getChannel().asThreadChannel();
+        if (!config.supportChannelIDs.contains(channel.getParentChannel().getIdLong())) {
+            return;
+        }
+        final List<String> snippets = YamlSnippetValidator.findSnippets(event.getMessage().getContentRaw()).stream()
+                .filter(snippet -> snippet.length() <= config.supportYamlValidationMaxSize)
+                .limit(MAX_SNIPPETS_PER_MESSAGE)
+                .toList();
+        if (snippets.isEmpty()) {
+            return;
+        }
+        final List<CompletableFuture<Optional<YamlSnippetValidator.Problem>>> validations = new ArrayList<>();
+        for (final String snippet : snippets) {
+            final CompletableFuture<Optional<YamlSnippetValidator.Problem>> validation = validate(snippet);
+            if (validation == null) {
+                LOGGER.debug("Skipped the YAML code blocks of the message {}, as the validation is busy.",
+                        event.getMessageId());
+                return;
+            }
+            validations.add(validation);
+        }
+        CompletableFuture.allOf(validations.toArray(new CompletableFuture<?>[0]))
+                .thenRun(() -> {
+                    for (int i = 0; i < validations.size(); i++) {
+                        final Optional<YamlSnippetValidator.Problem> problem = validations.get(i).join();
+                        if (problem.isPresent()) {
+                            reply(event.getMessage(), i + 1, problem.get());
+                            return;
+                        }
+                    }
+                })
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        LOGGER.info("The validation of the YAML code blocks of the message {} failed.",
+                                event.getMessageId(), error);
+                    }
+                });
+    }
+
+    @Nullable
+    private CompletableFuture<Optional<YamlSnippetValidator.Problem>> validate(final String snippet) {
+        final String key = Hashing.sha256().hashString(snippet, StandardCharsets.UTF_8).toString();
+        final CompletableFuture<Optional<YamlSnippetValidator.Problem>> validation =
+                results.asMap().computeIfAbsent(key, hash -> {
+                    if (!permits.tryAcquire()) {
+                        return null;
+                    }
+                    return CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return validator.validate(snippet);
+                        } finally {
+                            permits.release();
+                        }
+                    }, executorService).orTimeout(config.supportYamlValidationTimeout, TimeUnit.SECONDS);
+                });
+        if (validation != null) {
+            validation.whenComplete((result, error) -> {
+                if (error != null) {
+                    results.asMap().remove(key, validation);
+                }
+            });
+        }
+        return validation;
+    }
+
+    private void reply(final Message message, final int snippet, final YamlSnippetValidator.Problem problem) {
+        final String pointer = problem.column() > 0 && problem.column() <= problem.context().length() + 1
+                ? "\n" + " ".repeat(problem.column() - 1) + "^" : "";
+        Tracer.queue("replyEmbeds", message.replyEmbeds(config.supportYamlValidationEmbed
+                .variable("snippet", String.valueOf(snippet))
+                .variable("line", String.valueOf(problem.line()))
+                .variable("column", String.valueOf(problem.column()))
+                .variable("problem", problem.problem())
+                .variable("context", problem.context().replace("```", "'''") + pointer)
+                .getEmbed()));
+    }
+}
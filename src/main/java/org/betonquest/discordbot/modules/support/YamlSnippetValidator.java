@@ -0,0 +1,124 @@
+package org.betonquest.discordbot.modules.support;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.MarkedYAMLException;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Validates YAML snippets, like the ones users paste in code blocks, with the bundled SnakeYAML.
+ * <p>
+ * Snippets are loaded with the safe constructor, so only standard YAML types are created. The size, the nesting depth
+ * and the aliases of a snippet are limited, and duplicate keys are reported as errors, as BetonQuest would silently
+ * use only one of them.
+ */
+public class YamlSnippetValidator {
+    /**
+     * The code blocks marked as YAML.
+     */
+    private static final Pattern CODE_BLOCK = Pattern.compile("```(?:yaml|yml)[ \\t]*\\R(.*?)```",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The maximum length of the line shown in an error.
+     */
+    private static final int MAX_CONTEXT_LENGTH = 200;
+
+    /**
+     * The options of the loader.
+     */
+    private final LoaderOptions options;
+
+    /**
+     * Creates a new {@link YamlSnippetValidator}.
+     *
+     * @param maxSize    the maximum number of characters of a snippet
+     * @param maxDepth   the maximum nesting depth of a snippet
+     * @param maxAliases the maximum number of aliases in a snippet
+     */
+    public YamlSnippetValidator(final int maxSize, final int maxDepth, final int maxAliases) {
+        this.options = new LoaderOptions();
+        options.setCodePointLimit(maxSize);
+        options.setNestingDepthLimit(maxDepth);
+        options.setMaxAliasesForCollections(maxAliases);
+        options.setAllowRecursiveKeys(false);
+        options.setAllowDuplicateKeys(false);
+    }
+
+    /**
+     * Finds the YAML code blocks in a message.
+     *
+     * @param content the raw content of the message
+     * @return the content of the code blocks, in the order of the message
+     */
+    public static List<String> findSnippets(final String content) {
+        if (!content.toLowerCase(Locale.ROOT).contains("```y")) {
+            return List.of();
+        }
+        final List<String> snippets = new ArrayList<>();
+        final Matcher matcher = CODE_BLOCK.matcher(content);
+        while (matcher.find()) {
+            if (!matcher.group(1).isBlank()) {
+                snippets.add(matcher.group(1));
+            }
+        }
+        return snippets;
+    }
+
+    /**
+     * Validates a snippet. A snippet may contain several documents.
+     *
+     * @param snippet the snippet
+     * @return the first error, or empty if the snippet is valid
+     */
+    public Optional<Problem> validate(final String snippet) {
+        final Yaml yaml = new Yaml(new SafeConstructor(options));
+        try {
+            final Iterator<Object> documents = yaml.loadAll(snippet).iterator();
+            while (documents.hasNext()) {
+                documents.next();
+            }
+            return Optional.empty();
+        } catch (final MarkedYAMLException e) {
+            final Mark mark = e.getProblemMark() == null ? e.getContextMark() : e.getProblemMark();
+            final String problem = e.getProblem() == null ? e.getContext() : e.getProblem();
+            if (mark == null) {
+                return Optional.of(new Problem(0, 0, String.valueOf(problem), ""));
+            }
+            return Optional.of(new Problem(mark.getLine() + 1, mark.getColumn() + 1, String.valueOf(problem),
+                    getLine(snippet, mark.getLine())));
+        } catch (final YAMLException e) {
+            return Optional.of(new Problem(0, 0, String.valueOf(e.getMessage()), ""));
+        }
+    }
+
+    private String getLine(final String snippet, final int line) {
+        final String[] lines = snippet.split("\\R", -1);
+        if (line >= lines.length) {
+            return "";
+        }
+        final String text = lines[line];
+        return text.length() <= MAX_CONTEXT_LENGTH ? text : text.substring(0, MAX_CONTEXT_LENGTH);
+    }
+
+    /**
+     * The first error of a snippet.
+     *
+     * @param line    the line of the error, starting at 1, or 0 if unknown
+     * @param column  the column of the error, starting at 1, or 0 if unknown
+     * @param problem the description of the error
+     * @param context the text of the line of the error
+     */
+    public record Problem(int line, int column, String problem, String context) {
+    }
+}
@@ -0,0 +1,51 @@
+package org.betonquest.discordbot.modules.welcome;
+
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.modules.BotModule;
+import org.betonquest.discordbot.modules.ModuleContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The welcome module, that reacts to join messages.
+ */
+public class WelcomeModule implements BotModule {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WelcomeModule.class);
+
+    /**
+     * Create a new {@link WelcomeModule}.
+     */
+    public WelcomeModule() {
+        // Empty
+    }
+
+    @Override
+    public boolean isEnabled(final BetonBotConfig config) {
+        return config.welcomeEnabled;
+    }
+
+    @Override
+    public Set<GatewayIntent> getIntents() {
+        return Set.of(GatewayIntent.GUILD_MESSAGES);
+    }
+
+    @Override
+    public List<SlashCommandData> start(final ModuleContext context) {
+        try {
+            new WelcomeMessageListener(context.api(), context.config().welcomeEmoji);
+        } catch (final IllegalArgumentException e) {
+            LOGGER.info(e.getMessage(), e);
+        } catch (final IllegalStateException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,47 @@
+package org.betonquest.discordbot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One sweep over the support forums that closes inactive solved posts.
+ */
+@Name("org.betonquest.discordbot.AutoCloseSweep")
+@Label("Auto Close Sweep")
+@Description("One sweep over the support forums that closes inactive solved posts")
+@Category({"BetonQuest", "Discord Bot"})
+public class AutoCloseSweepEvent extends Event {
+    /**
+     * The number of threads that were checked.
+     */
+    @Label("Threads Checked")
+    public int threadsChecked;
+
+    /**
+     * The number of REST requests made by the sweep.
+     */
+    @Label("REST Calls")
+    public int restCalls;
+
+    /**
+     * The number of threads that were closed.
+     */
+    @Label("Threads Closed")
+    public int threadsClosed;
+
+    /**
+     * The ID of the last thread that was checked, to find a slow thread when the sweep does not complete.
+     */
+    @Label("Last Thread ID")
+    public long lastThreadId;
+
+    /**
+     * Creates a new {@link AutoCloseSweepEvent}.
+     */
+    public AutoCloseSweepEvent() {
+        super();
+    }
+}
@@ -0,0 +1,56 @@
+package org.betonquest.discordbot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The handling of a gateway event by a listener, that blocked the event thread longer than the watchdog threshold.
+ * The event is only created after the listener returned, so the time it blocked is a field and not the duration.
+ */
+@Name("org.betonquest.discordbot.BlockedHandler")
+@Label("Blocked Listener")
+@Description("The handling of a gateway event by a listener, that blocked the event thread longer than the threshold")
+@Category({"BetonQuest", "Discord Bot"})
+public class BlockedHandlerEvent extends Event {
+    /**
+     * The simple class name of the listener.
+     */
+    @Label("Listener")
+    public String listener;
+
+    /**
+     * The simple class name of the gateway event.
+     */
+    @Label("Event")
+    public String event;
+
+    /**
+     * The first bot frame of the stack sampled when the threshold was passed.
+     */
+    @Label("Location")
+    public String location;
+
+    /**
+     * The stack of the event thread sampled when the threshold was passed.
+     */
+    @Label("Stack")
+    public String stack;
+
+    /**
+     * The time the listener blocked the event thread.
+     */
+    @Label("Blocked")
+    @Timespan(Timespan.NANOSECONDS)
+    public long blocked;
+
+    /**
+     * Creates a new {@link BlockedHandlerEvent}.
+     */
+    public BlockedHandlerEvent() {
+        super();
+    }
+}
@@ -0,0 +1,35 @@
+package org.betonquest.discordbot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The resolution of the variables of a configured embed and its creation.
+ */
+@Name("org.betonquest.discordbot.EmbedBuild")
+@Label("Embed Build")
+@Description("The resolution of the variables of a configured embed and its creation")
+@Category({"BetonQuest", "Discord Bot"})
+public class EmbedBuildEvent extends Event {
+    /**
+     * The config path of the embed.
+     */
+    @Label("Config Path")
+    public String path;
+
+    /**
+     * The number of resolved variables.
+     */
+    @Label("Variables")
+    public int variables;
+
+    /**
+     * Creates a new {@link EmbedBuildEvent}.
+     */
+    public EmbedBuildEvent() {
+        super();
+    }
+}
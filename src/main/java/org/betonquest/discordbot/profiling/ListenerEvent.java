@@ -0,0 +1,78 @@
+package org.betonquest.discordbot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.channel.GenericChannelEvent;
+import net.dv8tion.jda.api.events.guild.member.GenericGuildMemberEvent;
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import net.dv8tion.jda.api.events.message.GenericMessageEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * The handling of a gateway event by one listener.
+ */
+@Name("org.betonquest.discordbot.Listener")
+@Label("Listener Handling")
+@Description("The handling of a gateway event by one listener")
+@Category({"BetonQuest", "Discord Bot"})
+public class ListenerEvent extends Event {
+    /**
+     * The class of the listener.
+     */
+    @Label("Listener")
+    public Class<?> listener;
+
+    /**
+     * The class of the gateway event.
+     */
+    @Label("Event")
+    public Class<?> event;
+
+    /**
+     * The ID of the channel or thread of the event, or 0 if the event has none.
+     */
+    @Label("Channel ID")
+    public long channelId;
+
+    /**
+     * The ID of the user of the event, or 0 if the event has none.
+     */
+    @Label("User ID")
+    public long userId;
+
+    /**
+     * Creates a new {@link ListenerEvent}.
+     */
+    public ListenerEvent() {
+        super();
+    }
+
+    /**
+     * Sets the fields from the listener and the gateway event.
+     * This should only be called if the event will be committed, to not extract the IDs of every event.
+     *
+     * @param listener     the listener that handled the event
+     * @param gatewayEvent the handled gateway event
+     */
+    public void describe(final Object listener, final GenericEvent gatewayEvent) {
+        this.listener = listener.getClass();
+        this.event = gatewayEvent.getClass();
+        if (gatewayEvent instanceof final GenericChannelEvent channelEvent) {
+            channelId = channelEvent.getChannel().getIdLong();
+        } else if (gatewayEvent instanceof final GenericMessageEvent messageEvent) {
+            channelId = messageEvent.getChannel().getIdLong();
+            if (messageEvent instanceof final MessageReceivedEvent received) {
+                userId = received.getAuthor().getIdLong();
+            }
+        } else if (gatewayEvent instanceof final GenericInteractionCreateEvent interaction) {
+            channelId = interaction.getChannelIdLong();
+            userId = interaction.getUser().getIdLong();
+        } else if (gatewayEvent instanceof final GenericGuildMemberEvent memberEvent) {
+            userId = memberEvent.getUser().getIdLong();
+        }
+    }
+}
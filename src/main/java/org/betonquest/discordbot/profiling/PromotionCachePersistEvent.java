@@ -0,0 +1,43 @@
+package org.betonquest.discordbot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The writing of the promotion cache file after a promotion.
+ */
+@Name("org.betonquest.discordbot.PromotionCachePersist")
+@Label("Promotion Cache Persist")
+@Description("The writing of the promotion cache file after a promotion")
+@Category({"BetonQuest", "Discord Bot"})
+public class PromotionCachePersistEvent extends Event {
+    /**
+     * The ID of the promoted user, or of the promoter for a batch of promotions.
+     */
+    @Label("User ID")
+    public long userId;
+
+    /**
+     * The number of entries written.
+     */
+    @Label("Entries")
+    public int entries;
+
+    /**
+     * The size of the written file.
+     */
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+
+    /**
+     * Creates a new {@link PromotionCachePersistEvent}.
+     */
+    public PromotionCachePersistEvent() {
+        super();
+    }
+}
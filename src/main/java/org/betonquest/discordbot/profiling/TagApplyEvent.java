@@ -0,0 +1,35 @@
+package org.betonquest.discordbot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The preparation and queueing of a tag change of a forum post.
+ */
+@Name("org.betonquest.discordbot.TagApply")
+@Label("Forum Tag Apply")
+@Description("The preparation and queueing of a tag change of a forum post")
+@Category({"BetonQuest", "Discord Bot"})
+public class TagApplyEvent extends Event {
+    /**
+     * The ID of the thread of the forum post.
+     */
+    @Label("Thread ID")
+    public long threadId;
+
+    /**
+     * The number of tags held for the thread.
+     */
+    @Label("Tags")
+    public int tags;
+
+    /**
+     * Creates a new {@link TagApplyEvent}.
+     */
+    public TagApplyEvent() {
+        super();
+    }
+}
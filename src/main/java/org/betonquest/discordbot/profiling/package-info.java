@@ -0,0 +1,4 @@
+/**
+ * Custom Java Flight Recorder events of the bot.
+ */
+package org.betonquest.discordbot.profiling;
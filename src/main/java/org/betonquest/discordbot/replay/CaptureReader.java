@@ -0,0 +1,82 @@
+package org.betonquest.discordbot.replay;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the files written by the {@link GatewayCapture} in the order they were written.
+ * A file that ends with an incomplete record, for example after a crash, is read up to that record.
+ */
+public class CaptureReader implements Closeable {
+    /**
+     * The files that are not read yet.
+     */
+    private final Deque<Path> files;
+
+    /**
+     * The file that is currently read, or null if none.
+     */
+    @Nullable
+    private DataInputStream input;
+
+    /**
+     * Opens all capture files in a directory.
+     *
+     * @param directory the directory of the capture files
+     * @throws IOException if the directory could not be listed
+     */
+    public CaptureReader(final Path directory) throws IOException {
+        try (Stream<Path> list = Files.list(directory)) {
+            this.files = new ArrayDeque<>(list
+                    .filter(file -> file.getFileName().toString().matches("capture-\\d+-\\d+\\.gz"))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    /**
+     * Reads the next event.
+     *
+     * @return the next event, or null if all files were read
+     * @throws IOException if a file could not be read
+     */
+    @Nullable
+    public CapturedEvent next() throws IOException {
+        while (true) {
+            if (input == null) {
+                final Path file = files.poll();
+                if (file == null) {
+                    return null;
+                }
+                input = new DataInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))));
+            }
+            try {
+                final long epochMillis = input.readLong();
+                final byte[] payload = new byte[input.readInt()];
+                input.readFully(payload);
+                return new CapturedEvent(epochMillis, payload);
+            } catch (final EOFException e) {
+                input.close();
+                input = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (input != null) {
+            input.close();
+        }
+    }
+}
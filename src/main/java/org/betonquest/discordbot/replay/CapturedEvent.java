@@ -0,0 +1,10 @@
+package org.betonquest.discordbot.replay;
+
+/**
+ * A gateway event as it was captured by the {@link GatewayCapture}.
+ *
+ * @param epochMillis the time the event was received in epoch millis
+ * @param payload     the raw JSON payload of the gateway event
+ */
+public record CapturedEvent(long epochMillis, byte[] payload) {
+}
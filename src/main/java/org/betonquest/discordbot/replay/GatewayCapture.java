@@ -0,0 +1,150 @@
+package org.betonquest.discordbot.replay;
+
+import net.dv8tion.jda.api.events.RawGatewayEvent;
+import net.dv8tion.jda.api.events.session.ShutdownEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Captures the raw gateway events of the configured types to compressed files, for the {@link ReplayRunner}.
+ * <p>
+ * Each file is a GZIP stream of records, each made of the receive time in epoch millis, the payload length
+ * and the raw JSON payload. Files are rolled over at a size limit of uncompressed data.
+ * The events are written on a separate executor, so the gateway thread is not blocked by the file system.
+ */
+public class GatewayCapture extends ListenerAdapter {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(GatewayCapture.class);
+
+    /**
+     * The time after which buffered records are flushed to the file in milliseconds.
+     */
+    private static final long FLUSH_INTERVAL = 1000;
+
+    /**
+     * The directory of the capture files.
+     */
+    private final Path directory;
+
+    /**
+     * The executor writing the events.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * The captured event types.
+     */
+    private final Set<String> eventTypes;
+
+    /**
+     * The size limit of uncompressed data per file in bytes.
+     */
+    private final long fileSize;
+
+    /**
+     * The start of this capture in epoch millis, which is part of the file names.
+     */
+    private final long startMillis;
+
+    /**
+     * The current file, or null if no file is open.
+     */
+    @Nullable
+    private DataOutputStream output;
+
+    /**
+     * The number of the current file.
+     */
+    private int fileNumber;
+
+    /**
+     * The number of uncompressed bytes in the current file.
+     */
+    private long written;
+
+    /**
+     * The last time the current file was flushed in epoch millis.
+     */
+    private long lastFlush;
+
+    /**
+     * Create a new {@link GatewayCapture}.
+     *
+     * @param config          the {@link BetonBotConfig} instance
+     * @param directory       the directory of the capture files
+     * @param executorService the executor writing the events, that runs one task at a time
+     */
+    public GatewayCapture(final BetonBotConfig config, final Path directory, final ExecutorService executorService) {
+        super();
+        this.directory = directory;
+        this.executorService = executorService;
+        this.eventTypes = new HashSet<>(config.captureEvents);
+        this.fileSize = Math.max(1, config.captureFileSize);
+        this.startMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public void onRawGateway(@NotNull final RawGatewayEvent event) {
+        if (!eventTypes.contains(event.getType())) {
+            return;
+        }
+        final long receivedMillis = System.currentTimeMillis();
+        final byte[] payload = event.getPackage().toJson();
+        executorService.execute(() -> write(receivedMillis, payload));
+    }
+
+    @Override
+    public void onShutdown(@NotNull final ShutdownEvent event) {
+        executorService.execute(this::closeFile);
+    }
+
+    private void write(final long receivedMillis, final byte[] payload) {
+        try {
+            if (output == null || written >= fileSize) {
+                closeFile();
+                Files.createDirectories(directory);
+                output = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                        directory.resolve("capture-%d-%05d.gz".formatted(startMillis, fileNumber++)))), true));
+                written = 0;
+            }
+            output.writeLong(receivedMillis);
+            output.writeInt(payload.length);
+            output.write(payload);
+            written += Long.BYTES + Integer.BYTES + payload.length;
+            if (receivedMillis - lastFlush >= FLUSH_INTERVAL) {
+                output.flush();
+                lastFlush = receivedMillis;
+            }
+        } catch (final IOException e) {
+            LOGGER.warn("Error while capturing a gateway event.", e);
+        }
+    }
+
+    private void closeFile() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.close();
+        } catch (final IOException e) {
+            LOGGER.warn("Error while closing a capture file.", e);
+        }
+        output = null;
+    }
+}
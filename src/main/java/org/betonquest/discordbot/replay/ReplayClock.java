@@ -0,0 +1,67 @@
+package org.betonquest.discordbot.replay;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A virtual clock that shows the time at which the last replayed event was captured.
+ * The time only moves forward with the replayed events, independent of the replay speed.
+ */
+public class ReplayClock extends Clock {
+    /**
+     * The current time in epoch millis, shared with all copies in other zones.
+     */
+    private final AtomicLong epochMillis;
+
+    /**
+     * The zone of this clock.
+     */
+    private final ZoneId zone;
+
+    /**
+     * Creates a new clock in UTC.
+     *
+     * @param epochMillis the start time in epoch millis
+     */
+    public ReplayClock(final long epochMillis) {
+        this(new AtomicLong(epochMillis), ZoneOffset.UTC);
+    }
+
+    private ReplayClock(final AtomicLong epochMillis, final ZoneId zone) {
+        super();
+        this.epochMillis = epochMillis;
+        this.zone = zone;
+    }
+
+    /**
+     * Moves the clock forward to the given time. An earlier time is ignored.
+     *
+     * @param millis the time in epoch millis
+     */
+    public void advance(final long millis) {
+        epochMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId zone) {
+        return new ReplayClock(epochMillis, zone);
+    }
+
+    @Override
+    public long millis() {
+        return epochMillis.get();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis());
+    }
+}
@@ -0,0 +1,350 @@
+package org.betonquest.discordbot.replay;
+
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A minimal local Discord gateway, that sends captured events to a single JDA connection.
+ * <p>
+ * The events of the startup, up to the first event that is not part of the guild setup, are sent as soon as JDA
+ * identifies. All following events are sent after {@link #release()}, so the modules are registered like
+ * on a real startup. The sequence numbers are rewritten, and member chunks are matched to the member requests
+ * of JDA. The {@link ReplayClock} is advanced to the capture time of each event before it is sent.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class ReplayGateway implements Closeable {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplayGateway.class);
+
+    /**
+     * The GUID of the WebSocket handshake.
+     */
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    /**
+     * The event types that are part of the guild setup on startup.
+     */
+    private static final Set<String> STARTUP_EVENTS = Set.of("READY", "GUILD_CREATE", "GUILD_MEMBERS_CHUNK");
+
+    /**
+     * The event types of a new session, that are skipped after the first session.
+     */
+    private static final Set<String> SESSION_EVENTS = Set.of("READY", "RESUMED");
+
+    /**
+     * The time to wait for a member request of JDA that matches a captured member chunk in seconds.
+     */
+    private static final long MEMBER_REQUEST_TIMEOUT = 30;
+
+    /**
+     * The reader of the captured events.
+     */
+    private final CaptureReader reader;
+
+    /**
+     * The clock that is advanced with the events.
+     */
+    private final ReplayClock clock;
+
+    /**
+     * The replay speed relative to the capture, or 0 to replay as fast as possible.
+     */
+    private final double speed;
+
+    /**
+     * The server socket.
+     */
+    private final ServerSocket serverSocket;
+
+    /**
+     * The nonces of member requests of JDA, that are not matched to a captured chunk yet.
+     */
+    private final BlockingQueue<String> memberRequests;
+
+    /**
+     * The latch that is released by {@link #release()}.
+     */
+    private final CountDownLatch released;
+
+    /**
+     * The result, that is completed when all events were sent.
+     */
+    private final CompletableFuture<Result> result;
+
+    /**
+     * The output to the connected client, or null if none is connected.
+     */
+    @Nullable
+    private OutputStream output;
+
+    /**
+     * Opens a gateway on a random local port.
+     *
+     * @param reader the reader of the captured events
+     * @param clock  the clock that is advanced with the events
+     * @param speed  the replay speed relative to the capture, or 0 to replay as fast as possible
+     * @throws IOException if the server socket could not be opened
+     */
+    public ReplayGateway(final CaptureReader reader, final ReplayClock clock, final double speed) throws IOException {
+        this.reader = reader;
+        this.clock = clock;
+        this.speed = speed;
+        this.serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        this.memberRequests = new LinkedBlockingQueue<>();
+        this.released = new CountDownLatch(1);
+        this.result = new CompletableFuture<>();
+    }
+
+    /**
+     * Gets the URL of this gateway.
+     *
+     * @return the WebSocket URL
+     */
+    public String getUrl() {
+        return "ws://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts to accept the connection of JDA.
+     */
+    public void start() {
+        Thread.ofPlatform().daemon().name("ReplayGateway").start(this::accept);
+    }
+
+    /**
+     * Sends the events after the startup.
+     */
+    public void release() {
+        released.countDown();
+    }
+
+    /**
+     * Gets the result, that is completed when all events were sent.
+     *
+     * @return the result
+     */
+    public CompletableFuture<Result> getResult() {
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        released.countDown();
+        serverSocket.close();
+    }
+
+    private void accept() {
+        try (Socket socket = serverSocket.accept()) {
+            final DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            synchronized (this) {
+                output = new BufferedOutputStream(socket.getOutputStream());
+            }
+            handshake(input);
+            send(DataObject.empty().put("op", 10).put("d", DataObject.empty().put("heartbeat_interval", 41_250)));
+            receive(input);
+        } catch (final IOException | NoSuchAlgorithmException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void handshake(final DataInputStream input) throws IOException, NoSuchAlgorithmException {
+        String key = null;
+        for (String line = readLine(input); !line.isEmpty(); line = readLine(input)) {
+            final int separator = line.indexOf(':');
+            if (separator > 0 && "sec-websocket-key".equals(line.substring(0, separator).toLowerCase(Locale.ROOT))) {
+                key = line.substring(separator + 1).strip();
+            }
+        }
+        if (key == null) {
+            throw new IOException("The client did not send a WebSocket key!");
+        }
+        final byte[] accept = MessageDigest.getInstance("SHA-1")
+                .digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+        synchronized (this) {
+            output.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + Base64.getEncoder().encodeToString(accept) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+        }
+    }
+
+    private void receive(final DataInputStream input) throws IOException {
+        while (true) {
+            final int first = input.readUnsignedByte();
+            final int second = input.readUnsignedByte();
+            long length = second & 0x7F;
+            if (length == 126) {
+                length = input.readUnsignedShort();
+            } else if (length == 127) {
+                length = input.readLong();
+            }
+            final byte[] mask = new byte[4];
+            if ((second & 0x80) != 0) {
+                input.readFully(mask);
+            }
+            final byte[] payload = new byte[(int) length];
+            input.readFully(payload);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i % 4];
+            }
+            switch (first & 0x0F) {
+                case 0x1 -> handle(DataObject.fromJson(payload));
+                case 0x8 -> {
+                    sendFrame(0x8, payload);
+                    return;
+                }
+                case 0x9 -> sendFrame(0xA, payload);
+                default -> LOGGER.debug("Ignoring WebSocket frame with opcode {}.", first & 0x0F);
+            }
+        }
+    }
+
+    private void handle(final DataObject message) throws IOException {
+        switch (message.getInt("op", -1)) {
+            case 1 -> send(DataObject.empty().put("op", 11));
+            case 2 -> Thread.ofPlatform().daemon().name("ReplayGateway-Events").start(this::sendEvents);
+            case 6 -> send(DataObject.empty().put("op", 9).put("d", false));
+            case 8 -> {
+                final DataObject data = message.getObject("d");
+                if (!data.isNull("nonce")) {
+                    memberRequests.add(data.getString("nonce"));
+                }
+            }
+            default -> LOGGER.debug("Ignoring gateway message with opcode {}.", message.getInt("op", -1));
+        }
+    }
+
+    private void sendEvents() {
+        try {
+            final Map<String, String> nonces = new HashMap<>();
+            boolean ready = false;
+            boolean startup = true;
+            long sequence = 0;
+            long firstMillis = 0;
+            long startNanos = 0;
+            final long begin = System.nanoTime();
+            for (CapturedEvent event = reader.next(); event != null; event = reader.next()) {
+                final DataObject payload = DataObject.fromJson(event.payload());
+                final String type = payload.getString("t", "");
+                if (ready ? SESSION_EVENTS.contains(type) : !"READY".equals(type)) {
+                    continue;
+                }
+                ready = true;
+                if (startup && !STARTUP_EVENTS.contains(type)) {
+                    startup = false;
+                    released.await();
+                    firstMillis = event.epochMillis();
+                    startNanos = System.nanoTime();
+                }
+                if (!startup && speed > 0) {
+                    LockSupport.parkNanos((long) ((event.epochMillis() - firstMillis) * 1_000_000 / speed)
+                            - (System.nanoTime() - startNanos));
+                }
+                rewrite(payload, type, nonces);
+                clock.advance(event.epochMillis());
+                send(payload.put("s", ++sequence));
+            }
+            result.complete(new Result(sequence, System.nanoTime() - begin));
+        } catch (final IOException e) {
+            result.completeExceptionally(e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void rewrite(final DataObject payload, final String type, final Map<String, String> nonces)
+            throws InterruptedException {
+        final DataObject data = payload.getObject("d");
+        if ("READY".equals(type)) {
+            data.put("resume_gateway_url", getUrl());
+        } else if ("GUILD_MEMBERS_CHUNK".equals(type) && !data.isNull("nonce")) {
+            final String captured = data.getString("nonce");
+            String nonce = nonces.get(captured);
+            if (nonce == null) {
+                nonce = memberRequests.poll(MEMBER_REQUEST_TIMEOUT, TimeUnit.SECONDS);
+                if (nonce == null) {
+                    LOGGER.warn("No member request matches the captured member chunk '{}'.", captured);
+                    return;
+                }
+                nonces.put(captured, nonce);
+            }
+            data.put("nonce", nonce);
+        }
+    }
+
+    private void send(final DataObject message) throws IOException {
+        sendFrame(0x1, message.toJson());
+    }
+
+    private synchronized void sendFrame(final int opcode, final byte[] payload) throws IOException {
+        if (output == null) {
+            throw new IOException("No client is connected!");
+        }
+        output.write(0x80 | opcode);
+        if (payload.length < 126) {
+            output.write(payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            output.write(126);
+            output.write(payload.length >>> 8);
+            output.write(payload.length);
+        } else {
+            output.write(127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                output.write((int) ((long) payload.length >>> shift));
+            }
+        }
+        output.write(payload);
+        output.flush();
+    }
+
+    private String readLine(final DataInputStream input) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        for (int next = input.read(); next != '\n'; next = input.read()) {
+            if (next < 0) {
+                throw new IOException("The connection was closed during the handshake!");
+            }
+            if (next != '\r') {
+                line.append((char) next);
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * The result of a replay.
+     *
+     * @param events the number of sent events
+     * @param nanos  the time it took to send all events in nanoseconds
+     */
+    public record Result(long events, long nanos) {
+    }
+}
@@ -0,0 +1,190 @@
+package org.betonquest.discordbot.replay;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.api.utils.FileProxy;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import okhttp3.OkHttpClient;
+import org.betonquest.discordbot.BotEventManager;
+import org.betonquest.discordbot.DiscordBot;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.threading.BotThreads;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays captured gateway events through the real modules, to reproduce issues and measure the bot offline.
+ * <p>
+ * The bot is started against a local {@link ReplayGateway} and {@link StubRestServer}, with the modules reading
+ * the time from a {@link ReplayClock}. Downloads from the CDN are redirected to the stub as well. It should be run
+ * in a copy of the bot directory, as the modules write their files like in production. After all events were sent,
+ * the replay waits until the listeners, the executors of the bot and the REST requests are idle. Then the throughput
+ * of the handling and the REST requests are logged.
+ * <p>
+ * Arguments: the capture directory and optionally the speed, either a factor of the original speed
+ * or {@code max} to replay as fast as possible. The default is the original speed.
+ */
+public final class ReplayRunner {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplayRunner.class);
+
+    /**
+     * The interval in milliseconds in which the bot is checked for being idle.
+     */
+    private static final long IDLE_CHECK_INTERVAL = 20;
+
+    /**
+     * The number of consecutive checks without any activity after which the bot is considered idle.
+     */
+    private static final int IDLE_CHECKS = 10;
+
+    /**
+     * The maximum time in seconds to wait for the bot to become idle.
+     */
+    private static final long IDLE_TIMEOUT = 60;
+
+    /**
+     * Empty constructor.
+     */
+    private ReplayRunner() {
+    }
+
+    /**
+     * Runs a replay.
+     *
+     * @param args the capture directory and optionally the speed
+     */
+    public static void main(final String[] args) {
+        if (args.length == 0) {
+            LOGGER.error("Usage: ReplayRunner <capture directory> [speed|max]");
+            return;
+        }
+        final Path directory = Paths.get(args[0]);
+        double speed = 1;
+        if (args.length > 1) {
+            try {
+                speed = "max".equals(args[1]) ? 0 : Double.parseDouble(args[1]);
+            } catch (final NumberFormatException e) {
+                LOGGER.error("The speed '{}' is neither a number nor 'max'!", args[1]);
+                return;
+            }
+        }
+        try {
+            run(new BetonBotConfig(Paths.get("config.yml")), directory, speed);
+        } catch (final IOException e) {
+            LOGGER.error("Could not read the config or the capture! Reason: ", e);
+        } catch (final ExecutionException e) {
+            LOGGER.error("The replay failed! Reason: ", e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("The replay was interrupted!", e);
+        }
+    }
+
+    /**
+     * Replays a capture.
+     *
+     * @param config    the {@link BetonBotConfig} instance
+     * @param directory the capture directory
+     * @param speed     the factor of the original speed, or 0 to replay as fast as possible
+     * @throws IOException          if the capture could not be read
+     * @throws ExecutionException   if the replay failed
+     * @throws InterruptedException if the replay was interrupted
+     */
+    /* default */ static void run(final BetonBotConfig config, final Path directory, final double speed)
+            throws IOException, ExecutionException, InterruptedException {
+        final CapturedEvent ready = findReady(directory);
+        if (ready == null) {
+            LOGGER.error("The capture in '{}' does not contain a READY event!", directory);
+            return;
+        }
+        final DataObject selfUser = DataObject.fromJson(ready.payload()).getObject("d").getObject("user");
+        final ReplayClock clock = new ReplayClock(ready.epochMillis());
+        try (CaptureReader reader = new CaptureReader(directory);
+             ReplayGateway gateway = new ReplayGateway(reader, clock, speed);
+             StubRestServer rest = new StubRestServer(gateway.getUrl(), selfUser)) {
+            gateway.start();
+            FileProxy.setDefaultHttpClient(new OkHttpClient.Builder().addInterceptor(rest.getCdnRedirect()).build());
+            final JDA api = DiscordBot.start(config, clock, builder -> builder
+                    .setRestConfig(new RestConfig().setBaseUrl(rest.getBaseUrl()))
+                    .setCompression(Compression.NONE), false);
+            if (api == null) {
+                return;
+            }
+            final long begin = System.nanoTime();
+            gateway.release();
+            final ReplayGateway.Result result = gateway.getResult().get();
+            final long end = awaitIdle(api, rest);
+            final double seconds = (end - begin) / 1e9;
+            LOGGER.info("Sent {} events in {} s, handled them in {} s ({} events/s).", result.events(),
+                    String.format("%.2f", result.nanos() / 1e9), String.format("%.2f", seconds),
+                    String.format("%.0f", result.events() / seconds));
+            api.shutdown();
+            api.awaitShutdown(Duration.ofMinutes(1));
+            rest.getRequests().forEach((route, count) -> LOGGER.info("{} {}", String.format("%8d", count), route));
+        }
+    }
+
+    /**
+     * Waits until no event is delivered, the executors of the bot have no tasks and no REST request was made
+     * for several checks in a row.
+     *
+     * @param api  the {@link JDA} instance
+     * @param rest the stub REST API
+     * @return the time in nanoseconds of the last activity
+     * @throws InterruptedException if the waiting was interrupted
+     */
+    @SuppressWarnings("PMD.DoNotUseThreads")
+    private static long awaitIdle(final JDA api, final StubRestServer rest) throws InterruptedException {
+        final BotEventManager events = (BotEventManager) api.getEventManager();
+        final BotThreads threads = api.getRegisteredListeners().stream()
+                .filter(BotThreads.class::isInstance)
+                .map(BotThreads.class::cast)
+                .findFirst()
+                .orElseThrow();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(IDLE_TIMEOUT);
+        long lastActivity = System.nanoTime();
+        long lastCount = -1;
+        int idleChecks = 0;
+        while (idleChecks < IDLE_CHECKS) {
+            if (System.nanoTime() > deadline) {
+                LOGGER.warn("The bot did not become idle within {} s, the results include unfinished work.",
+                        IDLE_TIMEOUT);
+                return System.nanoTime();
+            }
+            final long count = events.getDelivered() + rest.getRequestCount();
+            if (count == lastCount && events.isIdle() && threads.isIdle()) {
+                idleChecks++;
+            } else {
+                idleChecks = 0;
+                lastCount = count;
+                lastActivity = System.nanoTime();
+            }
+            Thread.sleep(IDLE_CHECK_INTERVAL);
+        }
+        return lastActivity;
+    }
+
+    @Nullable
+    private static CapturedEvent findReady(final Path directory) throws IOException {
+        try (CaptureReader reader = new CaptureReader(directory)) {
+            for (CapturedEvent event = reader.next(); event != null; event = reader.next()) {
+                if ("READY".equals(DataObject.fromJson(event.payload()).getString("t", ""))) {
+                    return event;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,153 @@
+package org.betonquest.discordbot.replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A local stub of the Discord REST API, that answers all requests without side effects and counts them by route.
+ * <p>
+ * Only the gateway and the bot user are answered with real data. Other reads fail with a not found error,
+ * as their data was not captured, and all writes succeed without content.
+ * Downloads from the CDN, like attachments, can be redirected to this server with {@link #getCdnRedirect()},
+ * so they fail the same way instead of depending on the real CDN.
+ */
+public class StubRestServer implements Closeable {
+    /**
+     * The pattern of snowflake IDs in a path.
+     */
+    private static final String SNOWFLAKE = "\\d{15,20}";
+
+    /**
+     * The HTTP server.
+     */
+    private final HttpServer server;
+
+    /**
+     * The gateway response.
+     */
+    private final byte[] gateway;
+
+    /**
+     * The bot user response.
+     */
+    private final byte[] selfUser;
+
+    /**
+     * The number of requests by route.
+     */
+    private final Map<String, LongAdder> requests;
+
+    /**
+     * Starts a server on a random local port.
+     *
+     * @param gatewayUrl the URL of the {@link ReplayGateway}
+     * @param selfUser   the bot user as captured in the READY event
+     * @throws IOException if the server could not be started
+     */
+    public StubRestServer(final String gatewayUrl, final DataObject selfUser) throws IOException {
+        this.gateway = DataObject.empty()
+                .put("url", gatewayUrl)
+                .put("shards", 1)
+                .put("session_start_limit", DataObject.empty()
+                        .put("total", 1000)
+                        .put("remaining", 1000)
+                        .put("reset_after", 0)
+                        .put("max_concurrency", 1))
+                .toJson();
+        this.selfUser = selfUser.toJson();
+        this.requests = new ConcurrentHashMap<>();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Gets the base URL of the REST API, to configure JDA with.
+     *
+     * @return the base URL
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v10/";
+    }
+
+    /**
+     * Gets an interceptor for {@link OkHttpClient}s, that sends all requests to this server instead.
+     *
+     * @return the interceptor
+     */
+    public Interceptor getCdnRedirect() {
+        return chain -> chain.proceed(chain.request().newBuilder()
+                .url(chain.request().url().newBuilder()
+                        .scheme("http")
+                        .host("127.0.0.1")
+                        .port(server.getAddress().getPort())
+                        .build())
+                .build());
+    }
+
+    /**
+     * Gets the number of requests by route, where IDs are replaced by a placeholder.
+     *
+     * @return the number of requests by route, sorted by route
+     */
+    public Map<String, Long> getRequests() {
+        final Map<String, Long> counts = new TreeMap<>();
+        requests.forEach((route, count) -> counts.put(route, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Gets the total number of requests.
+     *
+     * @return the number of requests
+     */
+    public long getRequestCount() {
+        return requests.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final String method = exchange.getRequestMethod();
+            final String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(method + " " + path.replaceAll(SNOWFLAKE, "{id}"), route -> new LongAdder())
+                    .increment();
+            exchange.getRequestBody().readAllBytes();
+            if (path.endsWith("/gateway") || path.endsWith("/gateway/bot")) {
+                respond(exchange, 200, gateway);
+            } else if (path.endsWith("/users/@me") && "GET".equals(method)) {
+                respond(exchange, 200, selfUser);
+            } else if ("GET".equals(method)) {
+                respond(exchange, 404, "{\"code\":0,\"message\":\"Not captured\"}".getBytes(StandardCharsets.UTF_8));
+            } else {
+                exchange.sendResponseHeaders(204, -1);
+            }
+        }
+    }
+
+    private void respond(final HttpExchange exchange, final int status, final byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.betonquest.discordbot.replay;
+
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.config.ConfigEmbedBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Creates a class data sharing archive for a fast start of the bot, from a training run.
+ * <p>
+ * The training run parses the config, creates all configured embeds and replays a capture as fast as possible
+ * through the real modules with the {@link ReplayRunner}. The JVM then writes all loaded classes to the archive
+ * {@value #ARCHIVE_NAME} next to the jar. If the JVM was not started with {@code -XX:ArchiveClassesAtExit}, the
+ * training run is started again in a new JVM with this option.
+ * <p>
+ * The archive is used by starting the bot with {@code -XX:SharedArchiveFile=DiscordBot.jsa}. It is only valid for
+ * the same JVM and the same jar, so it must be recreated after each deploy.
+ * <p>
+ * Arguments: the capture directory.
+ */
+public final class TrainingRun {
+    /**
+     * The file name of the archive.
+     */
+    public static final String ARCHIVE_NAME = "DiscordBot.jsa";
+
+    /**
+     * The JVM option to write the archive at exit.
+     */
+    private static final String ARCHIVE_OPTION = "-XX:ArchiveClassesAtExit=";
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrainingRun.class);
+
+    /**
+     * Empty constructor.
+     */
+    private TrainingRun() {
+    }
+
+    /**
+     * Runs the training run.
+     * The JVM is terminated afterward, so the archive is written even if threads of the modules are still running.
+     *
+     * @param args the capture directory
+     */
+    @SuppressWarnings("PMD.DoNotTerminateVM")
+    public static void main(final String[] args) {
+        if (args.length == 0) {
+            LOGGER.error("Usage: TrainingRun <capture directory>");
+            return;
+        }
+        final List<String> jvmArguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        if (jvmArguments.stream().noneMatch(argument -> argument.startsWith(ARCHIVE_OPTION))) {
+            System.exit(relaunch(jvmArguments, args));
+        }
+        try {
+            final BetonBotConfig config = new BetonBotConfig(Paths.get("config.yml"));
+            final int embeds = createEmbeds(config);
+            LOGGER.info("Created {} embeds, replaying the capture.", embeds);
+            ReplayRunner.run(config, Paths.get(args[0]), 0);
+        } catch (final IOException e) {
+            LOGGER.error("Could not read the config or the capture! Reason: ", e);
+            System.exit(1);
+        } catch (final ExecutionException e) {
+            LOGGER.error("The replay failed! Reason: ", e.getCause());
+            System.exit(1);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("The training run was interrupted!", e);
+            System.exit(1);
+        }
+        LOGGER.info("The training run is complete, writing the class data sharing archive.");
+        System.exit(0);
+    }
+
+    private static int createEmbeds(final BetonBotConfig config) {
+        final List<ConfigEmbedBuilder> embeds = List.of(config.supportSolvedEmbed, config.supportClosedEmbed,
+                config.supportDuplicatesEmbed, config.supportLogAnalysisEmbed, config.supportYamlValidationEmbed,
+                config.promotionEmbed, config.promotionBatchEmbed, config.promotionDemotionEmbed);
+        for (final ConfigEmbedBuilder embed : embeds) {
+            embed.variable("user", "<@0>").variable("posts", "<#0>").getEmbed();
+        }
+        return embeds.size();
+    }
+
+    private static int relaunch(final List<String> jvmArguments, final String... args) {
+        try {
+            final Path jar = Paths.get(TrainingRun.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (!jar.getFileName().toString().endsWith(".jar")) {
+                LOGGER.error("The training run must be started from the jar, as only jars can be archived!");
+                return 1;
+            }
+            final Path archive = jar.resolveSibling(ARCHIVE_NAME);
+            final List<String> command = new ArrayList<>();
+            command.add(ProcessHandle.current().info().command().orElse("java"));
+            command.add(ARCHIVE_OPTION + archive);
+            command.addAll(jvmArguments);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(TrainingRun.class.getName());
+            command.addAll(List.of(args));
+            LOGGER.info("Starting the training run to create the archive '{}'.", archive);
+            final int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (exitCode == 0) {
+                LOGGER.info("Start the bot with '-XX:SharedArchiveFile={}' to use the archive.", archive);
+            }
+            return exitCode;
+        } catch (final IOException | URISyntaxException e) {
+            LOGGER.error("Could not start the training run! Reason: ", e);
+            return 1;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("The training run was interrupted!", e);
+            return 1;
+        }
+    }
+}
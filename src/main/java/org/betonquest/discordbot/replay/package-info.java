@@ -0,0 +1,4 @@
+/**
+ * Capture and replay of gateway events.
+ */
+package org.betonquest.discordbot.replay;
@@ -0,0 +1,185 @@
+package org.betonquest.discordbot.threading;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.events.session.ShutdownEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the thread pools of JDA and the bot for the configured {@link ThreadingMode}.
+ * <p>
+ * The JDA pools are shut down by JDA itself. The executors of the bot are shut down on the {@link ShutdownEvent},
+ * after the modules had the chance to shut down their own executors.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class BotThreads extends ListenerAdapter {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(BotThreads.class);
+
+    /**
+     * The time to wait for running tasks on shutdown in seconds.
+     */
+    private static final long SHUTDOWN_TIMEOUT = 10;
+
+    /**
+     * The configured threading mode.
+     */
+    private final ThreadingMode mode;
+
+    /**
+     * The size of bounded pools.
+     */
+    private final int poolSize;
+
+    /**
+     * The executors created for the bot.
+     */
+    private final List<ExecutorService> executors;
+
+    /**
+     * Create a new {@link BotThreads} instance.
+     *
+     * @param config the {@link BetonBotConfig} instance
+     */
+    public BotThreads(final BetonBotConfig config) {
+        super();
+        this.mode = ThreadingMode.parse(config.threadingMode);
+        this.poolSize = Math.max(1, config.threadingPoolSize);
+        this.executors = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Sets the event and callback pools of JDA for the configured mode.
+     * <p>
+     * The event pool always runs one event at a time, as the listeners rely on the order of the gateway events.
+     * In the virtual mode it is one virtual thread, in the other modes the JDA default.
+     *
+     * @param builder the {@link JDABuilder} to configure
+     * @return the given builder
+     */
+    public JDABuilder configure(final JDABuilder builder) {
+        LOGGER.info("Using the {} threading mode.", mode);
+        return switch (mode) {
+            case PLATFORM -> builder;
+            case VIRTUAL -> builder
+                    .setEventPool(Executors.newSingleThreadExecutor(factory("JDA-Event")), true)
+                    .setCallbackPool(Executors.newThreadPerTaskExecutor(factory("JDA-Callback")), true);
+            case BOUNDED -> builder
+                    .setCallbackPool(Executors.newFixedThreadPool(poolSize, factory("JDA-Callback")), true);
+        };
+    }
+
+    /**
+     * Registers this instance to shut down the executors of the bot with JDA.
+     *
+     * @param api the {@link JDA} instance
+     */
+    public void register(final JDA api) {
+        api.addEventListener(this);
+    }
+
+    /**
+     * Creates a scheduler running one task at a time.
+     *
+     * @param name the name of the thread
+     * @return the scheduler
+     */
+    public ScheduledExecutorService newScheduler(final String name) {
+        return track(Executors.newSingleThreadScheduledExecutor(factory(name)));
+    }
+
+    /**
+     * Creates an executor running one task at a time, in the order of submission.
+     *
+     * @param name the name of the thread
+     * @return the executor
+     */
+    public ExecutorService newSingleThreadExecutor(final String name) {
+        return newFixedThreadPool(name, 1);
+    }
+
+    /**
+     * Creates an executor running a fixed number of tasks at a time.
+     *
+     * @param name    the name of the threads
+     * @param threads the number of tasks running at a time
+     * @return the executor
+     */
+    public ExecutorService newFixedThreadPool(final String name, final int threads) {
+        return track(new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                factory(name)));
+    }
+
+    /**
+     * Creates a {@link StripedExecutor}, that runs the tasks of one key in order and different keys in parallel
+     * on one thread per processor.
+     *
+     * @param name    the name of the threads
+     * @param stripes the number of stripes
+     * @return the executor
+     */
+    public StripedExecutor newStripedExecutor(final String name, final int stripes) {
+        return new StripedExecutor(newFixedThreadPool(name, Runtime.getRuntime().availableProcessors()), stripes);
+    }
+
+    /**
+     * Checks if the executors of the bot have no running or queued tasks.
+     * Schedulers are not checked, as their periodic tasks are always queued.
+     *
+     * @return true if the executors are idle
+     */
+    public boolean isIdle() {
+        for (final ExecutorService executor : executors) {
+            if (executor instanceof final ThreadPoolExecutor pool && !(executor instanceof ScheduledExecutorService)
+                    && (pool.getActiveCount() > 0 || !pool.getQueue().isEmpty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void onShutdown(@NotNull final ShutdownEvent event) {
+        for (final ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        try {
+            for (final ExecutorService executor : executors) {
+                if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                    LOGGER.warn("An executor did not finish its tasks in time and is stopped.");
+                    executor.shutdownNow();
+                }
+            }
+        } catch (final InterruptedException e) {
+            executors.forEach(ExecutorService::shutdownNow);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T extends ExecutorService> T track(final T executor) {
+        executors.add(executor);
+        return executor;
+    }
+
+    private ThreadFactory factory(final String name) {
+        return mode == ThreadingMode.VIRTUAL
+                ? Thread.ofVirtual().name(name + "-", 0).factory()
+                : Thread.ofPlatform().name(name + "-", 0).factory();
+    }
+}
@@ -0,0 +1,96 @@
+package org.betonquest.discordbot.threading;
+
+import org.betonquest.discordbot.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs tasks in order per key, like the ID of a Post, while tasks of different keys run in parallel.
+ * <p>
+ * The keys are hashed to a fixed number of stripes, each stripe is a queue of tasks. A task returns the asynchronous
+ * result of its work, like a REST request, and the next task of the stripe starts only after this result completed.
+ * This does not mean the next task sees the changes of the previous one in the JDA cache, as the cache is only updated
+ * when the update event of the change arrives. Tasks that build on the changes of previous tasks have to track these
+ * changes themselves, like the support module does for the tags of a Post.
+ * Keys that share a stripe are also run in order, which is correct but can delay them a bit.
+ * A failed task does not stop the queue, and a task that does not complete in time is skipped.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class StripedExecutor {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(StripedExecutor.class);
+
+    /**
+     * The time in seconds after which the result of a task is no longer awaited.
+     */
+    private static final long TASK_TIMEOUT = 30;
+
+    /**
+     * The executor the tasks run on.
+     */
+    private final Executor executor;
+
+    /**
+     * The locks of the stripes.
+     */
+    private final Object[] locks;
+
+    /**
+     * The result of the last queued task of each stripe.
+     */
+    private final CompletableFuture<?>[] tails;
+
+    /**
+     * Creates a new {@link StripedExecutor}.
+     *
+     * @param executor the executor the tasks run on
+     * @param stripes  the number of stripes
+     */
+    public StripedExecutor(final Executor executor, final int stripes) {
+        this.executor = executor;
+        this.locks = new Object[Math.max(1, stripes)];
+        this.tails = new CompletableFuture<?>[locks.length];
+        Arrays.setAll(locks, stripe -> new Object());
+        Arrays.fill(tails, CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Queues a task after all previously queued tasks of the same key.
+     * The task runs with the current trace of the calling thread.
+     *
+     * @param key  the key, like the ID of a Post
+     * @param task the task, that returns the asynchronous result of its work
+     * @return the future that completes when the result of the task completed
+     */
+    public CompletableFuture<Void> execute(final long key, final Supplier<? extends CompletionStage<?>> task) {
+        final Supplier<? extends CompletionStage<?>> traced = Tracer.propagate(task);
+        final int stripe = stripe(key);
+        synchronized (locks[stripe]) {
+            final CompletableFuture<Void> next = tails[stripe]
+                    .handle((result, error) -> null)
+                    .thenComposeAsync(ignored -> traced.get().toCompletableFuture().copy()
+                            .orTimeout(TASK_TIMEOUT, TimeUnit.SECONDS), executor)
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            LOGGER.warn("A task for the key {} failed.", key, error);
+                        }
+                    })
+                    .<Void>thenApply(result -> null);
+            tails[stripe] = next;
+            return next;
+        }
+    }
+
+    private int stripe(final long key) {
+        return Math.floorMod((int) (key * 0x9E37_79B9_7F4A_7C15L >>> 32), locks.length);
+    }
+}
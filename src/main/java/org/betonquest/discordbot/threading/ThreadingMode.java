@@ -0,0 +1,46 @@
+package org.betonquest.discordbot.threading;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+
+/**
+ * The threading model of the bot.
+ */
+public enum ThreadingMode {
+    /**
+     * The JDA default pools and one platform thread for each bot executor.
+     */
+    PLATFORM,
+
+    /**
+     * Virtual threads for the JDA callback pool and the bot executors and one virtual thread for the JDA events.
+     */
+    VIRTUAL,
+
+    /**
+     * A fixed size platform thread pool for the JDA callback pool and the JDA default event thread.
+     */
+    BOUNDED;
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThreadingMode.class);
+
+    /**
+     * Parses a threading mode from the config, ignoring the case.
+     *
+     * @param name the name of the mode
+     * @return the mode, or {@link #PLATFORM} if the name is unknown
+     */
+    public static ThreadingMode parse(final String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            LOGGER.warn("Unknown threading mode '{}'. Using '{}'.", name, PLATFORM, e);
+            return PLATFORM;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Threading utilities.
+ */
+package org.betonquest.discordbot.threading;
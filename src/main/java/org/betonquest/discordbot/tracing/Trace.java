@@ -0,0 +1,179 @@
+package org.betonquest.discordbot.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The trace of handling one event in one listener, including all REST requests queued while handling it.
+ * A trace is completed when the listener returned and all its REST requests and callbacks are done.
+ */
+public final class Trace {
+    /**
+     * The {@link Tracer} that created this trace.
+     */
+    private final Tracer tracer;
+
+    /**
+     * The ID of this trace.
+     */
+    private final long traceId;
+
+    /**
+     * The name of this trace, made of the listener and the event.
+     */
+    private final String name;
+
+    /**
+     * The start of this trace in epoch millis.
+     */
+    private final long startMillis;
+
+    /**
+     * The start of this trace in nanoseconds.
+     */
+    private final long startNanos;
+
+    /**
+     * The IDs of guild, channel and user the event belongs to, or -1 if unknown.
+     */
+    private final long[] entityIds;
+
+    /**
+     * The time between creating the event at Discord and delivering it in microseconds, or -1 if unknown.
+     */
+    private final long dispatchMicros;
+
+    /**
+     * The spans of REST requests queued in this trace.
+     */
+    private final List<Span> spans;
+
+    /**
+     * The number of running parts of this trace, the listener and all pending REST requests.
+     */
+    private final AtomicInteger pending;
+
+    /**
+     * The duration of the listener in microseconds.
+     */
+    private long listenerMicros;
+
+    /**
+     * The total duration in microseconds, set when the trace is completed.
+     */
+    private long durationMicros;
+
+    /**
+     * Creates a new trace.
+     *
+     * @param tracer         the {@link Tracer} that created this trace
+     * @param traceId        the ID of this trace
+     * @param name           the name of this trace
+     * @param entityIds      the IDs of guild, channel and user, or -1 if unknown
+     * @param dispatchMicros the dispatch time in microseconds, or -1 if unknown
+     */
+    /* default */ Trace(final Tracer tracer, final long traceId, final String name, final long[] entityIds,
+                        final long dispatchMicros) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.name = name;
+        this.entityIds = entityIds.clone();
+        this.dispatchMicros = dispatchMicros;
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.spans = new ArrayList<>();
+        this.pending = new AtomicInteger(1);
+    }
+
+    /**
+     * Marks the end of the listener.
+     */
+    public void endListener() {
+        listenerMicros = micros(startNanos, System.nanoTime());
+        release();
+    }
+
+    /**
+     * Gets the total duration of this trace.
+     *
+     * @return the duration in microseconds
+     */
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    /**
+     * Gets the number of recorded spans.
+     *
+     * @return the number of spans
+     */
+    public synchronized int getSpanCount() {
+        return spans.size();
+    }
+
+    /* default */ void retain() {
+        pending.incrementAndGet();
+    }
+
+    /* default */ void release() {
+        if (pending.decrementAndGet() == 0) {
+            durationMicros = micros(startNanos, System.nanoTime());
+            tracer.complete(this);
+        }
+    }
+
+    /* default */ synchronized void addSpan(final Span span) {
+        spans.add(span);
+    }
+
+    /**
+     * Converts this trace to a single line of JSON.
+     *
+     * @param reason the reason why this trace was kept
+     * @return the JSON line
+     */
+    /* default */ synchronized String toJson(final String reason) {
+        final StringBuilder json = new StringBuilder(128 + 96 * spans.size())
+                .append("{\"trace\":\"").append(Long.toHexString(traceId))
+                .append("\",\"name\":\"").append(name)
+                .append("\",\"kept\":\"").append(reason)
+                .append("\",\"start\":").append(startMillis)
+                .append(",\"guild\":").append(entityIds[0])
+                .append(",\"channel\":").append(entityIds[1])
+                .append(",\"user\":").append(entityIds[2])
+                .append(",\"dispatchUs\":").append(dispatchMicros)
+                .append(",\"listenerUs\":").append(listenerMicros)
+                .append(",\"durationUs\":").append(durationMicros)
+                .append(",\"spans\":[");
+        for (int i = 0; i < spans.size(); i++) {
+            final Span span = spans.get(i);
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"name\":\"").append(span.name())
+                    .append("\",\"success\":").append(span.success())
+                    .append(",\"queueUs\":").append(span.queueMicros())
+                    .append(",\"executionUs\":").append(span.executionMicros())
+                    .append(",\"callbackUs\":").append(span.callbackMicros())
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /* default */ static long micros(final long startNanos, final long endNanos) {
+        return TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos);
+    }
+
+    /**
+     * The timings of one REST request.
+     *
+     * @param name            the name of the request
+     * @param success         if the request succeeded
+     * @param queueMicros     the time from queueing until the request was executed, including rate limits
+     * @param executionMicros the time of the HTTP request
+     * @param callbackMicros  the time spent in the callback
+     */
+    /* default */ record Span(String name, boolean success, long queueMicros, long executionMicros,
+                              long callbackMicros) {
+    }
+}
@@ -0,0 +1,287 @@
+package org.betonquest.discordbot.tracing;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.channel.Channel;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.channel.GenericChannelEvent;
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import net.dv8tion.jda.api.requests.RestAction;
+import org.betonquest.discordbot.config.BetonBotConfig;
+import org.betonquest.discordbot.metrics.LogHistogram;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Creates {@link Trace}s for event handling and writes the kept traces to the `traces` logger,
+ * which writes them to a rotating local file.
+ * <p>
+ * A trace is kept if it is sampled with the configured rate, or if it is among the slowest 1% of all traces.
+ * The slowest 1% are measured on the previous window of traces, and on the first window only after enough traces.
+ * While a listener handles an event, its trace is the current trace of the thread.
+ * REST requests queued with {@link #queue(String, RestAction, Consumer, Consumer)} are recorded as spans
+ * of the current trace, and their callbacks run with the same current trace.
+ */
+public class Tracer {
+    /**
+     * The percentile above which traces are always kept.
+     */
+    private static final double TAIL_PERCENTILE = 99;
+
+    /**
+     * The number of traces after which the tail latency statistics start over, to follow changes in latency.
+     */
+    private static final long TAIL_WINDOW = 10_000;
+
+    /**
+     * The number of traces needed before the first window decides which traces are in the tail.
+     */
+    private static final long TAIL_MIN_SAMPLES = 1_000;
+
+    /**
+     * The logger the kept traces are written to.
+     */
+    private static final Logger TRACES = LoggerFactory.getLogger("traces");
+
+    /**
+     * The trace of the event currently handled by this thread.
+     */
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The percentage of traces that are kept at random.
+     */
+    private final int samplePercent;
+
+    /**
+     * The durations of the traces of the current window in microseconds.
+     */
+    private final LogHistogram durations;
+
+    /**
+     * The durations of the traces of the previous window in microseconds,
+     * which decide the tail while the current window fills up.
+     */
+    private final LogHistogram previousDurations;
+
+    /**
+     * The ID of the next trace.
+     */
+    private final AtomicLong nextId;
+
+    /**
+     * Creates a new {@link Tracer}.
+     *
+     * @param config the {@link BetonBotConfig} instance
+     */
+    public Tracer(final BetonBotConfig config) {
+        this.samplePercent = config.tracingSamplePercent;
+        this.durations = new LogHistogram();
+        this.previousDurations = new LogHistogram();
+        this.nextId = new AtomicLong(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+    }
+
+    /**
+     * Queues a REST request like {@link RestAction#queue()} and records it as a span of the current trace.
+     *
+     * @param name   the name of the request in the trace
+     * @param action the request
+     * @param <T>    the result type of the request
+     */
+    public static <T> void queue(final String name, final RestAction<T> action) {
+        queue(name, action, null, null);
+    }
+
+    /**
+     * Queues a REST request like {@link RestAction#queue(Consumer)} and records it as a span of the current trace.
+     *
+     * @param name    the name of the request in the trace
+     * @param action  the request
+     * @param success the success callback, or null for none
+     * @param <T>     the result type of the request
+     */
+    public static <T> void queue(final String name, final RestAction<T> action,
+                                 @Nullable final Consumer<? super T> success) {
+        queue(name, action, success, null);
+    }
+
+    /**
+     * Queues a REST request like {@link RestAction#queue(Consumer, Consumer)}
+     * and records it as a span of the current trace.
+     * Without a current trace, the request is queued as usual.
+     *
+     * @param name    the name of the request in the trace
+     * @param action  the request
+     * @param success the success callback, or null for none
+     * @param failure the failure callback, or null for the default failure handler
+     * @param <T>     the result type of the request
+     */
+    public static <T> void queue(final String name, final RestAction<T> action,
+                                 @Nullable final Consumer<? super T> success,
+                                 @Nullable final Consumer<? super Throwable> failure) {
+        final Trace trace = CURRENT.get();
+        if (trace == null) {
+            action.queue(success, failure);
+            return;
+        }
+        trace.retain();
+        final long queued = System.nanoTime();
+        final AtomicLong executed = new AtomicLong();
+        action.addCheck(() -> {
+            executed.compareAndSet(0, System.nanoTime());
+            return true;
+        }).queue(
+                result -> completeSpan(trace, name, queued, executed.get(), true, () -> {
+                    if (success != null) {
+                        success.accept(result);
+                    }
+                }),
+                error -> completeSpan(trace, name, queued, executed.get(), false, () -> {
+                    if (failure == null) {
+                        RestAction.getDefaultFailure().accept(error);
+                    } else {
+                        failure.accept(error);
+                    }
+                }));
+    }
+
+    /**
+     * Submits a REST request like {@link RestAction#submit()} and records it as a span of the current trace.
+     * The stages chained to the returned future run within the trace, if they are not asynchronous.
+     *
+     * @param name   the name of the request in the trace
+     * @param action the request
+     * @param <T>    the result type of the request
+     * @return the future result of the request
+     */
+    public static <T> CompletableFuture<T> submit(final String name, final RestAction<T> action) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        queue(name, action, future::complete, future::completeExceptionally);
+        return future;
+    }
+
+    private static void completeSpan(final Trace trace, final String name, final long queued, final long executed,
+                                     final boolean success, final Runnable callback) {
+        final long responded = System.nanoTime();
+        final long started = executed == 0 ? queued : executed;
+        try {
+            within(trace, callback);
+        } finally {
+            trace.addSpan(new Trace.Span(name, success, Trace.micros(queued, started),
+                    Trace.micros(started, responded), Trace.micros(responded, System.nanoTime())));
+            trace.release();
+        }
+    }
+
+    /**
+     * Wraps a task, so it runs with the current trace of this thread when it is run on another thread.
+     * The trace is kept open until the task ran. Without a current trace, the task is returned as it is.
+     *
+     * @param task the task
+     * @param <T>  the result type of the task
+     * @return the wrapped task
+     */
+    public static <T> Supplier<T> propagate(final Supplier<T> task) {
+        final Trace trace = CURRENT.get();
+        if (trace == null) {
+            return task;
+        }
+        trace.retain();
+        return () -> {
+            final Trace previous = CURRENT.get();
+            CURRENT.set(trace);
+            try {
+                return task.get();
+            } finally {
+                trace.release();
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Runs code with the given trace as current trace of the thread.
+     *
+     * @param trace    the trace
+     * @param runnable the code to run
+     */
+    public static void within(final Trace trace, final Runnable runnable) {
+        final Trace previous = CURRENT.get();
+        CURRENT.set(trace);
+        try {
+            runnable.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Starts a new trace for the handling of an event by a listener.
+     *
+     * @param listener the listener handling the event
+     * @param event    the event
+     * @return the started trace
+     */
+    public Trace start(final Object listener, final GenericEvent event) {
+        final long[] entityIds = {-1, -1, -1};
+        long dispatchMicros = -1;
+        if (event instanceof final GenericInteractionCreateEvent interaction) {
+            final Guild guild = interaction.getGuild();
+            final Channel channel = interaction.getChannel();
+            entityIds[0] = guild == null ? -1 : guild.getIdLong();
+            entityIds[1] = channel == null ? -1 : channel.getIdLong();
+            entityIds[2] = interaction.getUser().getIdLong();
+            dispatchMicros = ChronoUnit.MICROS.between(interaction.getTimeCreated(), OffsetDateTime.now());
+        } else if (event instanceof final GenericChannelEvent channelEvent) {
+            entityIds[0] = channelEvent.isFromGuild() ? channelEvent.getGuild().getIdLong() : -1;
+            entityIds[1] = channelEvent.getChannel().getIdLong();
+        }
+        final String name = listener.getClass().getSimpleName() + "." + event.getClass().getSimpleName();
+        return new Trace(this, nextId.getAndIncrement(), name, entityIds, dispatchMicros);
+    }
+
+    /**
+     * Decides if a completed trace is kept and writes it.
+     * Traces without any REST request are dropped, as the listener ignored the event.
+     *
+     * @param trace the completed trace
+     */
+    /* default */ void complete(final Trace trace) {
+        if (trace.getSpanCount() == 0) {
+            return;
+        }
+        final boolean tail;
+        synchronized (durations) {
+            final LogHistogram window = previousDurations.getTotalCount() == 0 ? durations : previousDurations;
+            tail = window.getTotalCount() >= TAIL_MIN_SAMPLES
+                    && trace.getDurationMicros() >= window.getValueAtPercentile(TAIL_PERCENTILE);
+            durations.record(trace.getDurationMicros());
+            if (durations.getTotalCount() >= TAIL_WINDOW) {
+                previousDurations.reset();
+                previousDurations.merge(durations);
+                durations.reset();
+            }
+        }
+        if (tail) {
+            TRACES.info("{}", trace.toJson("tail"));
+        } else if (ThreadLocalRandom.current().nextInt(100) < samplePercent) {
+            TRACES.info("{}", trace.toJson("sampled"));
+        }
+    }
+}
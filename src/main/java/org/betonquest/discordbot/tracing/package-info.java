@@ -0,0 +1,4 @@
+/**
+ * Tracing of event handling from the gateway event to the completion of the REST requests.
+ */
+package org.betonquest.discordbot.tracing;